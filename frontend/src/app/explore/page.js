@@ -239,7 +239,7 @@ export default function ExplorePage() {
                       <div className="flex items-center gap-3 mt-2 text-xs text-[var(--text-muted)]">
                         <span className="flex items-center gap-1">
                           <Users className="w-3 h-3" />
-                          1 member
+                          {c.memberCount ?? 0} {c.memberCount === 1 ? "member" : "members"}
                         </span>
                         <span className="flex items-center gap-1">
                           <Calendar className="w-3 h-3" />
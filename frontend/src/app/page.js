@@ -15,6 +15,7 @@ export default function HomePage() {
   const [user, setUser] = useState(null);
   const [allPostsSummary, setAllPostsSummary] = useState(null);
   const [loadingAllSummary, setLoadingAllSummary] = useState(false);
+  const [summaryProgress, setSummaryProgress] = useState(null);
   const [showSummaryModal, setShowSummaryModal] = useState(false);
 
   useEffect(() => {
@@ -53,9 +54,10 @@ export default function HomePage() {
       return;
     }
     setLoadingAllSummary(true);
+    setSummaryProgress(null);
     setShowSummaryModal(true);
     try {
-      const result = await summarizeAllPosts();
+      const result = await summarizeAllPosts(setSummaryProgress);
       setAllPostsSummary(result);
     } catch (err) {
       console.error("Failed to summarize all posts:", err);
@@ -296,6 +298,11 @@ export default function HomePage() {
                 <div className="text-center py-8">
                   <div className="inline-block animate-spin rounded-full h-8 w-8 border-b-2 border-purple-500 mb-4"></div>
                   <p className="text-[var(--text-muted)]">Generating summary of all posts...</p>
+                  {summaryProgress && (
+                    <p className="text-xs text-[var(--text-muted)] mt-2">
+                      {summaryProgress.stage === "map" ? "Summarizing posts" : "Combining summaries"}: {summaryProgress.done} of {summaryProgress.submitted}
+                    </p>
+                  )}
                 </div>
               ) : allPostsSummary ? (
                 <div className="space-y-4">
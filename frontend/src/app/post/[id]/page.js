@@ -1,9 +1,9 @@
 "use client";
 
-import { useEffect, useState } from "react";
+import { useEffect, useRef, useState } from "react";
 import { useParams } from "next/navigation";
 import Link from "next/link";
-import { getPost, getPostComments, addComment, getCurrentUser, getImageDataUrl, upvoteComment, downvoteComment, summarizePost } from "../../../lib/api";
+import { getPost, getPostComments, addComment, getCurrentUser, getImageDataUrl, upvoteComment, downvoteComment, upvotePost, downvotePost, streamPostSummary, subscribePostEvents } from "../../../lib/api";
 import { ArrowBigUp, ArrowBigDown, MessageSquare, Share2, Bookmark, Award, MoreHorizontal, Send, Flag, EyeOff, Sparkles } from "lucide-react";
 
 export default function PostDetailPage() {
@@ -20,6 +20,8 @@ export default function PostDetailPage() {
   const [commentVotes, setCommentVotes] = useState({}); // { commentId: { votes: number, voteState: 'up' | 'down' | null } }
   const [summary, setSummary] = useState(null);
   const [loadingSummary, setLoadingSummary] = useState(false);
+  // Votes this page already shows optimistically; taken out of the live batch that carries them.
+  const ownDeltas = useRef({ post: 0, comments: {} });
 
   useEffect(() => {
     setUser(getCurrentUser());
@@ -31,6 +33,7 @@ export default function PostDetailPage() {
           getPostComments(postId),
         ]);
         setPost(postData);
+        setVotes(postData?.votes || 0);
         const commentsList = commentsData || [];
         setComments(commentsList);
         
@@ -78,6 +81,58 @@ export default function PostDetailPage() {
     fetchData();
   }, [postId]);
 
+  useEffect(() => {
+    const applyBatch = (batch) => {
+      const own = ownDeltas.current;
+      if (batch.voteDelta) {
+        const postDelta = batch.voteDelta - own.post;
+        own.post = 0;
+        if (postDelta) setVotes(v => v + postDelta);
+      }
+      const commentDeltas = {};
+      Object.entries(batch.commentVoteDeltas || {}).forEach(([id, delta]) => {
+        commentDeltas[id] = delta - (own.comments[id] || 0);
+        delete own.comments[id];
+      });
+      const newComments = batch.newComments || [];
+      if (newComments.length) {
+        setComments(prev => {
+          const known = new Set(prev.map(c => c.commentId));
+          return [...prev, ...newComments.filter(c => !known.has(c.commentId))];
+        });
+      }
+      setCommentVotes(prev => {
+        const next = { ...prev };
+        newComments.forEach(c => {
+          if (!next[c.commentId]) next[c.commentId] = { votes: c.votes || 0, voteState: null };
+        });
+        Object.entries(commentDeltas).forEach(([id, delta]) => {
+          if (next[id] && delta) next[id] = { ...next[id], votes: next[id].votes + delta };
+        });
+        return next;
+      });
+    };
+
+    // Updates were missed (too many at once, or the connection dropped): reload instead of patching.
+    const resync = async () => {
+      try {
+        const [postData, commentsData] = await Promise.all([getPost(postId), getPostComments(postId)]);
+        const commentsList = commentsData || [];
+        ownDeltas.current = { post: 0, comments: {} };
+        if (postData) setVotes(postData.votes || 0);
+        setComments(commentsList);
+        setCommentVotes(prev => Object.fromEntries(commentsList.map(comment => [
+          comment.commentId,
+          { votes: comment.votes || 0, voteState: prev[comment.commentId]?.voteState ?? null },
+        ])));
+      } catch (err) {
+        console.error("Error reloading post data:", err);
+      }
+    };
+
+    return subscribePostEvents(postId, { onBatch: applyBatch, onResync: resync });
+  }, [postId]);
+
   const handleSubmitComment = async (e) => {
     e.preventDefault();
     if (!newComment.trim() || !user) return;
@@ -85,10 +140,11 @@ export default function PostDetailPage() {
     setSubmitting(true);
     try {
       const result = await addComment({ content: newComment.trim(), postId: parseInt(postId) }, user.userId);
-      setComments([...comments, result]);
+      // The live feed may have delivered it already.
+      setComments(prev => prev.some(c => c.commentId === result.commentId) ? prev : [...prev, result]);
       
       // Initialize vote state for new comment
-      setCommentVotes(prev => ({
+      setCommentVotes(prev => prev[result.commentId] ? prev : ({
         ...prev,
         [result.commentId]: {
           votes: result.votes || 0,
@@ -109,8 +165,16 @@ export default function PostDetailPage() {
       setVotes(votes - 1);
       setVoteState(null);
     } else {
-      setVotes(voteState === 'down' ? votes + 2 : votes + 1);
+      const delta = voteState === 'down' ? 2 : 1;
+      setVotes(votes + delta);
       setVoteState('up');
+      if (user) {
+        ownDeltas.current.post += delta;
+        upvotePost(postId, user.userId).catch((error) => {
+          ownDeltas.current.post -= delta;
+          console.error("Failed to upvote post:", error);
+        });
+      }
     }
   };
 
@@ -119,8 +183,16 @@ export default function PostDetailPage() {
       setVotes(votes + 1);
       setVoteState(null);
     } else {
-      setVotes(voteState === 'up' ? votes + 2 : votes + 1);
+      const delta = voteState === 'up' ? -2 : -1;
+      setVotes(votes + delta);
       setVoteState('down');
+      if (user) {
+        ownDeltas.current.post += delta;
+        downvotePost(postId, user.userId).catch((error) => {
+          ownDeltas.current.post -= delta;
+          console.error("Failed to downvote post:", error);
+        });
+      }
     }
   };
 
@@ -139,23 +211,14 @@ export default function PostDetailPage() {
       }
     }));
     
+    const own = ownDeltas.current.comments;
+    own[commentId] = (own[commentId] || 0) + 1;
     try {
-      await upvoteComment(commentId);
-      
-      // Refresh comments to get updated vote count from backend
-      const updatedComments = await getPostComments(postId);
-      const updatedComment = updatedComments.find(c => c.commentId === commentId);
-      if (updatedComment) {
-        setCommentVotes(prev => ({
-          ...prev,
-          [commentId]: {
-            votes: updatedComment.votes || 0,
-            voteState: 'up'
-          }
-        }));
-      }
+      // Other voters' changes arrive through the live feed, so there is nothing to refetch.
+      await upvoteComment(commentId, user.userId);
     } catch (error) {
       console.error("Failed to upvote comment:", error);
+      own[commentId] = (own[commentId] || 0) - 1;
       // Revert optimistic update
       setCommentVotes(prev => ({
         ...prev,
@@ -179,23 +242,14 @@ export default function PostDetailPage() {
       }
     }));
     
+    const own = ownDeltas.current.comments;
+    own[commentId] = (own[commentId] || 0) + -1;
     try {
-      await downvoteComment(commentId);
-      
-      // Refresh comments to get updated vote count from backend
-      const updatedComments = await getPostComments(postId);
-      const updatedComment = updatedComments.find(c => c.commentId === commentId);
-      if (updatedComment) {
-        setCommentVotes(prev => ({
-          ...prev,
-          [commentId]: {
-            votes: updatedComment.votes || 0,
-            voteState: 'down'
-          }
-        }));
-      }
+      // Other voters' changes arrive through the live feed, so there is nothing to refetch.
+      await downvoteComment(commentId, user.userId);
     } catch (error) {
       console.error("Failed to downvote comment:", error);
+      own[commentId] = (own[commentId] || 0) - -1;
       // Revert optimistic update
       setCommentVotes(prev => ({
         ...prev,
@@ -222,10 +276,11 @@ export default function PostDetailPage() {
     }
     setLoadingSummary(true);
     try {
-      const summaryText = await summarizePost(parseInt(postId));
+      const summaryText = await streamPostSummary(parseInt(postId), setSummary);
       setSummary(summaryText);
     } catch (err) {
       console.error("Failed to summarize post:", err);
+      setSummary(null);
       alert("Failed to generate summary. Please try again.");
     } finally {
       setLoadingSummary(false);
@@ -3,7 +3,7 @@
 import { useEffect, useState, Suspense } from "react";
 import { useRouter, useSearchParams } from "next/navigation";
 import Link from "next/link";
-import { createPost, getAllCommunities, getCurrentUser } from "../../lib/api";
+import { createPost, getCurrentUser, suggestCommunities } from "../../lib/api";
 import { ChevronDown, FileText, Image as ImageIcon, Link2, ListOrdered, Mic, X, Check, Search, Upload, X as XIcon } from "lucide-react";
 
 function SubmitForm() {
@@ -32,9 +32,17 @@ function SubmitForm() {
       router.push("/login");
       return;
     }
-    getAllCommunities().then((data) => setCommunities(data || [])).catch(console.error);
   }, [router]);
 
+  useEffect(() => {
+    if (!user) return;
+    // Ask the server for the best matches of what has been typed so far.
+    const timer = setTimeout(() => {
+      suggestCommunities(searchCommunity).then((data) => setCommunities(data || [])).catch(console.error);
+    }, 100);
+    return () => clearTimeout(timer);
+  }, [searchCommunity, user]);
+
   const handleImageChange = (e) => {
     const file = e.target.files[0];
     if (file) {
@@ -113,31 +121,8 @@ function SubmitForm() {
         communityName: selectedCommunity,
       };
 
-      // Pass image file if image tab is selected and image exists
-      // For other post types, create a transparent 1x1 pixel PNG as placeholder
-      // since backend requires an image
-      if (activeTab === "image" && image) {
-        await createPost(postData, image);
-      } else {
-        // Create a transparent 1x1 pixel PNG for non-image posts
-        const canvas = document.createElement('canvas');
-        canvas.width = 1;
-        canvas.height = 1;
-        const ctx = canvas.getContext('2d');
-        ctx.clearRect(0, 0, 1, 1);
-        
-        canvas.toBlob(async (blob) => {
-          try {
-            await createPost(postData, blob);
-            router.push(`/community/${encodeURIComponent(selectedCommunity)}`);
-          } catch (err) {
-            setError(err.message || "Failed to create post");
-          } finally {
-            setLoading(false);
-          }
-        }, 'image/png');
-        return; // Return early since we're handling async in the callback
-      }
+      // The image is optional; only image posts send one
+      await createPost(postData, activeTab === "image" ? image : null);
       
       router.push(`/community/${encodeURIComponent(selectedCommunity)}`);
     } catch (err) {
@@ -147,9 +132,7 @@ function SubmitForm() {
     }
   };
 
-  const filteredCommunities = communities.filter(c => 
-    c.communityName.toLowerCase().includes(searchCommunity.toLowerCase())
-  );
+  const filteredCommunities = communities;
 
   const tabs = [
     { id: "text", icon: FileText, label: "Post" },
@@ -240,7 +223,9 @@ function SubmitForm() {
                       </div>
                       <div className="flex-1 min-w-0">
                         <p className="text-sm text-[var(--text-primary)] font-medium">r/{c.communityName}</p>
-                        <p className="text-xs text-[var(--text-muted)] truncate">{c.communityDesc}</p>
+                        <p className="text-xs text-[var(--text-muted)] truncate">
+                          {c.memberCount} {c.memberCount === 1 ? "member" : "members"}
+                        </p>
                       </div>
                       {selectedCommunity === c.communityName && (
                         <Check className="w-4 h-4 text-[var(--reddit-orange)]" />
@@ -206,7 +206,7 @@ export default function Navbar() {
                   {/* Avatar */}
                   {user.imageUrl && !imageError ? (
                     <img 
-                      src={user.imageUrl} 
+                      src={user.thumbnailUrl || user.imageUrl} 
                       alt={user.userName || "User"} 
                       className="w-7 h-7 rounded-full object-cover border border-[var(--border-primary)] shrink-0"
                       onError={(e) => {
@@ -251,7 +251,7 @@ export default function Navbar() {
                       <div className="flex items-center gap-3">
                         {user.imageUrl && !dropdownImageError ? (
                           <img 
-                            src={user.imageUrl} 
+                            src={user.thumbnailUrl || user.imageUrl} 
                             alt={user.userName || "User"} 
                             className="w-10 h-10 rounded-full object-cover border border-[var(--border-primary)]"
                             onError={() => setDropdownImageError(true)}
@@ -173,8 +173,8 @@ export default function PostCard({ post }) {
 
           {/* Post Image - display if image exists and is not a tiny placeholder */}
           {(() => {
-            // Prefer imageUrl from transformed post, otherwise convert from image bytes
-            let imageUrl = post.imageUrl;
+            // Feed cards use the feed-size variant; the post page shows the full-size one
+            let imageUrl = post.feedImageUrl || post.imageUrl;
             
             if (!imageUrl && post.image && post.imageType) {
               // Check if image has meaningful content (not a 1x1 transparent placeholder)
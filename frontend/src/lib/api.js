@@ -1,5 +1,11 @@
 const API_BASE = "http://localhost:9090";
 
+// Media is served by the backend under /media/{key}; DTOs carry the path only
+export const getMediaUrl = (imageUrl) => {
+  if (!imageUrl) return null;
+  return imageUrl.startsWith("/") ? `${API_BASE}${imageUrl}` : imageUrl;
+};
+
 // Helper to convert image bytes to base64 data URL
 export const getImageDataUrl = (imageBytes, imageType) => {
   if (!imageBytes || !imageType) {
@@ -134,7 +140,7 @@ export const storeUserData = (userData) => {
   
   // If conversion didn't work but we have an existing imageUrl, use it
   if (!imageUrl && userData.imageUrl) {
-    imageUrl = userData.imageUrl;
+    imageUrl = getMediaUrl(userData.imageUrl);
     console.log('storeUserData - Using existing imageUrl');
   }
   
@@ -149,6 +155,8 @@ export const storeUserData = (userData) => {
     imageType: userData.imageType || null,
     // Store imageUrl (base64 string) instead of raw bytes - this is smaller and acceptable
     imageUrl: imageUrl || null,
+    // Avatars are shown small everywhere; the thumbnail is a few KB instead of the full image
+    thumbnailUrl: getMediaUrl(userData.thumbnailUrl) || imageUrl || null,
     createAt: userData.createAt || null,
     updateAt: userData.updateAt || null,
   };
@@ -191,6 +199,18 @@ export const storeUserData = (userData) => {
   return userToStore;
 };
 
+// Sends the file as the raw request body, so the backend streams it to disk as it arrives;
+// the returned imageKey is then passed in the dto of the form that uses the image.
+export const uploadMedia = async (file) => {
+  const res = await fetch(`${API_BASE}/media`, {
+    method: "POST",
+    headers: { "Content-Type": file.type || "application/octet-stream" },
+    body: file,
+  });
+  if (!res.ok) throw new Error("Failed to upload image");
+  return res.json();
+};
+
 // User APIs
 export const loginUser = async (email, password) => {
   const res = await fetch(`${API_BASE}/test_login?userEmail=${encodeURIComponent(email)}&password=${encodeURIComponent(password)}`);
@@ -205,9 +225,9 @@ export const loginUser = async (email, password) => {
 };
 
 export const registerUser = async (userData, imageFile) => {
+  const imageKey = imageFile && imageFile.size > 0 ? (await uploadMedia(imageFile)).imageKey : null;
   const formData = new FormData();
-  formData.append("dto", new Blob([JSON.stringify(userData)], { type: "application/json" }));
-  formData.append("image", imageFile);
+  formData.append("dto", new Blob([JSON.stringify({ ...userData, imageKey })], { type: "application/json" }));
   
   const res = await fetch(`${API_BASE}/create-account`, {
     method: "POST",
@@ -218,11 +238,9 @@ export const registerUser = async (userData, imageFile) => {
 };
 
 export const updateProfile = async (userData, imageFile) => {
+  const imageKey = imageFile && imageFile.size > 0 ? (await uploadMedia(imageFile)).imageKey : null;
   const formData = new FormData();
-  formData.append("dto", new Blob([JSON.stringify(userData)], { type: "application/json" }));
-  if (imageFile) {
-    formData.append("image", imageFile);
-  }
+  formData.append("dto", new Blob([JSON.stringify({ ...userData, imageKey })], { type: "application/json" }));
   
   const res = await fetch(`${API_BASE}/update-profile`, {
     method: "POST",
@@ -236,6 +254,9 @@ export const updateProfile = async (userData, imageFile) => {
 const transformPostData = (post) => {
   if (!post) return post;
   const transformedPost = { ...post };
+  transformedPost.imageUrl = getMediaUrl(transformedPost.imageUrl);
+  transformedPost.feedImageUrl = getMediaUrl(transformedPost.feedImageUrl);
+  transformedPost.thumbnailUrl = getMediaUrl(transformedPost.thumbnailUrl);
   
   // Convert image bytes to imageUrl if available
   if (transformedPost.image && transformedPost.imageType) {
@@ -248,12 +269,35 @@ const transformPostData = (post) => {
 };
 
 // Post APIs
-export const getAllPosts = async () => {
-  const res = await fetch(`${API_BASE}/get-all-posts`);
-  if (!res.ok) throw new Error("Failed to fetch posts");
-  const posts = await res.json();
-  // Transform each post to convert image bytes to imageUrl
-  return Array.isArray(posts) ? posts.map(transformPostData) : [];
+// Feed endpoints are cursor-paginated: { items, nextCursor }. nextCursor is null on the last page.
+const fetchPostPage = async (path, cursor, errorMessage) => {
+  const separator = path.includes("?") ? "&" : "?";
+  const url = cursor ? `${API_BASE}${path}${separator}cursor=${encodeURIComponent(cursor)}` : `${API_BASE}${path}`;
+  const res = await fetch(url);
+  if (!res.ok) throw new Error(errorMessage);
+  const page = await res.json();
+  return {
+    items: Array.isArray(page?.items) ? page.items.map(transformPostData) : [],
+    nextCursor: page?.nextCursor || null,
+  };
+};
+
+export const getAllPostsPage = (cursor) =>
+  fetchPostPage("/get-all-posts", cursor, "Failed to fetch posts");
+
+export const getAllPosts = async (cursor) => (await getAllPostsPage(cursor)).items;
+
+export const getHomeFeedPage = (userId, cursor) =>
+  fetchPostPage(`/home-feed?userId=${userId}`, cursor, "Failed to fetch home feed");
+
+// One page of full-text search hits ({ items, nextCursor }); comment hits carry their postId.
+export const searchPage = async (q, { communityName, cursor } = {}) => {
+  const params = new URLSearchParams({ q });
+  if (communityName) params.set("communityName", communityName);
+  if (cursor) params.set("cursor", cursor);
+  const res = await fetch(`${API_BASE}/search?${params}`);
+  if (!res.ok) throw new Error("Failed to search");
+  return res.json();
 };
 
 export const getPost = async (postId) => {
@@ -263,25 +307,22 @@ export const getPost = async (postId) => {
   return transformPostData(post);
 };
 
-export const getCommunityPosts = async (communityName) => {
-  const res = await fetch(`${API_BASE}/get-community-posts?communityName=${encodeURIComponent(communityName)}`);
-  if (!res.ok) throw new Error("Failed to fetch community posts");
-  const posts = await res.json();
-  return Array.isArray(posts) ? posts.map(transformPostData) : [];
-};
+export const getCommunityPostsPage = (communityName, cursor) =>
+  fetchPostPage(`/get-community-posts?communityName=${encodeURIComponent(communityName)}`, cursor, "Failed to fetch community posts");
 
-export const getUserPosts = async (email) => {
-  const res = await fetch(`${API_BASE}/get-user-posts?email=${encodeURIComponent(email)}`);
-  if (!res.ok) throw new Error("Failed to fetch user posts");
-  const posts = await res.json();
-  return Array.isArray(posts) ? posts.map(transformPostData) : [];
-};
+export const getCommunityPosts = async (communityName, cursor) =>
+  (await getCommunityPostsPage(communityName, cursor)).items;
+
+export const getUserPostsPage = (email, cursor) =>
+  fetchPostPage(`/get-user-posts?email=${encodeURIComponent(email)}`, cursor, "Failed to fetch user posts");
+
+export const getUserPosts = async (email, cursor) => (await getUserPostsPage(email, cursor)).items;
 
 export const createPost = async (postData, imageFile) => {
-  // Backend always requires an image file, so we always send as multipart/form-data
+  // The image goes up on its own first; the form only carries its key
+  const imageKey = imageFile && imageFile.size > 0 ? (await uploadMedia(imageFile)).imageKey : null;
   const formData = new FormData();
-  formData.append("dto", new Blob([JSON.stringify(postData)], { type: "application/json" }));
-  formData.append("image", imageFile);
+  formData.append("dto", new Blob([JSON.stringify({ ...postData, imageKey })], { type: "application/json" }));
   
   const res = await fetch(`${API_BASE}/create-post`, {
     method: "POST",
@@ -310,6 +351,14 @@ export const getAllCommunities = async () => {
   return res.json();
 };
 
+// Top community names for a typed prefix, most members first: [{ communityName, memberCount }]
+export const suggestCommunities = async (prefix, limit = 10) => {
+  const params = new URLSearchParams({ prefix: prefix || "", limit });
+  const res = await fetch(`${API_BASE}/suggest-communities?${params}`);
+  if (!res.ok) throw new Error("Failed to fetch community suggestions");
+  return res.json();
+};
+
 export const getCommunityDetails = async (communityName) => {
   const res = await fetch(`${API_BASE}/community-details?communityName=${encodeURIComponent(communityName)}`);
   if (!res.ok) throw new Error("Failed to fetch community details");
@@ -341,6 +390,19 @@ export const getPostComments = async (postId) => {
   return res.json();
 };
 
+// Root threads with limited reply subtrees. Pass a node's moreReplies (or the
+// page's nextCursor) back as the cursor to load what was cut.
+export const getCommentThreads = async (postId, { cursor, limit, depth, breadth } = {}) => {
+  const params = new URLSearchParams({ postId });
+  if (cursor) params.set("cursor", cursor);
+  if (limit) params.set("limit", limit);
+  if (depth !== undefined) params.set("depth", depth);
+  if (breadth) params.set("breadth", breadth);
+  const res = await fetch(`${API_BASE}/get-comment-threads?${params}`);
+  if (!res.ok) throw new Error("Failed to fetch comment threads");
+  return res.json();
+};
+
 export const addComment = async (commentData, userId) => {
   const res = await fetch(`${API_BASE}/add-comment?userId=${userId}`, {
     method: "POST",
@@ -351,20 +413,50 @@ export const addComment = async (commentData, userId) => {
   return res.json();
 };
 
-export const upvoteComment = async (commentId) => {
-  const res = await fetch(`${API_BASE}/up-vote?commentId=${commentId}`, {
+// Votes are recorded per user; repeating the same vote is a no-op on the server
+export const upvoteComment = async (commentId, userId) => {
+  const res = await fetch(`${API_BASE}/up-vote?commentId=${commentId}&userId=${userId}`, {
     method: "POST",
   });
   if (!res.ok) throw new Error("Failed to upvote comment");
 };
 
-export const downvoteComment = async (commentId) => {
-  const res = await fetch(`${API_BASE}/down-vote?commentId=${commentId}`, {
+export const downvoteComment = async (commentId, userId) => {
+  const res = await fetch(`${API_BASE}/down-vote?commentId=${commentId}&userId=${userId}`, {
     method: "POST",
   });
   if (!res.ok) throw new Error("Failed to downvote comment");
 };
 
+export const upvotePost = async (postId, userId) => {
+  const res = await fetch(`${API_BASE}/up-vote-post?postId=${postId}&userId=${userId}`, {
+    method: "POST",
+  });
+  if (!res.ok) throw new Error("Failed to upvote post");
+};
+
+export const downvotePost = async (postId, userId) => {
+  const res = await fetch(`${API_BASE}/down-vote-post?postId=${postId}&userId=${userId}`, {
+    method: "POST",
+  });
+  if (!res.ok) throw new Error("Failed to downvote post");
+};
+
+// Live updates of a post: onBatch gets { voteDelta, newComments, commentVoteDeltas } a few times a second while
+// anything changes; onResync means updates were missed and the comments should be reloaded. Returns an unsubscribe.
+export const subscribePostEvents = (postId, { onBatch, onResync }) => {
+  const source = new EventSource(`${API_BASE}/post-events?postId=${postId}`);
+  let connected = false;
+  source.addEventListener("batch", (e) => onBatch?.(JSON.parse(e.data)));
+  source.addEventListener("resync", () => onResync?.());
+  // The browser reconnects on its own; whatever happened while it was away is only caught up by a reload.
+  source.addEventListener("ready", () => {
+    if (connected) onResync?.();
+    connected = true;
+  });
+  return () => source.close();
+};
+
 // AI Summarization APIs
 export const summarizePost = async (postId) => {
   const res = await fetch(`${API_BASE}/summarize?postId=${postId}`, {
@@ -375,11 +467,56 @@ export const summarizePost = async (postId) => {
   return data.summary || data.error || "Unable to generate summary";
 };
 
-export const summarizeAllPosts = async () => {
-  const res = await fetch(`${API_BASE}/summarize-all-posts`, {
+// Resolves with the whole summary on "done"; onChunk gets the text so far each time a chunk arrives.
+export const streamPostSummary = (postId, onChunk) =>
+  new Promise((resolve, reject) => {
+    const source = new EventSource(`${API_BASE}/summarize-stream?postId=${postId}`);
+    let text = "";
+    source.addEventListener("chunk", (e) => {
+      text += e.data;
+      onChunk?.(text);
+    });
+    source.addEventListener("done", () => {
+      source.close();
+      resolve(text);
+    });
+    // Fires for the server's "error" event (with data) and for connection failures (without).
+    source.addEventListener("error", (e) => {
+      source.close();
+      reject(new Error(e.data || "Failed to summarize post"));
+    });
+  });
+
+// The server streams "progress" events while it works and ends with one "summary" or "error" event.
+export const summarizeAllPosts = async (onProgress, communityName) => {
+  const query = communityName ? `?communityName=${encodeURIComponent(communityName)}` : "";
+  const res = await fetch(`${API_BASE}/summarize-all-posts${query}`, {
     method: "POST",
+    headers: { Accept: "text/event-stream" },
   });
   if (!res.ok) throw new Error("Failed to summarize all posts");
-  const data = await res.json();
-  return data;
+  const reader = res.body.getReader();
+  const decoder = new TextDecoder();
+  let buffer = "";
+  let result = null;
+  while (true) {
+    const { done, value } = await reader.read();
+    if (done) break;
+    buffer += decoder.decode(value, { stream: true });
+    const events = buffer.split("\n\n");
+    buffer = events.pop();
+    for (const event of events) {
+      let name = "message";
+      let data = "";
+      for (const line of event.split("\n")) {
+        if (line.startsWith("event:")) name = line.slice(6).trim();
+        else if (line.startsWith("data:")) data += line.slice(5);
+      }
+      if (!data) continue;
+      const payload = JSON.parse(data);
+      if (name === "progress") onProgress?.(payload);
+      else result = payload;
+    }
+  }
+  return result;
 };
@@ -0,0 +1,31 @@
+package com.Reddit.reddit_clone.config;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+/**
+ * The mapped tables still come from spring.jpa.hibernate.ddl-auto; the Flyway
+ * migrations in db/migration/{vendor} only add what the mappings cannot express
+ * (filtered indexes, archive tables) and so need those tables to exist. Spring
+ * Boot migrates before the entity manager factory starts, so that run is turned
+ * into a no-op and the migration runs once Hibernate has updated the schema.
+ */
+@Configuration
+public class MigrationConfig {
+
+    @Bean
+    public FlywayMigrationStrategy deferredMigration() {
+        return flyway -> {
+        };
+    }
+
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public InitializingBean migrateAfterHibernate(Flyway flyway) {
+        return flyway::migrate;
+    }
+}
@@ -0,0 +1,14 @@
+package com.Reddit.reddit_clone.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the @Scheduled jobs on Spring Boot's task scheduler, sized by
+ * spring.task.scheduling.pool.size so a slow job (an archive run, a search
+ * commit) does not hold back the others.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,89 +1,100 @@
 package com.Reddit.reddit_clone.controllers;
 
-import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostRow;
 import com.Reddit.reddit_clone.repos.PostRepo;
-import com.Reddit.reddit_clone.services.implementations.GeminiService;
+import com.Reddit.reddit_clone.services.implementations.AllPostsSummarizer;
+import com.Reddit.reddit_clone.services.implementations.SummaryCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+// Summaries come back as futures or event streams: the request thread goes back to Tomcat while Gemini works.
 @RestController
 public class AiController {
 
     @Autowired
     private PostRepo postRepo;
-    private final GeminiService geminiService;
-
-    public AiController(GeminiService geminiService) {
-        this.geminiService = geminiService;
-    }
+    @Autowired
+    private SummaryCache summaryCache;
+    @Autowired
+    private AllPostsSummarizer allPostsSummarizer;
 
     @PostMapping("/summarize")
-    public ResponseEntity<Map<String, String>> summarizePost(@RequestParam Integer postId) {
-        try {
-            Optional<Post> post = postRepo.findById(postId);
-            if (post.isPresent()) {
-                String postContent = post.get().getContent();
-                if (postContent == null || postContent.trim().isEmpty()) {
-                    Map<String, String> response = new HashMap<>();
-                    response.put("summary", "This post has no content to summarize.");
-                    return ResponseEntity.ok(response);
-                }
-                String summary = geminiService.askGemini(postContent);
+    public CompletableFuture<ResponseEntity<Map<String, String>>> summarizePost(@RequestParam Integer postId) {
+        Optional<PostRow> post = postRepo.findRowById(postId);
+        if (post.isPresent()) {
+            String postContent = post.get().content();
+            if (postContent == null || postContent.trim().isEmpty()) {
                 Map<String, String> response = new HashMap<>();
-                response.put("summary", summary);
-                return ResponseEntity.ok(response);
+                response.put("summary", "This post has no content to summarize.");
+                return CompletableFuture.completedFuture(ResponseEntity.ok(response));
             }
-            Map<String, String> response = new HashMap<>();
-            response.put("summary", "Post not found");
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, String> response = new HashMap<>();
-            response.put("error", "Error: " + e.getMessage());
-            return ResponseEntity.status(500).body(response);
+            return summaryCache.summarize(postId, postContent)
+                    .thenApply(summary -> {
+                        Map<String, String> response = new HashMap<>();
+                        response.put("summary", summary);
+                        return ResponseEntity.ok(response);
+                    })
+                    .exceptionally(e -> {
+                        Map<String, String> response = new HashMap<>();
+                        response.put("error", "Error: " + messageOf(e));
+                        return ResponseEntity.status(statusOf(e)).body(response);
+                    });
         }
+        Map<String, String> response = new HashMap<>();
+        response.put("summary", "Post not found");
+        return CompletableFuture.completedFuture(ResponseEntity.ok(response));
     }
 
-    @PostMapping("/summarize-all-posts")
-    public ResponseEntity<Map<String, Object>> summarizeAllPosts() {
-        try {
-            List<Post> allPosts = postRepo.findAll();
-            if (allPosts.isEmpty()) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("message", "No posts found in the system.");
-                response.put("summaries", List.of());
-                return ResponseEntity.ok(response);
-            }
+    // The /summarize answer sent as it is written: "chunk" events, then "done" (or one "error").
+    @GetMapping(value = "/summarize-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamSummary(@RequestParam Integer postId) {
+        Optional<PostRow> post = postRepo.findRowById(postId);
+        if (post.isEmpty()) {
+            return Flux.just(event("error", "Post not found"));
+        }
+        String postContent = post.get().content();
+        if (postContent == null || postContent.trim().isEmpty()) {
+            return Flux.just(event("chunk", "This post has no content to summarize."), event("done", "ok"));
+        }
+        return summaryCache.stream(postId, postContent)
+                .map(text -> event("chunk", text))
+                .concatWithValues(event("done", "ok"))
+                .onErrorResume(e -> Flux.just(event("error", "Error: " + messageOf(e))));
+    }
 
-            // Combine all post contents
-            StringBuilder allContent = new StringBuilder();
-            allContent.append("Summarize all the following posts from a Reddit clone platform:\n\n");
-            
-            for (int i = 0; i < allPosts.size(); i++) {
-                Post post = allPosts.get(i);
-                if (post.getContent() != null && !post.getContent().trim().isEmpty()) {
-                    allContent.append("Post ").append(i + 1).append(": ").append(post.getTitle()).append("\n");
-                    allContent.append("Content: ").append(post.getContent()).append("\n\n");
-                }
-            }
+    // Streams "progress" events while chunks are summarized, then one "summary" (or "error") event.
+    @PostMapping(value = "/summarize-all-posts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter summarizeAllPosts(@RequestParam(required = false) String communityName) {
+        return allPostsSummarizer.start(communityName);
+    }
 
-            String combinedSummary = geminiService.askGemini(allContent.toString());
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("summary", combinedSummary);
-            response.put("totalPosts", allPosts.size());
-            response.put("message", "Successfully summarized all posts");
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("error", "Error: " + e.getMessage());
-            return ResponseEntity.status(500).body(response);
-        }
+    // Browsers drop events without data, so "done" carries a token too.
+    private static ServerSentEvent<String> event(String name, String data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
+
+    private static int statusOf(Throwable e) {
+        return unwrap(e) instanceof ResponseStatusException status ? status.getStatusCode().value() : 500;
+    }
+
+    private static String messageOf(Throwable e) {
+        Throwable cause = unwrap(e);
+        return cause instanceof ResponseStatusException status ? status.getReason() : cause.getMessage();
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
     }
 }
@@ -2,6 +2,7 @@ package com.Reddit.reddit_clone.controllers;
 
 import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentReqDto;
 import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentResDto;
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentThreadPageDto;
 import com.Reddit.reddit_clone.services.CommentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -21,12 +22,20 @@ public class CommentController {
     public List<CommentResDto>getPostComments(@RequestParam Integer postId){
         return commentService.getPostComments(postId);
     }
+    @GetMapping("/get-comment-threads")
+    public ResponseEntity<CommentThreadPageDto>getCommentThreads(@RequestParam Integer postId,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limit,
+                                                                 @RequestParam(required = false) Integer depth,
+                                                                 @RequestParam(required = false) Integer breadth){
+        return ResponseEntity.ok(commentService.getCommentThreads(postId, cursor, limit, depth, breadth));
+    }
     @PostMapping("up-vote")
-    public void upVote(Integer commentId){
-         commentService.upVote(commentId);
+    public void upVote(@RequestParam Integer commentId, @RequestParam Integer userId){
+         commentService.upVote(commentId, userId);
     }
     @PostMapping("down-vote")
-    public void downVote(Integer commentId){
-         commentService.downVote(commentId);
+    public void downVote(@RequestParam Integer commentId, @RequestParam Integer userId){
+         commentService.downVote(commentId, userId);
     }
 }
@@ -2,11 +2,15 @@ package com.Reddit.reddit_clone.controllers;
 
 import com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunityReqDto;
 import com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunityResDto;
+import com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunitySuggestionDto;
 import com.Reddit.reddit_clone.services.CommunityService;
+import com.Reddit.reddit_clone.utils.ETags;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -23,15 +27,39 @@ public class CommunityController {
     }
     @GetMapping("/community-details")
     public ResponseEntity<CommunityResDto>getCommunityDetails(@RequestParam String communityName){
-        return ResponseEntity.ok(communityService.getCommunityDetails(communityName));
+        CommunityResDto details = communityService.getCommunityDetails(communityName);
+        if (details == null) {
+            return ResponseEntity.ok(null);
+        }
+        List<Object> parts = new ArrayList<>();
+        addValidator(parts, details);
+        // Served from the community cache, so a matching If-None-Match costs neither a query nor serialization.
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(ETags.weak(parts.toArray())).body(details);
     }
     @GetMapping("/get-communities")
     public ResponseEntity<List<CommunityResDto>>getCommunities(){
-        return ResponseEntity.ok(communityService.getAllCommunities());
+        List<CommunityResDto> communities = communityService.getAllCommunities();
+        List<Object> parts = new ArrayList<>();
+        communities.forEach(community -> addValidator(parts, community));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(ETags.weak(parts.toArray())).body(communities);
+    }
+    @GetMapping("/suggest-communities")
+    public ResponseEntity<List<CommunitySuggestionDto>>suggestCommunities(@RequestParam(required = false) String prefix,
+                                                                         @RequestParam(required = false) Integer limit){
+        return ResponseEntity.ok(communityService.suggestCommunities(prefix, limit));
     }
     @PostMapping("/delete-community")
     public String deleteCommunity(String userEmail , String communityName){
         return communityService.deleteCommunity(userEmail,communityName);
     }
 
+    // Every field of the DTO; they are all short.
+    private static void addValidator(List<Object> parts, CommunityResDto community) {
+        parts.add(community.getCommunityName());
+        parts.add(community.getCommunityDesc());
+        parts.add(community.getCreateAt());
+        parts.add(community.getCreatedByName());
+        parts.add(community.getCreatedByEmail());
+        parts.add(community.getMemberCount());
+    }
 }
@@ -0,0 +1,36 @@
+package com.Reddit.reddit_clone.controllers;
+
+import com.Reddit.reddit_clone.model.dtos.ImportDtos.ImportResDto;
+import com.Reddit.reddit_clone.services.BulkImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+// Bulk loading for migrations and seeding. The body is read as a stream, so it can be far larger than memory.
+// Only mapped when imports.enabled=true.
+@RestController
+@ConditionalOnProperty(name = "imports.enabled", havingValue = "true")
+public class ImportController {
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @PostMapping("/import-posts")
+    public ResponseEntity<ImportResDto> importPosts(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(bulkImportService.importPosts(request.getInputStream()));
+    }
+
+    @PostMapping("/import-comments")
+    public ResponseEntity<ImportResDto> importComments(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(bulkImportService.importComments(request.getInputStream()));
+    }
+
+    @PostMapping("/import-memberships")
+    public ResponseEntity<ImportResDto> importMemberships(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(bulkImportService.importMemberships(request.getInputStream()));
+    }
+}
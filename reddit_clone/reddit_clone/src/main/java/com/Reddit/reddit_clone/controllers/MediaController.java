@@ -0,0 +1,192 @@
+package com.Reddit.reddit_clone.controllers;
+
+import com.Reddit.reddit_clone.services.MediaStore;
+import com.Reddit.reddit_clone.model.dtos.MediaDtos.MediaUploadResDto;
+import com.Reddit.reddit_clone.services.implementations.ImageVariants;
+import com.Reddit.reddit_clone.services.implementations.MediaUploads;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+@RestController
+public class MediaController {
+    // Served inline; anything else, SVG included (it can carry script), goes out as a download. The stored type
+    // comes from the uploader, so it is never trusted beyond this list.
+    private static final Set<String> INLINE_TYPES = Set.of(
+            "image/png", "image/jpeg", "image/gif", "image/webp", "image/avif", "image/bmp");
+
+    @Autowired
+    private MediaStore mediaStore;
+    @Autowired
+    private ImageVariants imageVariants;
+    @Autowired
+    private MediaUploads mediaUploads;
+
+    /**
+     * Stores the request body as an image, with its Content-Type. Nothing is parsed or buffered: the body is
+     * copied to disk as it arrives, which makes this the cheapest way to upload large files.
+     */
+    @PostMapping("/media")
+    public ResponseEntity<MediaUploadResDto> uploadMedia(HttpServletRequest request) throws IOException {
+        String key = mediaUploads.store(request.getInputStream(), request.getContentType(), request.getContentLengthLong());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(new MediaUploadResDto(key, "/media/" + key + "?size=" + MediaStore.Variant.FULL.id()));
+    }
+
+    /** size is thumb, feed or full (see MediaStore.Variant); without it the uploaded original is served. */
+    @GetMapping("/media/{key}")
+    public void getMedia(@PathVariable String key,
+                         @RequestParam(name = "size", required = false) String sizeName,
+                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                         @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                         HttpServletResponse response) throws IOException {
+        MediaStore.Variant variant = sizeName == null ? null : MediaStore.Variant.from(sizeName)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown size " + sizeName));
+        Optional<MediaStore.StoredMedia> media = variant == null ? Optional.empty() : mediaStore.find(key, variant);
+        boolean fallback = variant != null && media.isEmpty();
+        if (media.isEmpty()) {
+            media = mediaStore.find(key);
+            if (variant != null && media.isPresent() && media.get().contentType().startsWith("image/")) {
+                // Not rendered yet (or dropped while the pool was busy): serve the original and make sure it is queued.
+                imageVariants.generate(key);
+            }
+            variant = null;
+        }
+        if (media.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // Keys are content hashes and variants are derived from them, so key and variant form a strong validator.
+        String etag = "\"" + key + (variant == null ? "" : "-" + variant.id()) + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // For the same reason the bytes behind this URL never change, except while the original stands in for a
+        // variant that is not rendered yet; that answer is only kept briefly.
+        response.setHeader(HttpHeaders.CACHE_CONTROL, fallback
+                ? CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic().getHeaderValue()
+                : CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue());
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long size = media.get().size();
+        long start = 0;
+        long end = size - 1;
+        if (range != null && range.startsWith("bytes=") && !range.contains(",")) {
+            long[] bounds = parseRange(range.substring("bytes=".length()).trim(), size);
+            if (bounds == null) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+            start = bounds[0];
+            end = bounds[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+
+        long length = end - start + 1;
+        String contentType = servedType(media.get().contentType());
+        response.setContentType(contentType);
+        if (contentType.equals(MediaType.APPLICATION_OCTET_STREAM_VALUE)) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment");
+        }
+        response.setContentLengthLong(length);
+        try (SeekableByteChannel in = mediaStore.open(key, variant)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            if (in instanceof FileChannel file) {
+                // A buffered copy, not sendfile: the target only wraps the servlet stream, so transferTo
+                // reads the range into a small JDK buffer and writes it on.
+                long position = start;
+                while (position <= end) {
+                    long sent = file.transferTo(position, end - position + 1, target);
+                    if (sent <= 0) {
+                        break;
+                    }
+                    position += sent;
+                }
+            } else {
+                in.position(start);
+                ByteBuffer buffer = ByteBuffer.allocate(8192);
+                long remaining = length;
+                while (remaining > 0) {
+                    buffer.limit((int) Math.min(buffer.capacity(), remaining));
+                    int read = in.read(buffer);
+                    if (read < 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                    buffer.clear();
+                    remaining -= read;
+                }
+            }
+            out.flush();
+        }
+    }
+
+    private static String servedType(String stored) {
+        String type = stored.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        return INLINE_TYPES.contains(type) ? type : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    // Single "start-end", "start-" or "-suffix" range; returns null when it cannot be satisfied.
+    private long[] parseRange(String spec, long size) {
+        int dash = spec.indexOf('-');
+        if (dash < 0 || size == 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            }
+            if (start < 0 || start > end || start >= size) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,32 +1,53 @@
 package com.Reddit.reddit_clone.controllers;
 
+import com.Reddit.reddit_clone.model.dtos.PageResDto;
 import com.Reddit.reddit_clone.model.dtos.postDtos.PostReqDto;
 import com.Reddit.reddit_clone.model.dtos.postDtos.PostResDto;
+import com.Reddit.reddit_clone.services.HomeFeedService;
 import com.Reddit.reddit_clone.services.PostServices;
+import com.Reddit.reddit_clone.services.implementations.PostLiveFeed;
+import com.Reddit.reddit_clone.utils.ETags;
 import org.apache.coyote.Response;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
 public class PostController {
     @Autowired
     private PostServices postServices;
+    @Autowired
+    private HomeFeedService homeFeedService;
+    @Autowired
+    private PostLiveFeed postLiveFeed;
     @PostMapping("/create-post")
-    public ResponseEntity<PostResDto> createPost(@RequestPart PostReqDto dto, @RequestPart MultipartFile image) throws IOException {
+    public ResponseEntity<PostResDto> createPost(@RequestPart PostReqDto dto, @RequestPart(required = false) MultipartFile image) throws IOException {
         return ResponseEntity.ok(postServices.createPost(dto, image));
     }
     @GetMapping("/get-community-posts")
-    public ResponseEntity<List<PostResDto>>getCommunityPosts(@RequestParam String communityName){
-        return ResponseEntity.ok(postServices.getPostForCommunity(communityName));
+    public ResponseEntity<PageResDto<PostResDto>>getCommunityPosts(@RequestParam String communityName,
+                                                                    @RequestParam(required = false) String sort,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(required = false) Integer size){
+        PageResDto<PostResDto> page = postServices.getPostForCommunity(communityName, sort, cursor, size);
+        List<Object> parts = new ArrayList<>();
+        page.getItems().forEach(post -> addValidator(parts, post));
+        parts.add(page.getNextCursor());
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(ETags.weak(parts.toArray())).body(page);
     }
     @GetMapping("/get-user-posts")
-    public ResponseEntity<List<PostResDto>>getUserPosts(@RequestParam String email){
-        return ResponseEntity.ok(postServices.getPostForUser(email));
+    public ResponseEntity<PageResDto<PostResDto>>getUserPosts(@RequestParam String email,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer size){
+        return ResponseEntity.ok(postServices.getPostForUser(email, cursor, size));
     }
     @PostMapping("delete-post")
     public ResponseEntity<String> deletePost(Integer postId){
@@ -34,17 +55,52 @@ public class PostController {
     }
 
     @GetMapping("/get-all-posts")
-    public List<PostResDto>getPosts(){
-        return postServices.getPosts();
+    public PageResDto<PostResDto>getPosts(@RequestParam(required = false) String sort,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer size){
+        return postServices.getPosts(sort, cursor, size);
     }
     
+    @PostMapping("/up-vote-post")
+    public void upVote(@RequestParam Integer postId, @RequestParam Integer userId){
+        postServices.upVote(postId, userId);
+    }
+    @PostMapping("/down-vote-post")
+    public void downVote(@RequestParam Integer postId, @RequestParam Integer userId){
+        postServices.downVote(postId, userId);
+    }
+
+    @GetMapping("/home-feed")
+    public ResponseEntity<PageResDto<PostResDto>>getHomeFeed(@RequestParam Integer userId,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer size){
+        return ResponseEntity.ok(homeFeedService.getHomeFeed(userId, cursor, size));
+    }
+
     @GetMapping("/get-post")
     public ResponseEntity<PostResDto> getPost(@RequestParam Integer postId){
         PostResDto post = postServices.getPost(postId);
         if(post != null){
-            return ResponseEntity.ok(post);
+            List<Object> parts = new ArrayList<>();
+            addValidator(parts, post);
+            // With a matching If-None-Match Spring answers 304 and the body is never serialized.
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(ETags.weak(parts.toArray())).body(post);
         }
         return ResponseEntity.notFound().build();
     }
 
+    // New comments and vote changes of the post as they happen, in place of polling /get-post-comments:
+    // "ready", then "batch" events, and "resync" when the client should reload the comments.
+    @GetMapping(value = "/post-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter postEvents(@RequestParam Integer postId){
+        return postLiveFeed.watch(postId);
+    }
+
+    // The version stands in for the post's own columns; votes and the author's name change without it.
+    private static void addValidator(List<Object> parts, PostResDto post) {
+        parts.add(post.getPostId());
+        parts.add(post.getVersion());
+        parts.add(post.getVotes());
+        parts.add(post.getUsername());
+    }
 }
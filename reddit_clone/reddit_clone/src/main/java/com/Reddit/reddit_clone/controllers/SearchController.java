@@ -0,0 +1,24 @@
+package com.Reddit.reddit_clone.controllers;
+
+import com.Reddit.reddit_clone.model.dtos.PageResDto;
+import com.Reddit.reddit_clone.model.dtos.SearchDtos.SearchHitDto;
+import com.Reddit.reddit_clone.services.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class SearchController {
+    @Autowired
+    private SearchService searchService;
+
+    @GetMapping("/search")
+    public ResponseEntity<PageResDto<SearchHitDto>>search(@RequestParam String q,
+                                                          @RequestParam(required = false) String communityName,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer size){
+        return ResponseEntity.ok(searchService.search(q, communityName, cursor, size));
+    }
+}
@@ -18,7 +18,7 @@ public class UserController {
     
     @PostMapping("/create-account")
     public ResponseEntity<UserResDto>createAccount(
-            @RequestPart UserReqDto dto, @RequestPart MultipartFile image) throws IOException {
+            @RequestPart UserReqDto dto, @RequestPart(required = false) MultipartFile image) throws IOException {
         return ResponseEntity.ok(userServices.createAccount(dto, image));
     }
     
@@ -28,7 +28,7 @@ public class UserController {
     }
     
     @PostMapping("/update-profile")
-    public ResponseEntity<UserResDto>updateUser(@RequestPart UserUpdateDto dto, @RequestPart MultipartFile image) throws IOException {
+    public ResponseEntity<UserResDto>updateUser(@RequestPart UserUpdateDto dto, @RequestPart(required = false) MultipartFile image) throws IOException {
         return ResponseEntity.ok(userServices.updateProfile(dto, image));
     }
     
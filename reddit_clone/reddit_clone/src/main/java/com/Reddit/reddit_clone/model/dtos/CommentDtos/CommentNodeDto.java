@@ -0,0 +1,18 @@
+package com.Reddit.reddit_clone.model.dtos.CommentDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommentNodeDto {
+    private CommentResDto comment;
+    private List<CommentNodeDto> replies = new ArrayList<>();
+    // Set when this comment has replies that were cut by the depth or breadth limit.
+    private String moreReplies;
+}
@@ -0,0 +1,5 @@
+package com.Reddit.reddit_clone.model.dtos.CommentDtos;
+
+// Where an existing comment sits, so replies can be placed under it without loading the entity.
+public record CommentParentRow(Integer commentId, Integer postId, String path, int depth) {
+}
@@ -11,5 +11,6 @@ import lombok.NoArgsConstructor;
 public class CommentReqDto {
     private String content;
     private Integer postId;
+    private Integer parentId;
 
 }
@@ -0,0 +1,8 @@
+package com.Reddit.reddit_clone.model.dtos.CommentDtos;
+
+import java.time.LocalDateTime;
+
+// What the search index keeps about a comment, read when the index is rebuilt.
+public record CommentSearchRow(Integer commentId, Integer postId, String content, String communityName,
+                               LocalDateTime createAt) {
+}
@@ -0,0 +1,15 @@
+package com.Reddit.reddit_clone.model.dtos.CommentDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommentThreadPageDto {
+    private List<CommentNodeDto> threads;
+    private String nextCursor;
+}
@@ -0,0 +1,10 @@
+package com.Reddit.reddit_clone.model.dtos.CommentDtos;
+
+import java.time.LocalDateTime;
+
+/**
+ * One comment of a thread range scan, with the path needed to place it in the tree.
+ */
+public record CommentThreadRow(Integer commentId, String content, Integer postId, Integer userId, String username,
+                               LocalDateTime createAt, boolean isEdited, int votes, String path, int depth) {
+}
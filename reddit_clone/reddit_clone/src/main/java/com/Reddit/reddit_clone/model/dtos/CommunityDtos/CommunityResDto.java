@@ -18,5 +18,6 @@ public class CommunityResDto {
     private LocalDateTime createAt;
     private String createdByName;
     private String createdByEmail;
+    private int memberCount;
 
 }
@@ -0,0 +1,13 @@
+package com.Reddit.reddit_clone.model.dtos.CommunityDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommunitySuggestionDto {
+    private String communityName;
+    private int memberCount;
+}
@@ -0,0 +1,27 @@
+package com.Reddit.reddit_clone.model.dtos.ImportDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A reply names its parent either by parentId (a comment already in the
+ * database) or by parentRef, the ref of a comment earlier in the same import.
+ * Refs are only remembered while the rows stay on one post, so the rows of a
+ * post that uses them have to come one after another.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommentImportDto {
+    private String content;
+    private Integer postId;
+    private Integer userId;
+    private Integer parentId;
+    private String ref;
+    private String parentRef;
+    // Optional; defaults to the time of the import.
+    private LocalDateTime createAt;
+}
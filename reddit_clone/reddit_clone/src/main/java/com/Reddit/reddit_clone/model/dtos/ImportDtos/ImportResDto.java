@@ -0,0 +1,14 @@
+package com.Reddit.reddit_clone.model.dtos.ImportDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportResDto {
+    private long imported;
+    // Rows that were already there (memberships only).
+    private long skipped;
+}
@@ -0,0 +1,13 @@
+package com.Reddit.reddit_clone.model.dtos.ImportDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MembershipImportDto {
+    private Integer userId;
+    private String communityName;
+}
@@ -0,0 +1,19 @@
+package com.Reddit.reddit_clone.model.dtos.ImportDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostImportDto {
+    private String title;
+    private String content;
+    private Integer userId;
+    private String communityName;
+    // Optional; defaults to the time of the import.
+    private LocalDateTime createAt;
+}
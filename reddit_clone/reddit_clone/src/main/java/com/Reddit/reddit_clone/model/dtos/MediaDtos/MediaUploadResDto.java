@@ -0,0 +1,17 @@
+package com.Reddit.reddit_clone.model.dtos.MediaDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+
+public class MediaUploadResDto {
+    // Pass this as imageKey to /create-post, /create-account or /update-profile.
+    private String imageKey;
+    private String imageUrl;
+}
@@ -0,0 +1,16 @@
+package com.Reddit.reddit_clone.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageResDto<T> {
+    private List<T> items;
+    // null when there is nothing more to load
+    private String nextCursor;
+}
@@ -0,0 +1,22 @@
+package com.Reddit.reddit_clone.model.dtos.SearchDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchHitDto {
+    // "post" or "comment"; comment hits link to their post
+    private String type;
+    private Integer postId;
+    private Integer commentId;
+    private String communityName;
+    private String title;
+    private String snippet;
+    private LocalDateTime createAt;
+    private float score;
+}
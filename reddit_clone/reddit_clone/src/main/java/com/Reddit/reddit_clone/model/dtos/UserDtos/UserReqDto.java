@@ -15,5 +15,7 @@ public class UserReqDto {
     private String email;
     private String password;
     private String phoneNumber;
+    // An image already sent to POST /media, used when the request has no image part.
+    private String imageKey;
 
 }
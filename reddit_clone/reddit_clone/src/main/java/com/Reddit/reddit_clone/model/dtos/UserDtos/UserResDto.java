@@ -17,7 +17,8 @@ public class UserResDto {
     private String phoneNumber;
     private String imageName;
     private String imageType;
-    private byte [] image;
+    private String imageUrl;
+    private String thumbnailUrl;
     private LocalDateTime createAt;
     private LocalDateTime updateAt;
 
@@ -15,5 +15,7 @@ public class UserUpdateDto {
     private String userName;
     private String password;
     private String phoneNumber;
+    // An image already sent to POST /media; without it (and without an image part) the avatar is kept.
+    private String imageKey;
 
 }
@@ -0,0 +1,21 @@
+package com.Reddit.reddit_clone.model.dtos.postDtos;
+
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentResDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+// Everything that happened to one post since the previous batch; votes are deltas, not totals.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostLiveBatchDto {
+    private Integer postId;
+    private int voteDelta;
+    private List<CommentResDto> newComments;
+    // commentId -> change of that comment's votes
+    private Map<Integer, Integer> commentVoteDeltas;
+}
@@ -0,0 +1,7 @@
+package com.Reddit.reddit_clone.model.dtos.postDtos;
+
+import java.time.LocalDateTime;
+
+// Just the columns the hot index needs, loaded without touching post bodies.
+public record PostRankingRow(Integer postId, String communityName, LocalDateTime createAt, int votes, long commentCount) {
+}
@@ -16,4 +16,6 @@ public class PostReqDto {
     private String title;
     private Integer userId;
     private String communityName;
+    // An image already sent to POST /media, used when the request has no image part.
+    private String imageKey;
 }
@@ -1,6 +1,6 @@
 package com.Reddit.reddit_clone.model.dtos.postDtos;
 
-import jakarta.persistence.Lob;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -26,8 +26,14 @@ public class PostResDto {
     private LocalDateTime createAt;
     private String imageName;
     private String imageType;
-    @Lob
-    private byte [] image;
+    // Full-size, feed-size and thumbnail renditions of the image; see MediaStore.Variant.
+    private String imageUrl;
+    private String feedImageUrl;
+    private String thumbnailUrl;
+    private int votes;
+    // Only for the ETag; see ETags.
+    @JsonIgnore
+    private long version;
 
 
 }
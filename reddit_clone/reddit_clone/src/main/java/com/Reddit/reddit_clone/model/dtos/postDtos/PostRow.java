@@ -0,0 +1,9 @@
+package com.Reddit.reddit_clone.model.dtos.postDtos;
+
+import java.time.LocalDateTime;
+
+// Exactly the columns PostResDto needs, read in one statement instead of walking entity associations.
+public record PostRow(Integer postId, String title, String content, String username, String userEmail,
+                      String communityName, LocalDateTime createAt, String imageName, String imageType,
+                      String imageKey, int votes, long version) {
+}
@@ -0,0 +1,5 @@
+package com.Reddit.reddit_clone.model.dtos.postDtos;
+
+// Just the text of a post, for summarizing in bulk without touching image or user columns.
+public record PostText(Integer postId, String title, String content) {
+}
@@ -5,13 +5,17 @@ import jakarta.validation.constraints.Null;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name="comments")
+@Table(name="comments", indexes = {
+        @Index(name = "ix_comments_thread", columnList = "post_id, path"),
+        @Index(name = "ix_comments_level", columnList = "post_id, depth, path")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -28,10 +32,19 @@ public class Comment {
     private boolean isEdited;
     @Column(nullable = false)
     private int votes =0;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="post_id")
     Post post;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="user_id")
     User user;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name="parent_id")
+    Comment parent;
+    // Materialized path of the thread, see MaterializedPath.
+    @Column(length = 600)
+    private String path;
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int depth = 0;
 }
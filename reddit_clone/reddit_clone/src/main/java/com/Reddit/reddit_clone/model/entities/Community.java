@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.annotations.Where;
@@ -34,7 +35,11 @@ public class Community {
     @UpdateTimestamp
     private LocalDateTime updateAt;
     private LocalDateTime deleteAt;
-    @ManyToOne
+    // Kept in step with community_members by MembershipService, so nobody has to count the join table.
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int memberCount = 0;
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="user_id")
     private User createdBy;
 
@@ -4,13 +4,21 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name="posts")
+@Table(name="posts", indexes = {
+        @Index(name = "ix_posts_feed", columnList = "create_at, post_id"),
+        @Index(name = "ix_posts_community_feed", columnList = "community_id, create_at, post_id"),
+        @Index(name = "ix_posts_user_feed", columnList = "user_id, create_at, post_id"),
+        @Index(name = "ix_posts_top", columnList = "votes, post_id"),
+        @Index(name = "ix_posts_community_top", columnList = "community_id, votes, post_id")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
@@ -23,15 +31,26 @@ public class Post {
     private String title;
     @CreationTimestamp
     private LocalDateTime createAt;
+    @UpdateTimestamp
+    private LocalDateTime updateAt;
+    // Bumped by every entity update; read endpoints build their ETags from it. Votes are written in bulk
+    // and do not move it.
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
     private String imageName;
     private String imageType;
-    @Lob
-    private byte [] image;
+    // Key into the MediaStore; the bytes never live in this row.
+    private String imageKey;
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int votes = 0;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="user_id")
     private User user;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="community_id")
     private Community community;
 
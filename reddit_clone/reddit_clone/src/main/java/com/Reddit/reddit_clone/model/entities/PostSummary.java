@@ -0,0 +1,30 @@
+package com.Reddit.reddit_clone.model.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The last AI summary produced for a post. contentHash covers the post text,
+ * the prompt and the model, so a summary is only reused while all three are
+ * unchanged. post_id is deliberately not a foreign key: deleting a post must
+ * not wait on its summary.
+ */
+@Entity
+@Table(name="post_summaries")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostSummary {
+    @Id
+    private Integer postId;
+    @Column(nullable = false, length = 64)
+    private String contentHash;
+    @Lob
+    @Column(nullable = false)
+    private String summary;
+    private LocalDateTime createAt;
+}
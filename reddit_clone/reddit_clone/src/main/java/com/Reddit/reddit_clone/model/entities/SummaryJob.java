@@ -0,0 +1,34 @@
+package com.Reddit.reddit_clone.model.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A post waiting for its summary to be precomputed. At most one job per post;
+ * a worker owns the row while lockedUntil is in the future, and a failed
+ * attempt pushes runAt back.
+ */
+@Entity
+@Table(name="summary_jobs", indexes = {
+        @Index(name = "ix_summary_jobs_due", columnList = "run_at")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SummaryJob {
+    @Id
+    private Integer postId;
+    @Column(nullable = false)
+    private int attempts;
+    @Column(nullable = false)
+    private LocalDateTime runAt;
+    private LocalDateTime lockedUntil;
+    @Column(nullable = false)
+    private LocalDateTime createAt;
+    @Column(length = 500)
+    private String lastError;
+}
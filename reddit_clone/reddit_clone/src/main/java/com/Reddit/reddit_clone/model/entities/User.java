@@ -45,8 +45,8 @@ public class User {
     private LocalDateTime deleteAt;
     private String imageName;
     private String imageType;
-    @Lob
-    private byte [] image;
+    // Key into the MediaStore; the bytes never live in this row.
+    private String imageKey;
 
     @OneToMany(mappedBy = "createdBy",cascade = CascadeType.ALL)
     private List<Community>communities=new ArrayList<>();
@@ -56,7 +56,8 @@ public class User {
     @JoinTable(
             name = "community_members",
             joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "community_id")
+            inverseJoinColumns = @JoinColumn(name = "community_id"),
+            indexes = @Index(name = "ix_community_members_community", columnList = "community_id")
     )
     private Set<Community> joinedCommunities = new HashSet<>();
 
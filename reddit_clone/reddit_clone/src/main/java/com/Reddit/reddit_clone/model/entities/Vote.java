@@ -0,0 +1,26 @@
+package com.Reddit.reddit_clone.model.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per (user, target): who voted on what and in which direction.
+ * The composite primary key doubles as the dedup index.
+ */
+@Entity
+@Table(name="votes")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Vote {
+    @EmbeddedId
+    private VoteId id;
+    // +1 or -1
+    @Column(name = "vote_value", nullable = false)
+    private byte value;
+    private LocalDateTime createAt;
+}
@@ -0,0 +1,23 @@
+package com.Reddit.reddit_clone.model.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VoteId implements Serializable {
+    private Integer userId;
+    @Enumerated(EnumType.ORDINAL)
+    @Column(columnDefinition = "tinyint")
+    private VoteTarget targetType;
+    private Integer targetId;
+}
@@ -0,0 +1,6 @@
+package com.Reddit.reddit_clone.model.entities;
+
+public enum VoteTarget {
+    POST,
+    COMMENT
+}
@@ -0,0 +1,29 @@
+package com.Reddit.reddit_clone.model.mappers;
+
+import com.Reddit.reddit_clone.services.MediaStore;
+import org.mapstruct.Named;
+import org.springframework.stereotype.Component;
+
+// DTOs link to downscaled variants; the uploaded original stays reachable at /media/{key} without a size.
+@Component
+public class MediaUrlMapper {
+
+    @Named("mediaUrl")
+    public String toUrl(String imageKey) {
+        return toUrl(imageKey, MediaStore.Variant.FULL);
+    }
+
+    @Named("feedImageUrl")
+    public String toFeedUrl(String imageKey) {
+        return toUrl(imageKey, MediaStore.Variant.FEED);
+    }
+
+    @Named("thumbnailUrl")
+    public String toThumbnailUrl(String imageKey) {
+        return toUrl(imageKey, MediaStore.Variant.THUMB);
+    }
+
+    private String toUrl(String imageKey, MediaStore.Variant variant) {
+        return imageKey == null ? null : "/media/" + imageKey + "?size=" + variant.id();
+    }
+}
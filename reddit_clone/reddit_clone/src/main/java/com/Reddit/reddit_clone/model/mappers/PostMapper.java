@@ -2,13 +2,14 @@ package com.Reddit.reddit_clone.model.mappers;
 
 import com.Reddit.reddit_clone.model.dtos.postDtos.PostReqDto;
 import com.Reddit.reddit_clone.model.dtos.postDtos.PostResDto;
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostRow;
 import com.Reddit.reddit_clone.model.entities.Post;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = MediaUrlMapper.class)
 public interface PostMapper {
 
     Post toEntity(PostReqDto post);
@@ -17,7 +18,26 @@ public interface PostMapper {
     @Mapping(source = "user.userName", target = "username")
     @Mapping(source = "user.email", target = "userEmail")
     @Mapping(source = "community.communityName", target = "communityName")
+    @Mapping(source = "imageKey", target = "imageUrl", qualifiedByName = "mediaUrl")
+    @Mapping(source = "imageKey", target = "feedImageUrl", qualifiedByName = "feedImageUrl")
+    @Mapping(source = "imageKey", target = "thumbnailUrl", qualifiedByName = "thumbnailUrl")
     PostResDto toResponse(Post post);
 
+    // For a post whose community is only a reference: the name comes from the caller instead of a lazy load.
+    @Mapping(source = "post.user.userName", target = "username")
+    @Mapping(source = "post.user.email", target = "userEmail")
+    @Mapping(source = "communityName", target = "communityName")
+    @Mapping(source = "post.imageKey", target = "imageUrl", qualifiedByName = "mediaUrl")
+    @Mapping(source = "post.imageKey", target = "feedImageUrl", qualifiedByName = "feedImageUrl")
+    @Mapping(source = "post.imageKey", target = "thumbnailUrl", qualifiedByName = "thumbnailUrl")
+    PostResDto toResponse(Post post, String communityName);
+
     List<PostResDto> toResponses(List<Post> posts);
+
+    @Mapping(source = "imageKey", target = "imageUrl", qualifiedByName = "mediaUrl")
+    @Mapping(source = "imageKey", target = "feedImageUrl", qualifiedByName = "feedImageUrl")
+    @Mapping(source = "imageKey", target = "thumbnailUrl", qualifiedByName = "thumbnailUrl")
+    PostResDto toResponse(PostRow row);
+
+    List<PostResDto> fromRows(List<PostRow> rows);
 }
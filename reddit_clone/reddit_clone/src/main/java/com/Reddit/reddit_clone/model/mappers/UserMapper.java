@@ -4,13 +4,16 @@ import com.Reddit.reddit_clone.model.dtos.UserDtos.UserReqDto;
 import com.Reddit.reddit_clone.model.dtos.UserDtos.UserResDto;
 import com.Reddit.reddit_clone.model.entities.User;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 import java.util.Optional;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = MediaUrlMapper.class)
 public interface UserMapper {
     User toEntity(UserReqDto dto);
     
+    @Mapping(source = "imageKey", target = "imageUrl", qualifiedByName = "mediaUrl")
+    @Mapping(source = "imageKey", target = "thumbnailUrl", qualifiedByName = "thumbnailUrl")
     UserResDto toResponseFromUser(User user);
     
     default UserResDto toResponse(Optional<User> user) {
@@ -0,0 +1,21 @@
+package com.Reddit.reddit_clone.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public enum FeedSort {
+    HOT,
+    TOP,
+    NEW;
+
+    public static FeedSort from(String value) {
+        if (value == null || value.isBlank()) {
+            return NEW;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be one of hot, top, new");
+        }
+    }
+}
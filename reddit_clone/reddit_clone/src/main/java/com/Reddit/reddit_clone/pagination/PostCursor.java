@@ -0,0 +1,44 @@
+package com.Reddit.reddit_clone.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position inside a feed ordered by (createAt desc, postId desc).
+ * The client only ever sees the opaque token produced by {@link #encode()}.
+ */
+public record PostCursor(LocalDateTime createAt, Integer postId) {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 50;
+
+    public String encode() {
+        String raw = createAt + "|" + postId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PostCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf('|');
+            return new PostCursor(LocalDateTime.parse(raw.substring(0, split)),
+                    Integer.valueOf(raw.substring(split + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    public static int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,33 @@
+package com.Reddit.reddit_clone.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position inside a feed ordered by (score desc, postId desc),
+ * where the score is the hot rank or the vote total.
+ */
+public record RankCursor(double score, Integer postId) {
+
+    public String encode() {
+        String raw = score + "|" + postId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RankCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf('|');
+            return new RankCursor(Double.parseDouble(raw.substring(0, split)),
+                    Integer.valueOf(raw.substring(split + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
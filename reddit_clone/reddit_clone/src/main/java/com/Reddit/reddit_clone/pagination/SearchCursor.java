@@ -0,0 +1,33 @@
+package com.Reddit.reddit_clone.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position inside search results ordered by (BM25 score desc, document key desc).
+ * Scores shift slightly when the index refreshes, so a page boundary is only as
+ * stable as the collection statistics behind it.
+ */
+public record SearchCursor(float score, long key) {
+
+    public String encode() {
+        String raw = score + "|" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf('|');
+            return new SearchCursor(Float.parseFloat(raw.substring(0, split)), Long.parseLong(raw.substring(split + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.Reddit.reddit_clone.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * "Load more" position inside a comment thread: the children of
+ * {@code parentPath} (empty for the root level) that come after the subtree of
+ * {@code afterPath} (empty to start at the first child).
+ */
+public record ThreadCursor(String parentPath, String afterPath) {
+
+    public static final int DEFAULT_ROOTS = 10;
+    public static final int MAX_ROOTS = 50;
+    public static final int DEFAULT_DEPTH = 3;
+    public static final int MAX_DEPTH = 10;
+    public static final int DEFAULT_BREADTH = 5;
+    public static final int MAX_BREADTH = 50;
+
+    public String encode() {
+        String raw = parentPath + "|" + afterPath;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ThreadCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.indexOf('|');
+            ThreadCursor cursor = new ThreadCursor(raw.substring(0, split), raw.substring(split + 1));
+            if (!cursor.afterPath().isEmpty() && !cursor.afterPath().startsWith(cursor.parentPath())) {
+                throw new IllegalArgumentException();
+            }
+            return cursor;
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    public static int limit(Integer requested, int defaultValue, int max) {
+        if (requested == null || requested <= 0) {
+            return defaultValue;
+        }
+        return Math.min(requested, max);
+    }
+}
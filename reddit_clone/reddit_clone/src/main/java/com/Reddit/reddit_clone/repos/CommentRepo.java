@@ -1,14 +1,67 @@
 package com.Reddit.reddit_clone.repos;
 
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentParentRow;
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentResDto;
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentSearchRow;
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentThreadRow;
 import com.Reddit.reddit_clone.model.entities.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CommentRepo extends JpaRepository<Comment, Integer> {
+    String THREAD_ROW = "select new com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentThreadRow(c.commentId, c.content, " +
+            "c.post.postId, u.userId, u.userName, c.createAt, c.isEdited, c.votes, c.path, c.depth) " +
+            "from Comment c left join c.user u ";
 
     Optional<List<Comment>> findByPost_PostId(Integer postId);
+
+    @Query("select new com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentResDto(c.commentId, c.content, c.post.postId, " +
+            "u.userId, u.userName, c.createAt, c.isEdited, c.votes) " +
+            "from Comment c left join c.user u where c.post.postId = :postId order by c.createAt, c.commentId")
+    List<CommentResDto> findResponsesByPostId(@Param("postId") Integer postId);
+
+    // One level of a thread: the children of a path (or the roots), seeking on ix_comments_level.
+    @Query(THREAD_ROW + "where c.post.postId = :postId and c.depth = :depth and c.path > :from and c.path < :to " +
+            "order by c.path")
+    List<CommentThreadRow> findThreadLevel(@Param("postId") Integer postId, @Param("depth") int depth,
+                                           @Param("from") String from, @Param("to") String to, Pageable pageable);
+
+    // One range scan over ix_comments_thread: the descendants below minDepth whose path lies in (from, to), depth first.
+    @Query(THREAD_ROW + "where c.post.postId = :postId and c.path > :from and c.path < :to " +
+            "and c.depth > :minDepth and c.depth <= :maxDepth order by c.path")
+    List<CommentThreadRow> findThreadRange(@Param("postId") Integer postId, @Param("from") String from,
+                                           @Param("to") String to, @Param("minDepth") int minDepth,
+                                           @Param("maxDepth") int maxDepth, Pageable pageable);
+
+    List<Comment> findByPathIsNull(Pageable pageable);
+
+    @Query("select new com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentSearchRow(c.commentId, p.postId, c.content, " +
+            "m.communityName, c.createAt) from Comment c join c.post p left join p.community m " +
+            "where c.commentId > :afterId order by c.commentId")
+    List<CommentSearchRow> findSearchRowsAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("select coalesce(max(c.commentId), 0) from Comment c")
+    Integer findMaxCommentId();
+
+    @Transactional
+    @Modifying
+    @Query("update Comment c set c.votes = c.votes + :delta where c.commentId = :commentId")
+    int addVotes(@Param("commentId") Integer commentId, @Param("delta") int delta);
+
+    @Query("select new com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentParentRow(c.commentId, c.post.postId, c.path, c.depth) " +
+            "from Comment c where c.commentId in :commentIds")
+    List<CommentParentRow> findParentRows(@Param("commentIds") Collection<Integer> commentIds);
+
+    @Query("select c.post.postId from Comment c where c.commentId = :commentId")
+    Optional<Integer> findPostIdById(@Param("commentId") Integer commentId);
 }
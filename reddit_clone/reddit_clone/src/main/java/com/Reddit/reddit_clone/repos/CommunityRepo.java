@@ -1,10 +1,56 @@
 package com.Reddit.reddit_clone.repos;
 
+import com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunitySuggestionDto;
 import com.Reddit.reddit_clone.model.entities.Community;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface CommunityRepo extends JpaRepository<Community, Integer> {
+    // createdBy is lazy; the details/list responses need its name and email, so fetch it in the same statement.
+    @EntityGraph(attributePaths = "createdBy")
     Optional<Community>findByCommunityName(String communityName);
+
+    @Override
+    @EntityGraph(attributePaths = "createdBy")
+    List<Community> findAll();
+
+    @Query("select c.communityId from User u join u.joinedCommunities c where u.userId = :userId")
+    List<Integer> findJoinedCommunityIds(@Param("userId") Integer userId);
+
+    @Query("select new com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunitySuggestionDto(c.communityName, c.memberCount) " +
+            "from Community c")
+    List<CommunitySuggestionDto> findSuggestions();
+
+    @Query("select c.memberCount from Community c where c.communityId = :communityId")
+    Optional<Integer> findMemberCount(@Param("communityId") Integer communityId);
+
+    // Existence check and insert in one statement; the (user_id, community_id) primary key serves both.
+    @Transactional
+    @Modifying
+    @Query(value = "insert into community_members (user_id, community_id) select :userId, :communityId " +
+            "where not exists (select 1 from community_members where user_id = :userId and community_id = :communityId)",
+            nativeQuery = true)
+    int insertMember(@Param("userId") Integer userId, @Param("communityId") Integer communityId);
+
+    @Query(value = "select count(*) from community_members where user_id = :userId and community_id = :communityId",
+            nativeQuery = true)
+    int countMembership(@Param("userId") Integer userId, @Param("communityId") Integer communityId);
+
+    @Transactional
+    @Modifying
+    @Query("update Community c set c.memberCount = c.memberCount + :delta where c.communityId = :communityId")
+    int addMembers(@Param("communityId") Integer communityId, @Param("delta") int delta);
+
+    @Transactional
+    @Modifying
+    @Query("update Community c set c.deleteAt = :deleteAt where c.communityId = :communityId")
+    int softDelete(@Param("communityId") Integer communityId, @Param("deleteAt") LocalDateTime deleteAt);
 }
@@ -1,12 +1,117 @@
 package com.Reddit.reddit_clone.repos;
 
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostRankingRow;
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostRow;
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostText;
 import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.pagination.PostCursor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 @Repository
 public interface PostRepo extends JpaRepository<Post, Integer> {
+    // Projection shared by every read that ends in a PostResDto.
+    String ROW = "select new com.Reddit.reddit_clone.model.dtos.postDtos.PostRow(p.postId, p.title, p.content, " +
+            "u.userName, u.email, c.communityName, p.createAt, p.imageName, p.imageType, p.imageKey, p.votes, p.version) " +
+            "from Post p left join p.user u left join p.community c ";
+
     List<Post> findByUser_Email(String  email);
+
+    @Transactional
+    @Modifying
+    @Query("update Post p set p.votes = p.votes + :delta where p.postId = :postId")
+    int addVotes(@Param("postId") Integer postId, @Param("delta") int delta);
+
     List<Post>findByCommunity_CommunityName(String communityName);
+
+    @Query(ROW + "where p.postId = :postId")
+    Optional<PostRow> findRowById(@Param("postId") Integer postId);
+
+    @Query(ROW + "where p.postId in :postIds")
+    List<PostRow> findRowsByIds(@Param("postIds") Collection<Integer> postIds);
+
+    @Query(ROW + "where p.postId > :afterId order by p.postId")
+    List<PostRow> findRowsAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("select coalesce(max(p.postId), 0) from Post p")
+    Integer findMaxPostId();
+
+    // Keyset pages ordered by (createAt desc, postId desc); the "after" variants seek past the cursor.
+    @Query(ROW + "order by p.createAt desc, p.postId desc")
+    List<PostRow> findFeedPage(Pageable pageable);
+
+    @Query(ROW + "where p.createAt < :createAt or (p.createAt = :createAt and p.postId < :postId) " +
+            "order by p.createAt desc, p.postId desc")
+    List<PostRow> findFeedPageAfter(@Param("createAt") LocalDateTime createAt, @Param("postId") Integer postId, Pageable pageable);
+
+    @Query(ROW + "where c.communityName = :communityName order by p.createAt desc, p.postId desc")
+    List<PostRow> findCommunityPage(@Param("communityName") String communityName, Pageable pageable);
+
+    @Query(ROW + "where c.communityName = :communityName " +
+            "and (p.createAt < :createAt or (p.createAt = :createAt and p.postId < :postId)) " +
+            "order by p.createAt desc, p.postId desc")
+    List<PostRow> findCommunityPageAfter(@Param("communityName") String communityName, @Param("createAt") LocalDateTime createAt,
+                                         @Param("postId") Integer postId, Pageable pageable);
+
+    @Query(ROW + "where u.email = :email order by p.createAt desc, p.postId desc")
+    List<PostRow> findUserPage(@Param("email") String email, Pageable pageable);
+
+    @Query(ROW + "where u.email = :email " +
+            "and (p.createAt < :createAt or (p.createAt = :createAt and p.postId < :postId)) " +
+            "order by p.createAt desc, p.postId desc")
+    List<PostRow> findUserPageAfter(@Param("email") String email, @Param("createAt") LocalDateTime createAt,
+                                    @Param("postId") Integer postId, Pageable pageable);
+
+    // "top" pages ordered by (votes desc, postId desc).
+    @Query(ROW + "order by p.votes desc, p.postId desc")
+    List<PostRow> findTopPage(Pageable pageable);
+
+    @Query(ROW + "where p.votes < :votes or (p.votes = :votes and p.postId < :postId) " +
+            "order by p.votes desc, p.postId desc")
+    List<PostRow> findTopPageAfter(@Param("votes") int votes, @Param("postId") Integer postId, Pageable pageable);
+
+    @Query(ROW + "where c.communityName = :communityName order by p.votes desc, p.postId desc")
+    List<PostRow> findCommunityTopPage(@Param("communityName") String communityName, Pageable pageable);
+
+    @Query(ROW + "where c.communityName = :communityName " +
+            "and (p.votes < :votes or (p.votes = :votes and p.postId < :postId)) " +
+            "order by p.votes desc, p.postId desc")
+    List<PostRow> findCommunityTopPageAfter(@Param("communityName") String communityName, @Param("votes") int votes,
+                                            @Param("postId") Integer postId, Pageable pageable);
+
+    @Query("select new com.Reddit.reddit_clone.pagination.PostCursor(p.createAt, p.postId) from Post p " +
+            "where p.community.communityId in :communityIds order by p.createAt desc, p.postId desc")
+    List<PostCursor> findKeysInCommunities(@Param("communityIds") Collection<Integer> communityIds, Pageable pageable);
+
+    @Query("select new com.Reddit.reddit_clone.pagination.PostCursor(p.createAt, p.postId) from Post p " +
+            "where p.community.communityId in :communityIds " +
+            "and (p.createAt < :createAt or (p.createAt = :createAt and p.postId < :postId)) " +
+            "order by p.createAt desc, p.postId desc")
+    List<PostCursor> findKeysInCommunitiesAfter(@Param("communityIds") Collection<Integer> communityIds,
+                                                @Param("createAt") LocalDateTime createAt,
+                                                @Param("postId") Integer postId, Pageable pageable);
+
+    @Query("select new com.Reddit.reddit_clone.model.dtos.postDtos.PostRankingRow(p.postId, c.communityName, p.createAt, p.votes, count(cm)) " +
+            "from Post p join p.community c left join p.comments cm where p.createAt > :since " +
+            "group by p.postId, c.communityName, p.createAt, p.votes")
+    List<PostRankingRow> findRankingRowsSince(@Param("since") LocalDateTime since);
+
+    @Query("select new com.Reddit.reddit_clone.model.dtos.postDtos.PostText(p.postId, p.title, p.content) from Post p " +
+            "where p.postId > :afterId and p.content <> '' order by p.postId")
+    List<PostText> findTextAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("select new com.Reddit.reddit_clone.model.dtos.postDtos.PostText(p.postId, p.title, p.content) " +
+            "from Post p join p.community c " +
+            "where c.communityName = :communityName and p.postId > :afterId and p.content <> '' order by p.postId")
+    List<PostText> findCommunityTextAfter(@Param("communityName") String communityName, @Param("afterId") Integer afterId,
+                                          Pageable pageable);
 }
@@ -0,0 +1,19 @@
+package com.Reddit.reddit_clone.repos;
+
+import com.Reddit.reddit_clone.model.entities.PostSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface PostSummaryRepo extends JpaRepository<PostSummary, Integer> {
+
+    // Bulk delete: deleteById would SELECT the row first and throw when there is none.
+    @Transactional
+    @Modifying
+    @Query("delete from PostSummary s where s.postId = :postId")
+    int deleteByPostId(@Param("postId") Integer postId);
+}
@@ -0,0 +1,51 @@
+package com.Reddit.reddit_clone.repos;
+
+import com.Reddit.reddit_clone.model.entities.SummaryJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SummaryJobRepo extends JpaRepository<SummaryJob, Integer> {
+
+    // A post that is already queued keeps its place; the post_id primary key serves the check.
+    @Transactional
+    @Modifying
+    @Query(value = "insert into summary_jobs (post_id, attempts, run_at, create_at) select :postId, 0, :now, :now " +
+            "where not exists (select 1 from summary_jobs where post_id = :postId)", nativeQuery = true)
+    int enqueue(@Param("postId") Integer postId, @Param("now") LocalDateTime now);
+
+    @Query("select j from SummaryJob j where j.runAt <= :now and (j.lockedUntil is null or j.lockedUntil < :now) " +
+            "order by j.runAt")
+    List<SummaryJob> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Conditional update as the lock: whichever worker changes the row owns the job until :until.
+    @Transactional
+    @Modifying
+    @Query("update SummaryJob j set j.lockedUntil = :until, j.attempts = j.attempts + 1 " +
+            "where j.postId = :postId and j.runAt <= :now and (j.lockedUntil is null or j.lockedUntil < :now)")
+    int claim(@Param("postId") Integer postId, @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Transactional
+    @Modifying
+    @Query("update SummaryJob j set j.runAt = :runAt, j.lockedUntil = null, j.lastError = :error where j.postId = :postId")
+    int reschedule(@Param("postId") Integer postId, @Param("runAt") LocalDateTime runAt, @Param("error") String error);
+
+    // Hands back the attempt the claim took, for a job that never got to run.
+    @Transactional
+    @Modifying
+    @Query("update SummaryJob j set j.runAt = :runAt, j.lockedUntil = null, j.attempts = j.attempts - 1 where j.postId = :postId")
+    int defer(@Param("postId") Integer postId, @Param("runAt") LocalDateTime runAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SummaryJob j where j.postId = :postId")
+    int deleteByPostId(@Param("postId") Integer postId);
+}
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +13,10 @@ public interface UserRepo extends JpaRepository<User, Integer> {
     Optional<User> findByEmail(String email);
     Optional<User>findByPhoneNumber(String phoneNumber);
     Optional<User>findByEmailAndPassword(String userEmail, String password);
+
+    @Query("select u.userId from User u where u.email = :email")
+    Optional<Integer> findIdByEmail(@Param("email") String email);
+
+    @Query("select u.userId from User u join u.joinedCommunities c where c.communityId = :communityId")
+    List<Integer> findMemberIds(@Param("communityId") Integer communityId);
 }
@@ -0,0 +1,35 @@
+package com.Reddit.reddit_clone.repos;
+
+import com.Reddit.reddit_clone.model.entities.Vote;
+import com.Reddit.reddit_clone.model.entities.VoteId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface VoteRepo extends JpaRepository<Vote, VoteId> {
+
+    // Plain insert: save() would merge and SELECT the composite key first.
+    @Transactional
+    @Modifying
+    @Query(value = "insert into votes (user_id, target_type, target_id, vote_value, create_at) " +
+            "values (:userId, :targetType, :targetId, :value, CURRENT_TIMESTAMP)", nativeQuery = true)
+    int insertVote(@Param("userId") Integer userId, @Param("targetType") int targetType,
+                   @Param("targetId") Integer targetId, @Param("value") byte value);
+
+    @Query(value = "select case when exists (select 1 from users where user_id = :userId) " +
+            "and exists (select 1 from posts where post_id = :postId) then 1 else 0 end", nativeQuery = true)
+    int userAndPostExist(@Param("userId") Integer userId, @Param("postId") Integer postId);
+
+    @Query(value = "select case when exists (select 1 from users where user_id = :userId) " +
+            "and exists (select 1 from comments where comment_id = :commentId) then 1 else 0 end", nativeQuery = true)
+    int userAndCommentExist(@Param("userId") Integer userId, @Param("commentId") Integer commentId);
+
+    @Transactional
+    @Modifying
+    @Query("update Vote v set v.value = :value where v.id = :id and v.value = :previous")
+    int changeVote(@Param("id") VoteId id, @Param("previous") byte previous, @Param("value") byte value);
+}
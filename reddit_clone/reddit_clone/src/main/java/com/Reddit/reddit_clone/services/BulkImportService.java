@@ -0,0 +1,14 @@
+package com.Reddit.reddit_clone.services;
+
+import com.Reddit.reddit_clone.model.dtos.ImportDtos.ImportResDto;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Service
+public interface BulkImportService {
+    ImportResDto importPosts(InputStream rows) throws IOException;
+    ImportResDto importComments(InputStream rows) throws IOException;
+    ImportResDto importMemberships(InputStream rows) throws IOException;
+}
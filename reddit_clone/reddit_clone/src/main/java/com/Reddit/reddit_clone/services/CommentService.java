@@ -2,6 +2,7 @@ package com.Reddit.reddit_clone.services;
 
 import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentReqDto;
 import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentResDto;
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentThreadPageDto;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -11,7 +12,8 @@ public interface CommentService {
     CommentResDto addComment(CommentReqDto dto, Integer userId);
     CommentResDto updateComment(CommentReqDto dto);
     List<CommentResDto>getPostComments(Integer postId);
-    void upVote(Integer commentId);
-    void downVote(Integer commentId);
+    CommentThreadPageDto getCommentThreads(Integer postId, String cursor, Integer limit, Integer depth, Integer breadth);
+    void upVote(Integer commentId, Integer userId);
+    void downVote(Integer commentId, Integer userId);
 
 }
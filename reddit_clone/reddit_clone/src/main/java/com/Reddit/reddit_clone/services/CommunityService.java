@@ -2,6 +2,7 @@ package com.Reddit.reddit_clone.services;
 
 import com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunityReqDto;
 import com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunityResDto;
+import com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunitySuggestionDto;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -14,4 +15,5 @@ public interface CommunityService {
     String deleteCommunity(String userEmail, String communityName);
     CommunityResDto getCommunityDetails(String communityName);
     List<CommunityResDto>getAllCommunities();
+    List<CommunitySuggestionDto>suggestCommunities(String prefix, Integer limit);
 }
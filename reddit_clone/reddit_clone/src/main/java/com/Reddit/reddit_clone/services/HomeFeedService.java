@@ -0,0 +1,13 @@
+package com.Reddit.reddit_clone.services;
+
+import com.Reddit.reddit_clone.model.dtos.PageResDto;
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostResDto;
+import com.Reddit.reddit_clone.model.entities.Post;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface HomeFeedService {
+    PageResDto<PostResDto> getHomeFeed(Integer userId, String cursor, Integer size);
+    void onPostCreated(Post post);
+    void onMembershipChanged(Integer userId, Integer communityId);
+}
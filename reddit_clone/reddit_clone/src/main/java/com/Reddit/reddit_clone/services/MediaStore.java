@@ -0,0 +1,77 @@
+package com.Reddit.reddit_clone.services;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Binary storage for post images and avatars. Objects are content addressed:
+ * the key is the SHA-256 of the bytes, so a key never points at different content.
+ * Downscaled variants of an image are kept under the key of their original.
+ */
+public interface MediaStore {
+
+    /** Streams the upload into the store and returns its key, or null when there is nothing to store. */
+    String store(MultipartFile file) throws IOException;
+
+    /**
+     * Copies the stream into the store through a fixed-size buffer, hashing it on the way, and
+     * returns its key. The stream is read to the end but not closed.
+     */
+    String store(InputStream in, String contentType) throws IOException;
+
+    /** Stores (or replaces) one variant of the object under key. */
+    void storeVariant(String key, Variant variant, byte[] bytes, String contentType) throws IOException;
+
+    Optional<StoredMedia> find(String key);
+
+    /** The stored variant of key, or empty when it has not been generated (yet). */
+    Optional<StoredMedia> find(String key, Variant variant);
+
+    /** Opens the object for reading; callers are responsible for closing the channel. */
+    SeekableByteChannel open(String key) throws IOException;
+
+    /** Opens a variant, or the original when variant is null. */
+    SeekableByteChannel open(String key, Variant variant) throws IOException;
+
+    /** Deletes the object and all of its variants. */
+    void delete(String key) throws IOException;
+
+    record StoredMedia(String key, String contentType, long size) {
+    }
+
+    /** Image sizes served to clients, by the longest edge in pixels. */
+    enum Variant {
+        THUMB(160),
+        FEED(640),
+        FULL(1600);
+
+        private final int maxEdge;
+
+        Variant(int maxEdge) {
+            this.maxEdge = maxEdge;
+        }
+
+        public int maxEdge() {
+            return maxEdge;
+        }
+
+        /** The name used in URLs and file names. */
+        public String id() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Optional<Variant> from(String id) {
+            for (Variant variant : values()) {
+                if (variant.id().equalsIgnoreCase(id)) {
+                    return Optional.of(variant);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+}
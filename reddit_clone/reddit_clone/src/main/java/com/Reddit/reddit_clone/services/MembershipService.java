@@ -0,0 +1,9 @@
+package com.Reddit.reddit_clone.services;
+
+import org.springframework.stereotype.Service;
+
+@Service
+public interface MembershipService {
+    boolean join(Integer userId, Integer communityId);
+    boolean isMember(Integer userId, Integer communityId);
+}
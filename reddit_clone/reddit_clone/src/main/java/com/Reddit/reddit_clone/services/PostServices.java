@@ -1,20 +1,22 @@
 package com.Reddit.reddit_clone.services;
 
+import com.Reddit.reddit_clone.model.dtos.PageResDto;
 import com.Reddit.reddit_clone.model.dtos.postDtos.PostReqDto;
 import com.Reddit.reddit_clone.model.dtos.postDtos.PostResDto;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.List;
 
 @Service
 public interface PostServices {
 
     PostResDto createPost(PostReqDto dto, MultipartFile image) throws IOException;
     PostResDto getPost(Integer postId);
-    List<PostResDto>getPostForCommunity(String communityName);
-    List<PostResDto>getPostForUser(String email);
+    PageResDto<PostResDto>getPostForCommunity(String communityName, String sort, String cursor, Integer size);
+    PageResDto<PostResDto>getPostForUser(String email, String cursor, Integer size);
     String deletePost(Integer postId);
-    List<PostResDto>getPosts();
+    PageResDto<PostResDto>getPosts(String sort, String cursor, Integer size);
+    void upVote(Integer postId, Integer userId);
+    void downVote(Integer postId, Integer userId);
 }
@@ -0,0 +1,18 @@
+package com.Reddit.reddit_clone.services;
+
+import com.Reddit.reddit_clone.model.dtos.PageResDto;
+import com.Reddit.reddit_clone.model.dtos.SearchDtos.SearchHitDto;
+import com.Reddit.reddit_clone.model.entities.Comment;
+import com.Reddit.reddit_clone.model.entities.Post;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface SearchService {
+    PageResDto<SearchHitDto> search(String query, String communityName, String cursor, Integer size);
+    void onPostCreated(Post post, String communityName);
+    void onPostDeleted(Integer postId);
+    void onCommentCreated(Comment comment, String communityName);
+    // For rows written without going through the create paths; each returns the highest id indexed, or afterId.
+    Integer indexPostsAfter(Integer afterId);
+    Integer indexCommentsAfter(Integer afterId);
+}
@@ -0,0 +1,292 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostText;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Summarizes every post (or every post of one community) without ever holding
+ * more than one page of posts and one chunk of prompt in memory.
+ * <p>
+ * Map: posts are read a page at a time through a text-only projection and
+ * packed into chunks of at most summaries.digest.chunk-tokens; each chunk is
+ * summarized as soon as it is full, with at most summaries.digest.parallelism
+ * calls running for one digest. Reduce: the partial summaries are packed into
+ * groups under the same budget and summarized again, level by level, until
+ * one summary is left.
+ * <p>
+ * Progress is streamed to the caller as "progress" events, then a final
+ * "summary" or "error" event. Finished calls are handled on a pool of their
+ * own, never on the WebClient event loop that completes them, since a send
+ * blocks on the caller's connection.
+ */
+@Component
+public class AllPostsSummarizer {
+
+    static final String MAP_PROMPT = "Summarize the following posts from a Reddit clone platform " +
+            "in a concise and clear way:\n\n%s";
+    static final String REDUCE_PROMPT = "The following are summaries of consecutive batches of posts from a " +
+            "Reddit clone platform. Combine them into one concise and clear summary:\n\n%s";
+    // Rough English average; good enough to keep prompts well under the model's context window.
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MS = 500;
+
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private GeminiService geminiService;
+    @Value("${summaries.digest.chunk-tokens:6000}")
+    private int chunkTokens;
+    @Value("${summaries.digest.parallelism:4}")
+    private int parallelism;
+    @Value("${summaries.digest.timeout-ms:600000}")
+    private long timeoutMs;
+
+    private final int maxRuns;
+    private final ThreadPoolExecutor runs;
+    private ThreadPoolExecutor callbacks;
+
+    public AllPostsSummarizer(@Value("${summaries.digest.max-runs:2}") int maxRuns) {
+        this.maxRuns = maxRuns;
+        // A few digests may wait for a free runner; beyond that callers get 503 instead of an ever-growing queue.
+        this.runs = new ThreadPoolExecutor(maxRuns, maxRuns, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxRuns * 4));
+    }
+
+    @PostConstruct
+    void init() {
+        // Each running digest has at most `parallelism` calls out, and each finished call queues at most two
+        // callbacks (its retry check, then its progress), so the queue can never overflow.
+        callbacks = new ThreadPoolExecutor(maxRuns, maxRuns, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxRuns * parallelism * 2));
+    }
+
+    /** Starts a digest in the background; communityName null means every post. */
+    public SseEmitter start(String communityName) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        try {
+            runs.execute(() -> run(communityName, emitter));
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many summaries in progress, try again shortly");
+        }
+        return emitter;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runs.shutdownNow();
+        callbacks.shutdownNow();
+    }
+
+    private void run(String communityName, SseEmitter emitter) {
+        Run run = new Run(emitter);
+        emitter.onCompletion(() -> run.cancelled = true);
+        emitter.onTimeout(() -> run.cancelled = true);
+        emitter.onError(e -> run.cancelled = true);
+        try {
+            Map<String, Object> result = new HashMap<>();
+            List<String> partials = map(communityName, run, result);
+            if (partials.isEmpty()) {
+                result.put("message", communityName == null
+                        ? "No posts found in the system."
+                        : "No posts found in this community.");
+            } else {
+                result.put("summary", reduce(partials, run));
+                result.put("message", "Successfully summarized all posts");
+            }
+            run.send("summary", result);
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            String message = cause instanceof ResponseStatusException status ? status.getReason() : cause.getMessage();
+            run.send("error", Map.of("error", "Error: " + message));
+        }
+        emitter.complete();
+    }
+
+    private List<String> map(String communityName, Run run, Map<String, Object> result) {
+        Stage stage = new Stage(run, "map");
+        int chunkChars = chunkTokens * CHARS_PER_TOKEN;
+        StringBuilder chunk = new StringBuilder();
+        int totalPosts = 0;
+        int afterId = 0;
+        List<PostText> page;
+        do {
+            page = communityName == null
+                    ? postRepo.findTextAfter(afterId, PageRequest.of(0, PAGE_SIZE))
+                    : postRepo.findCommunityTextAfter(communityName, afterId, PageRequest.of(0, PAGE_SIZE));
+            for (PostText post : page) {
+                afterId = post.postId();
+                if (post.content() == null || post.content().isBlank()) {
+                    continue;
+                }
+                totalPosts++;
+                String text = "Post " + totalPosts + ": " + post.title() + "\nContent: " + post.content() + "\n\n";
+                if (text.length() > chunkChars) {
+                    text = text.substring(0, chunkChars);
+                }
+                if (chunk.length() + text.length() > chunkChars) {
+                    stage.submit(MAP_PROMPT, chunk.toString());
+                    chunk.setLength(0);
+                }
+                chunk.append(text);
+            }
+        } while (page.size() == PAGE_SIZE);
+        if (!chunk.isEmpty()) {
+            stage.submit(MAP_PROMPT, chunk.toString());
+        }
+        result.put("totalPosts", totalPosts);
+        return stage.join();
+    }
+
+    private String reduce(List<String> partials, Run run) {
+        int budget = chunkTokens * CHARS_PER_TOKEN;
+        int level = 0;
+        while (partials.size() > 1) {
+            Stage stage = new Stage(run, "reduce " + ++level);
+            StringBuilder group = new StringBuilder();
+            int members = 0;
+            for (String partial : partials) {
+                String text = partial + "\n\n";
+                // Two per group at least, so every level shrinks the list even when summaries run long.
+                if (members >= 2 && group.length() + text.length() > budget) {
+                    stage.submit(REDUCE_PROMPT, group.toString());
+                    group.setLength(0);
+                    members = 0;
+                }
+                group.append(text);
+                members++;
+            }
+            if (members == 1 && stage.size() > 0) {
+                // A lone leftover needs no call; it joins the next level as is.
+                stage.add(group.toString().strip());
+            } else {
+                stage.submit(REDUCE_PROMPT, group.toString());
+            }
+            partials = stage.join();
+        }
+        return partials.get(0);
+    }
+
+    // The client's bulkhead answers 503 when other callers hold every slot; back off and try again.
+    private CompletableFuture<String> ask(String prompt, int attempt) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        geminiService.ask(prompt).whenCompleteAsync((summary, e) -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (e == null) {
+                result.complete(summary);
+            } else if (attempt < MAX_ATTEMPTS && cause instanceof ResponseStatusException status
+                    && status.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+                CompletableFuture.delayedExecutor(RETRY_BACKOFF_MS * attempt, TimeUnit.MILLISECONDS)
+                        .execute(() -> ask(prompt, attempt + 1).whenComplete((retried, error) -> {
+                            if (error == null) {
+                                result.complete(retried);
+                            } else {
+                                result.completeExceptionally(error);
+                            }
+                        }));
+            } else {
+                result.completeExceptionally(cause);
+            }
+        }, callbacks);
+        return result;
+    }
+
+    // One digest's connection to its caller.
+    private static class Run {
+        private final SseEmitter emitter;
+        private volatile boolean cancelled;
+
+        Run(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        synchronized void send(String name, Object data) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data));
+            } catch (IOException | IllegalStateException e) {
+                cancelled = true;
+            }
+        }
+    }
+
+    // The calls of one map or reduce level, in submission order.
+    private class Stage {
+        private final Run run;
+        private final String name;
+        private final Semaphore permits = new Semaphore(parallelism);
+        private final List<CompletableFuture<String>> calls = new ArrayList<>();
+        private final AtomicInteger submitted = new AtomicInteger();
+        private final AtomicInteger done = new AtomicInteger();
+        private volatile Throwable failure;
+
+        Stage(Run run, String name) {
+            this.run = run;
+            this.name = name;
+        }
+
+        int size() {
+            return calls.size();
+        }
+
+        void add(String summary) {
+            calls.add(CompletableFuture.completedFuture(summary));
+        }
+
+        // Blocks the digest's own thread until a permit is free, so a digest never has more than `parallelism` calls out.
+        void submit(String template, String text) {
+            permits.acquireUninterruptibly();
+            if (failure != null) {
+                throw new CompletionException(failure);
+            }
+            if (run.cancelled) {
+                throw new CancellationException();
+            }
+            submitted.incrementAndGet();
+            calls.add(ask(String.format(template, text), 1).whenCompleteAsync((summary, e) -> {
+                permits.release();
+                if (e != null) {
+                    failure = e;
+                    return;
+                }
+                Map<String, Object> progress = new HashMap<>();
+                progress.put("stage", name);
+                progress.put("done", done.incrementAndGet());
+                progress.put("submitted", submitted.get());
+                run.send("progress", progress);
+            }, callbacks));
+        }
+
+        List<String> join() {
+            return calls.stream().map(CompletableFuture::join).toList();
+        }
+    }
+}
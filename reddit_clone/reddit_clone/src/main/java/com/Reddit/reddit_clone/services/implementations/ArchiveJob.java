@@ -0,0 +1,200 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.services.SearchService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves rows the application no longer reads out of the hot tables, so those
+ * tables and their indexes stay small:
+ * <ul>
+ *     <li>posts older than archive.post-age-days, with their comments, into
+ *     posts_archive and comments_archive (off when 0);</li>
+ *     <li>soft-deleted communities into communities_archive;</li>
+ *     <li>soft-deleted users into users_archive, with their memberships dropped
+ *     and the member counts of their communities lowered.</li>
+ * </ul>
+ * Each batch of archive.batch-size rows is copied and deleted in one
+ * transaction. A run moves at most archive.max-batches-per-run batches per
+ * table, so a large backlog is worked off over several runs instead of holding
+ * the scheduler thread the other jobs share. A deleted user or community that still owns posts, comments or
+ * communities stays where it is until those are archived. Archived posts are
+ * gone from feeds, search and /get-post.
+ * <p>
+ * Publishes archive.rows{table} with the rows moved out of each table.
+ */
+@Component
+public class ArchiveJob {
+    private static final Logger log = LoggerFactory.getLogger(ArchiveJob.class);
+
+    private static final String POST_COLUMNS = "post_id, title, content, create_at, update_at, image_name, image_type, " +
+            "image_key, votes, version, user_id, community_id";
+    private static final String COMMENT_COLUMNS = "comment_id, content, create_at, update_at, is_edited, votes, post_id, " +
+            "user_id, parent_id, path, depth";
+    private static final String USER_COLUMNS = "user_id, user_name, email, password, phone_number, create_at, update_at, " +
+            "delete_at, image_name, image_type, image_key";
+    private static final String COMMUNITY_COLUMNS = "community_id, community_name, community_desc, create_at, update_at, " +
+            "delete_at, member_count, user_id";
+
+    private static final String OLD_POSTS = "select post_id from posts where create_at < :cutoff " +
+            "order by post_id offset 0 rows fetch next :limit rows only";
+    private static final String DELETED_COMMUNITIES = "select community_id from communities c where c.delete_at is not null " +
+            "and not exists (select 1 from posts p where p.community_id = c.community_id) " +
+            "order by community_id offset 0 rows fetch next :limit rows only";
+    private static final String DELETED_USERS = "select user_id from users u where u.delete_at is not null " +
+            "and not exists (select 1 from posts p where p.user_id = u.user_id) " +
+            "and not exists (select 1 from comments c where c.user_id = u.user_id) " +
+            "and not exists (select 1 from communities c where c.user_id = u.user_id) " +
+            "order by user_id offset 0 rows fetch next :limit rows only";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private CommunityCache communityCache;
+    @Autowired
+    private CommunityAutocomplete communityAutocomplete;
+    @Autowired
+    private HotFeedIndex hotFeedIndex;
+    @Autowired
+    private SearchService searchService;
+    @Autowired
+    private SummaryCache summaryCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${archive.batch-size:500}")
+    private int batchSize;
+    @Value("${archive.post-age-days:0}")
+    private int postAgeDays;
+    @Value("${archive.max-batches-per-run:20}")
+    private int maxBatches;
+
+    // Posts go first, so the users and communities they kept back can follow in the same run.
+    @Scheduled(fixedDelayString = "${archive.interval-ms:3600000}", initialDelayString = "${archive.interval-ms:3600000}")
+    public void run() {
+        try {
+            if (postAgeDays > 0) {
+                LocalDateTime cutoff = LocalDateTime.now().minusDays(postAgeDays);
+                drain(() -> archivePosts(cutoff));
+            }
+            drain(this::archiveCommunities);
+            drain(this::archiveUsers);
+        } catch (RuntimeException e) {
+            // Every batch is its own transaction; the next run picks up where this one stopped.
+            log.warn("Archiving stopped: {}", e.getMessage());
+        }
+    }
+
+    private interface Batch {
+        // Returns how many rows were picked.
+        int archive();
+    }
+
+    private void drain(Batch batch) {
+        // A full batch means there may be more; the rest waits for the next run.
+        for (int batches = 0; batches < maxBatches; batches++) {
+            if (batch.archive() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private int archivePosts(LocalDateTime cutoff) {
+        List<Integer> ids = jdbcTemplate.queryForList(OLD_POSTS,
+                new MapSqlParameterSource("cutoff", cutoff).addValue("limit", batchSize), Integer.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            MapSqlParameterSource byIds = new MapSqlParameterSource("ids", ids);
+            move("comments", COMMENT_COLUMNS, "post_id", byIds);
+            move("posts", POST_COLUMNS, "post_id", byIds);
+            jdbcTemplate.update("delete from post_summaries where post_id in (:ids)", byIds);
+            jdbcTemplate.update("delete from summary_jobs where post_id in (:ids)", byIds);
+        });
+        ids.forEach(postId -> {
+            hotFeedIndex.onPostDeleted(postId);
+            searchService.onPostDeleted(postId);
+        });
+        summaryCache.evict(ids);
+        return ids.size();
+    }
+
+    private int archiveCommunities() {
+        List<Integer> ids = jdbcTemplate.queryForList(DELETED_COMMUNITIES,
+                new MapSqlParameterSource("limit", batchSize), Integer.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource byIds = new MapSqlParameterSource("ids", ids);
+        List<String> names = jdbcTemplate.queryForList(
+                "select community_name from communities where community_id in (:ids)", byIds, String.class);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from community_members where community_id in (:ids)", byIds);
+            move("communities", COMMUNITY_COLUMNS, "community_id", byIds);
+        });
+        names.forEach(name -> {
+            communityCache.invalidate(name);
+            communityAutocomplete.remove(name);
+        });
+        return ids.size();
+    }
+
+    private int archiveUsers() {
+        List<Integer> ids = jdbcTemplate.queryForList(DELETED_USERS,
+                new MapSqlParameterSource("limit", batchSize), Integer.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource byIds = new MapSqlParameterSource("ids", ids);
+        Map<Integer, String> joined = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Integer, Integer> leaving = new HashMap<>();
+            jdbcTemplate.query("select c.community_id, c.community_name, count(*) as leaving from community_members m " +
+                    "join communities c on c.community_id = m.community_id where m.user_id in (:ids) " +
+                    "group by c.community_id, c.community_name", byIds, row -> {
+                joined.put(row.getInt("community_id"), row.getString("community_name"));
+                leaving.put(row.getInt("community_id"), row.getInt("leaving"));
+            });
+            // One counter update per community, as the bulk membership import does.
+            leaving.forEach((communityId, count) -> communityRepo.addMembers(communityId, -count));
+            jdbcTemplate.update("delete from community_members where user_id in (:ids)", byIds);
+            move("users", USER_COLUMNS, "user_id", byIds);
+        });
+        joined.forEach((communityId, name) -> {
+            communityCache.invalidate(name);
+            communityRepo.findMemberCount(communityId).ifPresent(count -> communityAutocomplete.put(name, count));
+        });
+        return ids.size();
+    }
+
+    // Copies the rows matching :ids into <table>_archive, then deletes them.
+    private void move(String table, String columns, String key, MapSqlParameterSource byIds) {
+        jdbcTemplate.update("insert into " + table + "_archive (" + columns + ") select " + columns + " from " + table +
+                " where " + key + " in (:ids)", byIds);
+        if (table.equals("comments")) {
+            // Replies point at other comments of the same post; unlink them (the archive keeps the links) so the
+            // delete does not depend on row order.
+            jdbcTemplate.update("update comments set parent_id = null where " + key + " in (:ids) and parent_id is not null", byIds);
+        }
+        int moved = jdbcTemplate.update("delete from " + table + " where " + key + " in (:ids)", byIds);
+        meterRegistry.counter("archive.rows", "table", table).increment(moved);
+    }
+}
@@ -0,0 +1,274 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentParentRow;
+import com.Reddit.reddit_clone.model.dtos.ImportDtos.CommentImportDto;
+import com.Reddit.reddit_clone.model.dtos.ImportDtos.ImportResDto;
+import com.Reddit.reddit_clone.model.dtos.ImportDtos.MembershipImportDto;
+import com.Reddit.reddit_clone.model.dtos.ImportDtos.PostImportDto;
+import com.Reddit.reddit_clone.repos.CommentRepo;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.services.BulkImportService;
+import com.Reddit.reddit_clone.services.SearchService;
+import com.Reddit.reddit_clone.utils.MaterializedPath;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads posts, comments and memberships for migrations and seeding. Rows are
+ * streamed from the request body (a JSON array or one object per line) and
+ * written imports.batch-size at a time as one JDBC batch of a single prepared
+ * INSERT, each batch in its own transaction. Nothing goes through the entity
+ * manager, so there are no per-row merges, parent re-saves or generated-key
+ * round trips.
+ * <p>
+ * Once a batch of posts or comments commits, the search index reads everything
+ * above the highest id it had before the batch, so imported rows are searchable
+ * as the import goes. The in-memory hot feed and home timelines are not fed;
+ * they pick imported posts up when they are next rebuilt.
+ */
+@Service
+public class BulkImportServiceImpl implements BulkImportService {
+
+    private static final String INSERT_POST = "insert into posts (title, content, create_at, votes, user_id, community_id) " +
+            "values (?, ?, ?, 0, ?, ?)";
+    // parent_id is looked up by path, so a reply can point at a comment inserted earlier in the same batch.
+    private static final String INSERT_COMMENT = "insert into comments " +
+            "(content, create_at, update_at, is_edited, votes, post_id, user_id, parent_id, path, depth) " +
+            "select ?, ?, ?, ?, 0, ?, ?, (select p.comment_id from comments p where p.post_id = ? and p.path = ?), ?, ?";
+    private static final String INSERT_MEMBER = "insert into community_members (user_id, community_id) select ?, ? " +
+            "where not exists (select 1 from community_members where user_id = ? and community_id = ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private CommentRepo commentRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private CommunityCache communityCache;
+    @Autowired
+    private CommunityAutocomplete communityAutocomplete;
+    @Autowired
+    private SearchService searchService;
+    @Value("${imports.batch-size:1000}")
+    private int batchSize;
+
+    private interface BatchWriter<T> {
+        // Returns how many rows were actually inserted.
+        int write(List<T> batch, long firstRow);
+    }
+
+    private record Placement(Integer postId, String path, int depth) {
+    }
+
+    // Refs of the post whose rows are being read; they are dropped when the rows move on to another post.
+    private static final class PostRefs {
+        private Integer postId;
+        private final Map<String, Placement> refs = new HashMap<>();
+
+        Map<String, Placement> of(Integer postId) {
+            if (!postId.equals(this.postId)) {
+                refs.clear();
+                this.postId = postId;
+            }
+            return refs;
+        }
+    }
+
+    @Override
+    public ImportResDto importPosts(InputStream rows) throws IOException {
+        AtomicInteger indexed = new AtomicInteger(postRepo.findMaxPostId());
+        return importRows(rows, PostImportDto.class, (batch, firstRow) -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Object[]> args = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                PostImportDto post = batch.get(i);
+                long row = firstRow + i + 1;
+                require(post.getTitle() != null && post.getUserId() != null && post.getCommunityName() != null, row,
+                        "title, userId and communityName are required");
+                Integer communityId = communityCache.find(post.getCommunityName())
+                        .map(CommunityCache.CachedCommunity::communityId)
+                        .orElseThrow(() -> rejected(row, "community " + post.getCommunityName() + " not found"));
+                args.add(new Object[]{post.getTitle(), post.getContent(), createAt(post.getCreateAt(), now),
+                        post.getUserId(), communityId});
+            }
+            jdbcTemplate.batchUpdate(INSERT_POST, args);
+            return batch.size();
+        }, () -> indexed.set(searchService.indexPostsAfter(indexed.get())));
+    }
+
+    @Override
+    public ImportResDto importComments(InputStream rows) throws IOException {
+        PostRefs postRefs = new PostRefs();
+        AtomicInteger indexed = new AtomicInteger(commentRepo.findMaxCommentId());
+        return importRows(rows, CommentImportDto.class, (batch, firstRow) -> {
+            Set<Integer> parentIds = batch.stream().map(CommentImportDto::getParentId)
+                    .filter(Objects::nonNull).collect(Collectors.toSet());
+            Map<Integer, CommentParentRow> parents = parentIds.isEmpty() ? Map.of()
+                    : commentRepo.findParentRows(parentIds).stream()
+                    .collect(Collectors.toMap(CommentParentRow::commentId, Function.identity()));
+            LocalDateTime now = LocalDateTime.now();
+            List<Object[]> args = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                CommentImportDto comment = batch.get(i);
+                long row = firstRow + i + 1;
+                require(comment.getContent() != null && comment.getPostId() != null && comment.getUserId() != null, row,
+                        "content, postId and userId are required");
+                Map<String, Placement> refs = postRefs.of(comment.getPostId());
+                Placement parent = null;
+                if (comment.getParentId() != null) {
+                    CommentParentRow existing = parents.get(comment.getParentId());
+                    require(existing != null, row, "parent comment " + comment.getParentId() + " not found");
+                    parent = new Placement(existing.postId(), existing.path(), existing.depth());
+                } else if (comment.getParentRef() != null) {
+                    parent = refs.get(comment.getParentRef());
+                    require(parent != null, row, "parentRef " + comment.getParentRef()
+                            + " does not match an earlier row of the same post");
+                }
+                String path = MaterializedPath.nextSegment();
+                int depth = 0;
+                if (parent != null) {
+                    require(parent.postId().equals(comment.getPostId()), row, "parent comment belongs to another post");
+                    require(parent.path() != null && parent.depth() < MaterializedPath.MAX_DEPTH, row,
+                            "cannot reply to this comment");
+                    path = MaterializedPath.child(parent.path(), path);
+                    depth = parent.depth() + 1;
+                }
+                if (comment.getRef() != null) {
+                    refs.put(comment.getRef(), new Placement(comment.getPostId(), path, depth));
+                }
+                LocalDateTime createAt = createAt(comment.getCreateAt(), now);
+                args.add(new Object[]{comment.getContent(), createAt, createAt, false, comment.getPostId(),
+                        comment.getUserId(), comment.getPostId(), parent == null ? null : parent.path(), path, depth});
+            }
+            jdbcTemplate.batchUpdate(INSERT_COMMENT, args);
+            return batch.size();
+        }, () -> indexed.set(searchService.indexCommentsAfter(indexed.get())));
+    }
+
+    @Override
+    public ImportResDto importMemberships(InputStream rows) throws IOException {
+        Map<String, Integer> touched = new HashMap<>();
+        try {
+            return importRows(rows, MembershipImportDto.class, (batch, firstRow) -> {
+                List<Object[]> args = new ArrayList<>(batch.size());
+                List<Integer> communityIds = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    MembershipImportDto membership = batch.get(i);
+                    long row = firstRow + i + 1;
+                    require(membership.getUserId() != null && membership.getCommunityName() != null, row,
+                            "userId and communityName are required");
+                    Integer communityId = communityCache.find(membership.getCommunityName())
+                            .map(CommunityCache.CachedCommunity::communityId)
+                            .orElseThrow(() -> rejected(row, "community " + membership.getCommunityName() + " not found"));
+                    touched.put(membership.getCommunityName(), communityId);
+                    communityIds.add(communityId);
+                    args.add(new Object[]{membership.getUserId(), communityId, membership.getUserId(), communityId});
+                }
+                int[] counts = jdbcTemplate.batchUpdate(INSERT_MEMBER, args);
+                // One counter update per community instead of one per new member.
+                Map<Integer, Integer> joined = new HashMap<>();
+                int inserted = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) {
+                        joined.merge(communityIds.get(i), 1, Integer::sum);
+                        inserted++;
+                    }
+                }
+                joined.forEach(communityRepo::addMembers);
+                return inserted;
+            }, () -> {
+            });
+        } finally {
+            touched.forEach((name, communityId) -> {
+                communityCache.invalidate(name);
+                communityRepo.findMemberCount(communityId).ifPresent(count -> communityAutocomplete.put(name, count));
+            });
+        }
+    }
+
+    // afterCommit runs once each batch has committed, outside its transaction.
+    private <T> ImportResDto importRows(InputStream in, Class<T> type, BatchWriter<T> writer,
+                                        Runnable afterCommit) throws IOException {
+        long read = 0;
+        long imported = 0;
+        List<T> batch = new ArrayList<>(batchSize);
+        try (MappingIterator<T> rows = objectMapper.readerFor(type).readValues(in)) {
+            while (rows.hasNextValue()) {
+                batch.add(rows.nextValue());
+                if (batch.size() == batchSize) {
+                    imported += write(writer, batch, read, imported);
+                    afterCommit.run();
+                    read += batch.size();
+                    batch.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not read row " + (read + batch.size() + 1)
+                    + ": " + e.getOriginalMessage() + " (" + imported + " rows before its batch were imported)");
+        }
+        if (!batch.isEmpty()) {
+            imported += write(writer, batch, read, imported);
+            afterCommit.run();
+            read += batch.size();
+        }
+        return new ImportResDto(imported, read - imported);
+    }
+
+    private <T> int write(BatchWriter<T> writer, List<T> batch, long firstRow, long importedSoFar) {
+        try {
+            Integer inserted = transactionTemplate.execute(status -> writer.write(batch, firstRow));
+            return inserted == null ? 0 : inserted;
+        } catch (ResponseStatusException e) {
+            throw new ResponseStatusException(e.getStatusCode(),
+                    e.getReason() + " (" + importedSoFar + " rows before its batch were imported)");
+        } catch (DataAccessException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rows " + (firstRow + 1) + "-" + (firstRow + batch.size())
+                    + " were rejected: " + e.getMostSpecificCause().getMessage()
+                    + " (" + importedSoFar + " rows before them were imported)");
+        }
+    }
+
+    private static LocalDateTime createAt(LocalDateTime given, LocalDateTime now) {
+        return given != null ? given : now;
+    }
+
+    private static void require(boolean condition, long row, String problem) {
+        if (!condition) {
+            throw rejected(row, problem);
+        }
+    }
+
+    private static ResponseStatusException rejected(long row, String problem) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Row " + row + ": " + problem);
+    }
+}
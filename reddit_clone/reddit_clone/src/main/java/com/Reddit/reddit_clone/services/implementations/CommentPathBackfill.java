@@ -0,0 +1,40 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.model.entities.Comment;
+import com.Reddit.reddit_clone.repos.CommentRepo;
+import com.Reddit.reddit_clone.utils.MaterializedPath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Gives comments written before threads existed a root-level path, so they show
+ * up in /get-comment-threads. Does nothing once every comment has a path.
+ */
+@Component
+public class CommentPathBackfill {
+    private static final Logger log = LoggerFactory.getLogger(CommentPathBackfill.class);
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private CommentRepo commentRepo;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        List<Comment> batch;
+        while (!(batch = commentRepo.findByPathIsNull(PageRequest.of(0, BATCH_SIZE))).isEmpty()) {
+            for (Comment comment : batch) {
+                comment.setPath(MaterializedPath.legacySegment(comment.getCreateAt(), comment.getCommentId()));
+                comment.setDepth(0);
+            }
+            commentRepo.saveAll(batch);
+            log.info("Gave a thread path to {} older comments", batch.size());
+        }
+    }
+}
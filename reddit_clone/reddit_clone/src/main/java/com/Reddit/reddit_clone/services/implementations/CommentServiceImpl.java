@@ -1,19 +1,34 @@
 package com.Reddit.reddit_clone.services.implementations;
 
 import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentReqDto;
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentNodeDto;
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentParentRow;
 import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentResDto;
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentThreadPageDto;
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentThreadRow;
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostRow;
 import com.Reddit.reddit_clone.model.entities.Comment;
-import com.Reddit.reddit_clone.model.entities.Post;
 import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.model.entities.VoteTarget;
 import com.Reddit.reddit_clone.model.mappers.CommentMapper;
+import com.Reddit.reddit_clone.pagination.ThreadCursor;
 import com.Reddit.reddit_clone.repos.CommentRepo;
 import com.Reddit.reddit_clone.repos.PostRepo;
 import com.Reddit.reddit_clone.repos.UserRepo;
 import com.Reddit.reddit_clone.services.CommentService;
+import com.Reddit.reddit_clone.services.SearchService;
+import com.Reddit.reddit_clone.utils.MaterializedPath;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 @Service
 public class CommentServiceImpl implements CommentService {
@@ -25,22 +40,36 @@ public class CommentServiceImpl implements CommentService {
     private UserRepo userRepo;
     @Autowired
     private CommentRepo commentRepo;
+    @Autowired
+    private VoteBuffer voteBuffer;
+    @Autowired
+    private VoteLedger voteLedger;
+    @Autowired
+    private HotFeedIndex hotFeedIndex;
+    @Autowired
+    private SearchService searchService;
+    @Autowired
+    private PostLiveFeed postLiveFeed;
+    @Value("${comments.thread.max-rows:500}")
+    private int threadMaxRows;
 
     @Override
     public CommentResDto addComment(CommentReqDto dto, Integer userId) {
-        Optional<Post>post=postRepo.findById(dto.getPostId());
+        Optional<PostRow>post=postRepo.findRowById(dto.getPostId());
         Optional<User>user=userRepo.findById(userId);
         if(post.isPresent()&&user.isPresent()){
             Comment comment=commentMapper.toEntity(dto);
-            post.get().getComments().add(comment);
-            user.get().getComments().add(comment);
-            comment.setPost(post.get());
+            placeInThread(comment, dto);
+            // The post is only a foreign key here; loading it (and its comments) to append one would be wasted work.
+            comment.setPost(postRepo.getReferenceById(dto.getPostId()));
             comment.setUser(user.get());
             commentRepo.save(comment);
-            postRepo.save(post.get());
-            userRepo.save(user.get());
+            hotFeedIndex.onComment(dto.getPostId());
+            searchService.onCommentCreated(comment, post.get().communityName());
 
-            return commentMapper.toResponse(comment);
+            CommentResDto response=commentMapper.toResponse(comment);
+            postLiveFeed.commentAdded(dto.getPostId(), response);
+            return response;
 
         }
         else {
@@ -57,37 +86,129 @@ public class CommentServiceImpl implements CommentService {
 
     @Override
     public List<CommentResDto> getPostComments(Integer postId) {
-        Optional<List<Comment>>comments=commentRepo.findByPost_PostId(postId);
-        if(comments.isPresent()){
-            return commentMapper.toResponses(comments.get());
-        }
-        else{
-            System.out.println("The post is not here or may be deleted !!!!!");
-            return null;
-        }
+        List<CommentResDto>responses=commentRepo.findResponsesByPostId(postId);
+        // Votes still waiting in the write-behind buffer are part of the score.
+        responses.forEach(c -> c.setVotes((int) (c.getVotes() + voteBuffer.pendingDelta(VoteTarget.COMMENT, c.getCommentId()))));
+        return responses;
     }
 
     @Override
-    public void upVote(Integer commentId) {
-        Optional<Comment>comment=commentRepo.findById(commentId);
-        if(comment.isPresent()){
-            comment.get().setVotes(comment.get().getVotes()+1);
-            commentRepo.save(comment.get());
+    public CommentThreadPageDto getCommentThreads(Integer postId, String cursor, Integer limit, Integer depth, Integer breadth) {
+        ThreadCursor position = ThreadCursor.decode(cursor);
+        if (position == null) {
+            position = new ThreadCursor("", "");
         }
-        else {
-            System.out.println("لا و الف لا ");
+        int topLimit = ThreadCursor.limit(limit, ThreadCursor.DEFAULT_ROOTS, ThreadCursor.MAX_ROOTS);
+        int depthLimit = depth != null && depth == 0 ? 0 : ThreadCursor.limit(depth, ThreadCursor.DEFAULT_DEPTH, ThreadCursor.MAX_DEPTH);
+        int breadthLimit = ThreadCursor.limit(breadth, ThreadCursor.DEFAULT_BREADTH, ThreadCursor.MAX_BREADTH);
+
+        String parentPath = position.parentPath();
+        String from = position.afterPath().isEmpty() ? parentPath : MaterializedPath.subtreeEnd(position.afterPath());
+        String to = MaterializedPath.subtreeEnd(parentPath);
+        int baseDepth = parentPath.isEmpty() ? 0 : MaterializedPath.depth(parentPath) + 1;
+        // The top-level nodes are chosen first, so one huge subtree cannot crowd the others off the page.
+        List<CommentThreadRow> tops = commentRepo.findThreadLevel(postId, baseDepth, from, to, PageRequest.of(0, topLimit + 1));
+        boolean moreThreads = tops.size() > topLimit;
+        if (moreThreads) {
+            tops = tops.subList(0, topLimit);
+        }
+        Map<String, CommentNodeDto> nodes = new HashMap<>();
+        List<CommentNodeDto> threads = new ArrayList<>();
+        for (CommentThreadRow row : tops) {
+            CommentNodeDto node = toNode(row);
+            threads.add(node);
+            nodes.put(row.path(), node);
+        }
+        if (tops.isEmpty()) {
+            return new CommentThreadPageDto(threads, null);
+        }
+        String firstPath = tops.get(0).path();
+        String lastThreadPath = tops.get(tops.size() - 1).path();
+        String nextCursor = moreThreads ? new ThreadCursor(parentPath, lastThreadPath).encode() : null;
+
+        // Then their subtrees in one range scan; one level past the limit is read only to learn which leaves have hidden replies.
+        List<CommentThreadRow> rows = commentRepo.findThreadRange(postId, firstPath, MaterializedPath.subtreeEnd(lastThreadPath),
+                baseDepth, baseDepth + depthLimit + 1, PageRequest.of(0, threadMaxRows));
+        Map<String, String> lastShownChild = new HashMap<>();
+        for (CommentThreadRow row : rows) {
+            String rowParent = MaterializedPath.parent(row.path());
+            CommentNodeDto parent = nodes.get(rowParent);
+            if (parent == null) {
+                // An ancestor was cut, the whole subtree is behind that ancestor's token.
+                continue;
+            }
+            if (row.depth() - baseDepth > depthLimit || parent.getReplies().size() == breadthLimit) {
+                markMore(parent, rowParent, lastShownChild);
+                continue;
+            }
+            CommentNodeDto node = toNode(row);
+            parent.getReplies().add(node);
+            nodes.put(row.path(), node);
+            lastShownChild.put(rowParent, row.path());
+        }
+        if (rows.size() == threadMaxRows) {
+            // The scan stopped inside a subtree: everything after the last row hangs off the last row,
+            // one of its ancestors, or a later top-level node, so those are the nodes to continue from.
+            String lastPath = rows.get(rows.size() - 1).path();
+            for (String path = lastPath; path.length() > parentPath.length(); path = MaterializedPath.parent(path)) {
+                CommentNodeDto node = nodes.get(path);
+                if (node != null) {
+                    markMore(node, path, lastShownChild);
+                }
+            }
+            for (CommentThreadRow top : tops) {
+                if (top.path().compareTo(lastPath) > 0) {
+                    markMore(nodes.get(top.path()), top.path(), lastShownChild);
+                }
+            }
         }
+        return new CommentThreadPageDto(threads, nextCursor);
     }
 
-    @Override
-    public void downVote(Integer commentId) {
-        Optional<Comment>comment=commentRepo.findById(commentId);
-        if(comment.isPresent()){
-            comment.get().setVotes(comment.get().getVotes()-1);
-            commentRepo.save(comment.get());
+    private CommentNodeDto toNode(CommentThreadRow row) {
+        int votes = (int) (row.votes() + voteBuffer.pendingDelta(VoteTarget.COMMENT, row.commentId()));
+        CommentResDto comment = new CommentResDto(row.commentId(), row.content(), row.postId(), row.userId(),
+                row.username(), row.createAt(), row.isEdited(), votes);
+        return new CommentNodeDto(comment, new ArrayList<>(), null);
+    }
+
+    private void markMore(CommentNodeDto node, String path, Map<String, String> lastShownChild) {
+        if (node.getMoreReplies() == null) {
+            node.setMoreReplies(new ThreadCursor(path, lastShownChild.getOrDefault(path, "")).encode());
         }
-        else {
-            System.out.println("لا و الف لا ");
+    }
+
+    private void placeInThread(Comment comment, CommentReqDto dto) {
+        String segment = MaterializedPath.nextSegment();
+        if (dto.getParentId() == null) {
+            comment.setPath(segment);
+            comment.setDepth(0);
+            return;
+        }
+        CommentParentRow parent = commentRepo.findParentRows(List.of(dto.getParentId())).stream().findFirst()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Parent comment not found"));
+        if (!parent.postId().equals(dto.getPostId())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Parent comment belongs to another post");
         }
+        if (parent.path() == null || parent.depth() >= MaterializedPath.MAX_DEPTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot reply to this comment");
+        }
+        comment.setParent(commentRepo.getReferenceById(parent.commentId()));
+        comment.setPath(MaterializedPath.child(parent.path(), segment));
+        comment.setDepth(parent.depth() + 1);
+    }
+
+    @Override
+    public void upVote(Integer commentId, Integer userId) {
+        int delta = voteLedger.record(userId, VoteTarget.COMMENT, commentId, 1);
+        voteBuffer.add(VoteTarget.COMMENT, commentId, delta);
+        postLiveFeed.commentVoted(commentId, delta);
+    }
+
+    @Override
+    public void downVote(Integer commentId, Integer userId) {
+        int delta = voteLedger.record(userId, VoteTarget.COMMENT, commentId, -1);
+        voteBuffer.add(VoteTarget.COMMENT, commentId, delta);
+        postLiveFeed.commentVoted(commentId, delta);
     }
 }
@@ -0,0 +1,165 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunitySuggestionDto;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Case-insensitive prefix index over community names. Every trie node keeps the
+ * top-K names below it by member count, so a lookup is one walk down the prefix
+ * and a copy of at most K entries, whatever the number of communities. Names that
+ * differ only in case share a node and are kept side by side, keyed by the exact name.
+ * <p>
+ * Readers never lock: nodes publish immutable top-K arrays. Writers are serialized
+ * and rebuild the arrays on the path they touched, bottom-up.
+ */
+@Component
+public class CommunityAutocomplete {
+
+    private static final Comparator<Suggestion> RANK = Comparator.comparingInt(Suggestion::memberCount).reversed()
+            .thenComparing(Suggestion::name);
+
+    @Autowired
+    private CommunityRepo communityRepo;
+
+    private final int topK;
+    private final Node root = new Node();
+
+    private record Suggestion(String name, int memberCount) {
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new ConcurrentHashMap<>();
+        // The names ending here; more than one only when they differ in case.
+        volatile Suggestion[] entries = new Suggestion[0];
+        volatile Suggestion[] top = new Suggestion[0];
+    }
+
+    public CommunityAutocomplete(@Value("${communities.autocomplete.top-k:10}") int topK) {
+        this.topK = topK;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (CommunitySuggestionDto community : communityRepo.findSuggestions()) {
+            put(community.getCommunityName(), community.getMemberCount());
+        }
+    }
+
+    /** Up to {@code limit} names starting with {@code prefix}, most members first. */
+    public List<CommunitySuggestionDto> suggest(String prefix, int limit) {
+        Node node = root;
+        String key = prefix == null ? "" : prefix.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        Suggestion[] top = node.top;
+        List<CommunitySuggestionDto> result = new ArrayList<>(Math.min(limit, top.length));
+        for (int i = 0; i < top.length && i < limit; i++) {
+            result.add(new CommunitySuggestionDto(top[i].name(), top[i].memberCount()));
+        }
+        return result;
+    }
+
+    public synchronized void put(String communityName, int memberCount) {
+        List<Node> path = walk(communityName, true);
+        Node leaf = path.get(path.size() - 1);
+        leaf.entries = replace(leaf.entries, communityName, new Suggestion(communityName, memberCount));
+        rebuild(path);
+    }
+
+    public synchronized void onMemberJoined(String communityName) {
+        List<Node> path = walk(communityName, false);
+        if (path == null) {
+            return;
+        }
+        Node leaf = path.get(path.size() - 1);
+        for (Suggestion entry : leaf.entries) {
+            if (entry.name().equals(communityName)) {
+                leaf.entries = replace(leaf.entries, communityName, new Suggestion(communityName, entry.memberCount() + 1));
+                rebuild(path);
+                return;
+            }
+        }
+    }
+
+    public synchronized void remove(String communityName) {
+        List<Node> path = walk(communityName, false);
+        if (path == null) {
+            return;
+        }
+        Node leaf = path.get(path.size() - 1);
+        leaf.entries = replace(leaf.entries, communityName, null);
+        rebuild(path);
+        // Drop nodes that no longer lead anywhere.
+        String key = communityName.toLowerCase(Locale.ROOT);
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (node.entries.length > 0 || !node.children.isEmpty()) {
+                break;
+            }
+            path.get(i - 1).children.remove(key.charAt(i - 1));
+        }
+    }
+
+    private List<Node> walk(String communityName, boolean create) {
+        String key = communityName.toLowerCase(Locale.ROOT);
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            Node next = create ? node.children.computeIfAbsent(key.charAt(i), c -> new Node()) : node.children.get(key.charAt(i));
+            if (next == null) {
+                return null;
+            }
+            node = next;
+            path.add(node);
+        }
+        return path;
+    }
+
+    // Copy of entries with the one named name swapped for replacement, or dropped when replacement is null.
+    private static Suggestion[] replace(Suggestion[] entries, String name, Suggestion replacement) {
+        List<Suggestion> updated = new ArrayList<>(entries.length + 1);
+        for (Suggestion entry : entries) {
+            if (!entry.name().equals(name)) {
+                updated.add(entry);
+            }
+        }
+        if (replacement != null) {
+            updated.add(replacement);
+        }
+        return updated.toArray(new Suggestion[0]);
+    }
+
+    // A node's top-K is the best of its own entry and its children's top-K, so only the touched path changes.
+    private void rebuild(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            List<Suggestion> candidates = new ArrayList<>();
+            candidates.addAll(Arrays.asList(node.entries));
+            for (Node child : node.children.values()) {
+                for (Suggestion s : child.top) {
+                    candidates.add(s);
+                }
+            }
+            candidates.sort(RANK);
+            node.top = candidates.subList(0, Math.min(topK, candidates.size())).toArray(new Suggestion[0]);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunityResDto;
+import com.Reddit.reddit_clone.model.mappers.CommunityMapper;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-through cache of community metadata keyed by communityName, plus the
+ * full community list. Bounded with Caffeine's W-TinyLFU policy; hit, miss and
+ * eviction counts are published as the "communities" and "community-lists"
+ * cache metrics.
+ * <p>
+ * Writers must call {@link #invalidate} after their change is committed. The
+ * expiry only bounds staleness from writes made by other instances.
+ */
+@Component
+public class CommunityCache {
+
+    private static final String ALL = "all";
+
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private CommunityMapper communityMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${communities.cache.max-size:10000}")
+    private long maxSize;
+    @Value("${communities.cache.expire-minutes:10}")
+    private long expireMinutes;
+
+    private Cache<String, CachedCommunity> byName;
+    private Cache<String, List<CommunityResDto>> lists;
+
+    public record CachedCommunity(Integer communityId, CommunityResDto details) {
+    }
+
+    @PostConstruct
+    void init() {
+        byName = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(expireMinutes))
+                .recordStats()
+                .build();
+        lists = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(Duration.ofMinutes(expireMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byName, "communities");
+        CaffeineCacheMetrics.monitor(meterRegistry, lists, "community-lists");
+    }
+
+    /** Unknown names are not cached, so a community created elsewhere shows up on the next call. */
+    public Optional<CachedCommunity> find(String communityName) {
+        if (communityName == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byName.get(communityName, name -> communityRepo.findByCommunityName(name)
+                .map(c -> new CachedCommunity(c.getCommunityId(), communityMapper.toResponse(c)))
+                .orElse(null)));
+    }
+
+    public List<CommunityResDto> findAll() {
+        return lists.get(ALL, key -> List.copyOf(communityMapper.toResponses(communityRepo.findAll())));
+    }
+
+    /** Drops one community and the list that contains it. */
+    public void invalidate(String communityName) {
+        byName.invalidate(communityName);
+        lists.invalidate(ALL);
+    }
+}
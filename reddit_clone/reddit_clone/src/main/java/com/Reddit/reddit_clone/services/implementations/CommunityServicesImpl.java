@@ -2,13 +2,17 @@ package com.Reddit.reddit_clone.services.implementations;
 
 import com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunityReqDto;
 import com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunityResDto;
+import com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunitySuggestionDto;
 import com.Reddit.reddit_clone.model.entities.Community;
 import com.Reddit.reddit_clone.model.entities.User;
 import com.Reddit.reddit_clone.model.mappers.CommunityMapper;
 import com.Reddit.reddit_clone.repos.CommunityRepo;
 import com.Reddit.reddit_clone.repos.UserRepo;
 import com.Reddit.reddit_clone.services.CommunityService;
+import com.Reddit.reddit_clone.services.HomeFeedService;
+import com.Reddit.reddit_clone.services.MembershipService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -23,31 +27,47 @@ public class CommunityServicesImpl implements CommunityService {
     private UserRepo userRepo;
     @Autowired
     private CommunityMapper communityMapper;
+    @Autowired
+    private HomeFeedService homeFeedService;
+    @Autowired
+    private CommunityCache communityCache;
+    @Autowired
+    private MembershipService membershipService;
+    @Autowired
+    private CommunityAutocomplete communityAutocomplete;
     @Override
     public CommunityResDto createCommunity(CommunityReqDto dto) {
         Optional<User>user=userRepo.findById(dto.getUserId());
         if(user.isPresent()){
             Community community=communityMapper.toEntity(dto);
+            // Saving through user.getCommunities() as well used to cascade a second INSERT of the same row.
             community.setCreatedBy(user.get());
-            user.get().getCommunities().add(community);
-            userRepo.save(user.get());
-            return communityMapper.toResponse(communityRepo.save(community));
+            CommunityResDto response=communityMapper.toResponse(communityRepo.save(community));
+            communityCache.invalidate(community.getCommunityName());
+            communityAutocomplete.put(community.getCommunityName(), community.getMemberCount());
+            return response;
         }
         return null;
     }
 
     @Override
     public String joinCommunity(String userEmail, String communityName) {
-        Optional<User>user=userRepo.findByEmail(userEmail);
-        Optional<Community>community=communityRepo.findByCommunityName(communityName);
-        if(user.isPresent()&&community.isPresent()){
-            if(user.get().getJoinedCommunities().contains(community.get())){
+        Optional<Integer>userId=userRepo.findIdByEmail(userEmail);
+        Optional<CommunityCache.CachedCommunity>community=communityCache.find(communityName);
+        if(userId.isPresent()&&community.isPresent()){
+            boolean joined;
+            try {
+                joined=membershipService.join(userId.get(), community.get().communityId());
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent request for the same user and community won the insert.
+                joined=false;
+            }
+            if(!joined){
                 return "The user is already in the community ...\n";
             }
-            user.get().getJoinedCommunities().add(community.get());
-            community.get().getMembers().add(user.get());
-            communityRepo.save(community.get());
-            userRepo.save(user.get());
+            communityCache.invalidate(communityName);
+            communityAutocomplete.onMemberJoined(communityName);
+            homeFeedService.onMembershipChanged(userId.get(), community.get().communityId());
 
             return "Completely joined the community ......\n";
         }
@@ -57,11 +77,12 @@ public class CommunityServicesImpl implements CommunityService {
     @Override
     public String deleteCommunity(String userEmail, String communityName) {
         Optional<User>user=userRepo.findByEmail(userEmail);
-        Optional<Community>community=communityRepo.findByCommunityName(communityName);
+        Optional<CommunityCache.CachedCommunity>community=communityCache.find(communityName);
         if(user.isPresent()&&community.isPresent()) {
-            if(community.get().getCreatedBy().getEmail().equals(userEmail)) {
-                community.get().setDeleteAt(LocalDateTime.now());
-                communityRepo.save(community.get());
+            if(userEmail.equals(community.get().details().getCreatedByEmail())) {
+                communityRepo.softDelete(community.get().communityId(), LocalDateTime.now());
+                communityCache.invalidate(communityName);
+                communityAutocomplete.remove(communityName);
                 return "The community deleted successfully ....\n";
             }
         }
@@ -71,9 +92,9 @@ public class CommunityServicesImpl implements CommunityService {
 
     @Override
     public CommunityResDto getCommunityDetails(String communityName) {
-        Optional<Community>community=communityRepo.findByCommunityName(communityName);
+        Optional<CommunityCache.CachedCommunity>community=communityCache.find(communityName);
         if(community.isPresent()){
-            return communityMapper.toResponse(community.get());
+            return community.get().details();
         }
         else {
             System.out.println("The Community si not here ....\n");
@@ -83,6 +104,11 @@ public class CommunityServicesImpl implements CommunityService {
 
     @Override
     public List<CommunityResDto> getAllCommunities() {
-        return communityMapper.toResponses(communityRepo.findAll());
+        return communityCache.findAll();
+    }
+
+    @Override
+    public List<CommunitySuggestionDto> suggestCommunities(String prefix, Integer limit) {
+        return communityAutocomplete.suggest(prefix, limit == null || limit <= 0 ? 10 : limit);
     }
 }
@@ -0,0 +1,209 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.model.dtos.PageResDto;
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostResDto;
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostRow;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.mappers.PostMapper;
+import com.Reddit.reddit_clone.pagination.PostCursor;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.HomeFeedService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Home feed built from the communities a user joined.
+ * <p>
+ * Posts of ordinary communities are pushed into a bounded per-user ring buffer when they are created
+ * (fan-out on write). Communities above {@code feed.home.fanout-limit} members would cost one push per
+ * member, so their posts are pulled at read time instead (fan-out on read) with a single keyset query.
+ * Only users who opened their home feed get a materialized timeline.
+ * <p>
+ * At most feed.home.max-timelines timelines are kept, and one unread for feed.home.idle-minutes is
+ * dropped; it is rebuilt from the database on the next read. Whether a community is large is
+ * re-read after feed.home.large-ttl-minutes or when someone joins it. Fan-outs run on
+ * feed.home.fanout-threads threads behind a queue of feed.home.fanout-queue-size; when it is
+ * full the posting request does the fan-out itself.
+ */
+@Service
+public class HomeFeedServiceImpl implements HomeFeedService {
+    private static final Logger log = LoggerFactory.getLogger(HomeFeedServiceImpl.class);
+    private static final Comparator<PostCursor> NEWEST_FIRST = Comparator.comparing(PostCursor::createAt)
+            .thenComparing(PostCursor::postId).reversed();
+
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private PostMapper postMapper;
+    @Autowired
+    private VoteBuffer voteBuffer;
+
+    @Value("${feed.home.capacity:800}")
+    private int capacity;
+    @Value("${feed.home.fanout-limit:10000}")
+    private long fanoutLimit;
+
+    private final Cache<Integer, Timeline> timelines;
+    private final Cache<Integer, Boolean> largeCommunities;
+    private final ThreadPoolExecutor fanout;
+
+    public HomeFeedServiceImpl(@Value("${feed.home.max-timelines:100000}") long maxTimelines,
+                               @Value("${feed.home.idle-minutes:60}") long idleMinutes,
+                               @Value("${feed.home.large-ttl-minutes:10}") long largeTtlMinutes,
+                               @Value("${feed.home.fanout-threads:2}") int fanoutThreads,
+                               @Value("${feed.home.fanout-queue-size:1000}") int fanoutQueueSize) {
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(maxTimelines)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .build();
+        this.largeCommunities = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMinutes(largeTtlMinutes))
+                .build();
+        // Running a rejected fan-out on the caller slows posting down instead of losing timeline entries.
+        this.fanout = new ThreadPoolExecutor(fanoutThreads, fanoutThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fanoutQueueSize), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public PageResDto<PostResDto> getHomeFeed(Integer userId, String cursor, Integer size) {
+        PostCursor after = PostCursor.decode(cursor);
+        int pageSize = PostCursor.pageSize(size);
+        Timeline timeline = timelines.get(userId, this::build);
+        if (timeline.pushedCommunities.stream().anyMatch(this::isLarge)) {
+            // A joined community grew past the fan-out limit, so its new posts are no longer pushed here.
+            timeline = build(userId);
+            timelines.put(userId, timeline);
+        }
+
+        List<PostCursor> candidates = new ArrayList<>(timeline.newest(after, pageSize + 1));
+        if (!timeline.pulledCommunities.isEmpty()) {
+            PageRequest probe = PageRequest.of(0, pageSize + 1);
+            candidates.addAll(after == null
+                    ? postRepo.findKeysInCommunities(timeline.pulledCommunities, probe)
+                    : postRepo.findKeysInCommunitiesAfter(timeline.pulledCommunities, after.createAt(), after.postId(), probe));
+        }
+        candidates.sort(NEWEST_FIRST);
+        boolean hasMore = candidates.size() > pageSize;
+        List<PostCursor> page = hasMore ? candidates.subList(0, pageSize) : candidates;
+
+        Map<Integer, PostRow> rows = new HashMap<>();
+        if (!page.isEmpty()) {
+            postRepo.findRowsByIds(page.stream().map(PostCursor::postId).toList()).forEach(p -> rows.put(p.postId(), p));
+        }
+        List<PostRow> posts = page.stream().map(k -> rows.get(k.postId())).filter(Objects::nonNull).toList();
+        return new PageResDto<>(voteBuffer.withPendingVotes(postMapper.fromRows(posts)), hasMore ? page.get(pageSize - 1).encode() : null);
+    }
+
+    @Override
+    public void onPostCreated(Post post) {
+        Integer communityId = post.getCommunity().getCommunityId();
+        PostCursor key = new PostCursor(post.getCreateAt(), post.getPostId());
+        fanout.execute(() -> {
+            try {
+                if (isLarge(communityId)) {
+                    return;
+                }
+                for (Integer memberId : userRepo.findMemberIds(communityId)) {
+                    Timeline timeline = timelines.getIfPresent(memberId);
+                    if (timeline != null) {
+                        timeline.push(key);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Home feed fan-out failed for post {}: {}", key.postId(), e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void onMembershipChanged(Integer userId, Integer communityId) {
+        // Rebuilt from the new set of communities on the next read; the community may just have become large.
+        largeCommunities.invalidate(communityId);
+        timelines.invalidate(userId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanout.shutdown();
+    }
+
+    private Timeline build(Integer userId) {
+        List<Integer> pushed = new ArrayList<>();
+        List<Integer> pulled = new ArrayList<>();
+        for (Integer communityId : communityRepo.findJoinedCommunityIds(userId)) {
+            (isLarge(communityId) ? pulled : pushed).add(communityId);
+        }
+        Timeline timeline = new Timeline(capacity, pushed, pulled);
+        if (!pushed.isEmpty()) {
+            List<PostCursor> recent = new ArrayList<>(postRepo.findKeysInCommunities(pushed, PageRequest.of(0, capacity)));
+            // Oldest first so the ring ends with the newest entry.
+            for (int i = recent.size() - 1; i >= 0; i--) {
+                timeline.push(recent.get(i));
+            }
+        }
+        return timeline;
+    }
+
+    private boolean isLarge(Integer communityId) {
+        return largeCommunities.get(communityId, id -> communityRepo.findMemberCount(id).orElse(0) > fanoutLimit);
+    }
+
+    /** Fixed-size ring of post keys in arrival order; the oldest entry is overwritten when full. */
+    private static final class Timeline {
+        private final PostCursor[] ring;
+        private final List<Integer> pushedCommunities;
+        private final List<Integer> pulledCommunities;
+        private int head;
+        private int count;
+
+        Timeline(int capacity, List<Integer> pushedCommunities, List<Integer> pulledCommunities) {
+            this.ring = new PostCursor[capacity];
+            this.pushedCommunities = List.copyOf(pushedCommunities);
+            this.pulledCommunities = List.copyOf(pulledCommunities);
+        }
+
+        synchronized void push(PostCursor key) {
+            ring[head] = key;
+            head = (head + 1) % ring.length;
+            count = Math.min(count + 1, ring.length);
+        }
+
+        synchronized List<PostCursor> newest(PostCursor after, int limit) {
+            List<PostCursor> result = new ArrayList<>();
+            for (int i = 1; i <= count; i++) {
+                PostCursor key = ring[(head - i + ring.length) % ring.length];
+                if (after == null || NEWEST_FIRST.compare(key, after) > 0) {
+                    result.add(key);
+                }
+            }
+            // Concurrent fan-outs can land slightly out of order, so sort before cutting the page.
+            result.sort(NEWEST_FIRST);
+            return result.size() > limit ? result.subList(0, limit) : result;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostRankingRow;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.pagination.RankCursor;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the hottest posts of every community (and of the whole site) pre-sorted in memory.
+ * <p>
+ * The hot rank follows Reddit's formula: log10 of the score plus the creation time divided by 45000s.
+ * The creation time is fixed, so a post's rank only moves when it gets a vote or a comment,
+ * and the sorted boards never need a periodic re-sort.
+ * <p>
+ * Only posts of the last feed.hot.window-hours are ranked, at most feed.hot.top-k per board;
+ * the feed continues past the board with older posts from the database (see {@link #windowStart()}).
+ */
+@Component
+public class HotFeedIndex {
+
+    private static final long EPOCH_SECONDS = 1134028003L;
+    private static final double SECONDS_PER_ORDER = 45000d;
+    private static final double COMMENT_WEIGHT = 0.5;
+    // Board key for the site-wide feed; community names cannot be empty.
+    private static final String ALL = "";
+    // While warming up, deletes leave this in tracked so the loaded snapshot cannot bring the post back.
+    private static final PostStats DELETED = new PostStats(0, ALL, LocalDateTime.MIN, 0, 0);
+
+    @Autowired
+    private PostRepo postRepo;
+
+    @Value("${feed.hot.top-k:1000}")
+    private int topK;
+    @Value("${feed.hot.window-hours:72}")
+    private int windowHours;
+
+    private final Map<Integer, PostStats> tracked = new ConcurrentHashMap<>();
+    private final Map<String, Board> boards = new ConcurrentHashMap<>();
+    private volatile boolean warming;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        warming = true;
+        try {
+            // Posts created, voted on or deleted since the snapshot was read are already tracked; the snapshot never replaces them.
+            for (PostRankingRow row : postRepo.findRankingRowsSince(windowStart())) {
+                track(new PostStats(row.postId(), row.communityName(), row.createAt(), row.votes(), (int) row.commentCount()));
+            }
+        } finally {
+            warming = false;
+            tracked.values().removeIf(stats -> stats == DELETED);
+        }
+    }
+
+    public void onPostCreated(Post post, String communityName) {
+        track(new PostStats(post.getPostId(), communityName, post.getCreateAt(), post.getVotes(), 0));
+    }
+
+    public void onPostDeleted(Integer postId) {
+        PostStats stats = warming ? tracked.put(postId, DELETED) : tracked.remove(postId);
+        if (stats != null && stats != DELETED) {
+            board(ALL).remove(stats);
+            board(stats.communityName).remove(stats);
+        }
+    }
+
+    public void onVote(Integer postId, int delta) {
+        PostStats stats = live(postId);
+        if (stats != null && delta != 0) {
+            rerank(stats, () -> stats.votes += delta);
+        }
+    }
+
+    public void onComment(Integer postId) {
+        PostStats stats = live(postId);
+        if (stats != null) {
+            rerank(stats, () -> stats.comments++);
+        }
+    }
+
+    /**
+     * Post ids with their hot rank, best first; communityName null means the whole site.
+     * Only posts created after since are returned, so a caller continuing with older posts sees none twice.
+     */
+    public List<RankCursor> page(String communityName, RankCursor after, int limit, LocalDateTime since) {
+        NavigableSet<Ranked> entries = board(communityName == null ? ALL : communityName).entries;
+        if (after != null) {
+            entries = entries.tailSet(new Ranked(after.score(), after.postId()), false);
+        }
+        List<RankCursor> page = new ArrayList<>(limit);
+        for (Ranked entry : entries) {
+            if (page.size() == limit) {
+                break;
+            }
+            // Aged-out posts stay on the board until the next prune.
+            PostStats stats = tracked.get(entry.postId);
+            if (stats == null || !stats.createAt.isAfter(since)) {
+                continue;
+            }
+            page.add(new RankCursor(entry.score, entry.postId));
+        }
+        return page;
+    }
+
+    // Drop posts that aged out of the window; they can no longer out-rank new posts.
+    @Scheduled(fixedDelayString = "${feed.hot.prune-interval-ms:600000}")
+    public void prune() {
+        LocalDateTime cutoff = windowStart();
+        tracked.values().removeIf(stats -> {
+            if (stats.createAt.isAfter(cutoff)) {
+                return false;
+            }
+            board(ALL).remove(stats);
+            board(stats.communityName).remove(stats);
+            return true;
+        });
+    }
+
+    public static double hotScore(int votes, int comments, LocalDateTime createAt) {
+        double score = votes + COMMENT_WEIGHT * comments;
+        double order = Math.log10(Math.max(Math.abs(score), 1));
+        double sign = Math.signum(score);
+        long seconds = createAt.toEpochSecond(ZoneOffset.UTC) - EPOCH_SECONDS;
+        return sign * order + seconds / SECONDS_PER_ORDER;
+    }
+
+    private void track(PostStats stats) {
+        if (stats.createAt == null || !stats.createAt.isAfter(windowStart())) {
+            return;
+        }
+        if (tracked.putIfAbsent(stats.postId, stats) == null) {
+            rerank(stats, () -> { });
+        }
+    }
+
+    private void rerank(PostStats stats, Runnable change) {
+        synchronized (stats) {
+            Board all = board(ALL);
+            Board community = board(stats.communityName);
+            all.remove(stats);
+            community.remove(stats);
+            change.run();
+            stats.ranked = new Ranked(hotScore(stats.votes, stats.comments, stats.createAt), stats.postId);
+            all.add(stats);
+            community.add(stats);
+        }
+    }
+
+    private Board board(String key) {
+        return boards.computeIfAbsent(key, k -> new Board(topK));
+    }
+
+    private PostStats live(Integer postId) {
+        PostStats stats = tracked.get(postId);
+        return stats == DELETED ? null : stats;
+    }
+
+    /** Posts created at or before this instant are not ranked; feeds continue with them in (createAt, postId) order. */
+    public LocalDateTime windowStart() {
+        return LocalDateTime.now().minusHours(windowHours);
+    }
+
+    private record Ranked(double score, int postId) {
+        static final Comparator<Ranked> ORDER = Comparator.comparingDouble(Ranked::score).reversed()
+                .thenComparing(Comparator.comparingInt(Ranked::postId).reversed());
+    }
+
+    private static final class PostStats {
+        final Integer postId;
+        final String communityName;
+        final LocalDateTime createAt;
+        int votes;
+        int comments;
+        Ranked ranked;
+
+        PostStats(Integer postId, String communityName, LocalDateTime createAt, int votes, int comments) {
+            this.postId = postId;
+            this.communityName = communityName;
+            this.createAt = createAt;
+            this.votes = votes;
+            this.comments = comments;
+        }
+    }
+
+    /** Skip list capped at topK entries; readers iterate it without locking. */
+    private static final class Board {
+        final ConcurrentSkipListSet<Ranked> entries = new ConcurrentSkipListSet<>(Ranked.ORDER);
+        // ConcurrentSkipListSet.size() walks the whole list, so the size is tracked separately.
+        final AtomicInteger size = new AtomicInteger();
+        final int capacity;
+
+        Board(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void remove(PostStats stats) {
+            if (stats.ranked != null && entries.remove(stats.ranked)) {
+                size.decrementAndGet();
+            }
+        }
+
+        synchronized void add(PostStats stats) {
+            if (entries.add(stats.ranked)) {
+                size.incrementAndGet();
+            }
+            while (size.get() > capacity && entries.pollLast() != null) {
+                size.decrementAndGet();
+            }
+        }
+    }
+}
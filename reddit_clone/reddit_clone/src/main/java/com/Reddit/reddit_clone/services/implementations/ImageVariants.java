@@ -0,0 +1,225 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.services.MediaStore;
+import com.Reddit.reddit_clone.services.MediaStore.Variant;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the {@link Variant}s of uploaded images on a bounded pool of
+ * media.variants.workers threads, so an upload returns as soon as its original
+ * is stored. The original is decoded once (subsampled when it is far larger
+ * than the biggest variant), scaled down step by step from the largest variant
+ * to the smallest, and re-encoded: JPEG for opaque images, PNG when there is
+ * transparency.
+ * <p>
+ * When the queue is full an image is simply not rendered now: the first request
+ * for one of its variants schedules it again, and the original is served
+ * meanwhile. Anything ImageIO cannot decode, or bigger than
+ * media.variants.max-pixels, is left without variants.
+ * <p>
+ * Publishes media.variants.render (time per image) and
+ * media.variants.skipped{reason=busy|unsupported|too-large|failed}.
+ */
+@Component
+public class ImageVariants {
+    private static final Logger log = LoggerFactory.getLogger(ImageVariants.class);
+
+    @Autowired
+    private MediaStore mediaStore;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${media.variants.jpeg-quality:0.8}")
+    private float jpegQuality;
+    @Value("${media.variants.max-pixels:50000000}")
+    private long maxPixels;
+
+    private final ThreadPoolExecutor workers;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // Bounded, so a flood of unreadable uploads cannot grow it forever; an evicted key is just tried once more.
+    private final Cache<String, Boolean> unsupported = Caffeine.newBuilder().maximumSize(10_000).build();
+    private Timer renderTime;
+
+    public ImageVariants(@Value("${media.variants.workers:2}") int workers,
+                         @Value("${media.variants.queue-size:64}") int queueSize) {
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize));
+    }
+
+    @PostConstruct
+    void init() {
+        renderTime = Timer.builder("media.variants.render")
+                .description("Time to decode an image and store all of its variants")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /** Schedules the variants of key; does nothing for null, for keys already queued and for known non-images. */
+    public void generate(String key) {
+        if (key == null || unsupported.getIfPresent(key) != null || !pending.add(key)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    renderTime.record(() -> render(key));
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+            skipped("busy");
+        }
+    }
+
+    private void render(String key) {
+        try {
+            BufferedImage image = decode(key);
+            if (image == null) {
+                unsupported.put(key, true);
+                return;
+            }
+            boolean alpha = image.getColorModel().hasAlpha();
+            image = normalize(image, alpha);
+            Variant[] variants = Variant.values();
+            // Largest first, so each variant is scaled from the previous one rather than from the original.
+            for (int i = variants.length - 1; i >= 0; i--) {
+                image = scaleDown(image, variants[i].maxEdge(), alpha);
+                mediaStore.storeVariant(key, variants[i], encode(image, alpha), alpha ? "image/png" : "image/jpeg");
+            }
+        } catch (IOException | RuntimeException e) {
+            unsupported.put(key, true);
+            skipped("failed");
+            log.warn("Could not render variants of {}: {}", key, e.getMessage());
+        }
+    }
+
+    private BufferedImage decode(String key) throws IOException {
+        try (SeekableByteChannel channel = mediaStore.open(key);
+             ImageInputStream in = ImageIO.createImageInputStream(Channels.newInputStream(channel))) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                skipped("unsupported");
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                // Checked from the header, before a single pixel is allocated.
+                if ((long) width * height > maxPixels) {
+                    skipped("too-large");
+                    return null;
+                }
+                // Subsampling skips pixels while decoding; it only goes down to twice the largest variant, and the
+                // smooth scaling does the rest.
+                int step = Math.max(1, Math.max(width, height) / (Variant.FULL.maxEdge() * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves until the next halving would undershoot, then takes one last bilinear step; a single large
+    // bilinear step would skip most of the source pixels and alias.
+    private static BufferedImage scaleDown(BufferedImage image, int maxEdge, boolean alpha) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (Math.max(width, height) <= maxEdge) {
+            return image;
+        }
+        double scale = (double) maxEdge / Math.max(width, height);
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        BufferedImage current = image;
+        while (current.getWidth() != targetWidth || current.getHeight() != targetHeight) {
+            int nextWidth = Math.max(targetWidth, current.getWidth() / 2);
+            int nextHeight = Math.max(targetHeight, current.getHeight() / 2);
+            current = resize(current, nextWidth, nextHeight, alpha);
+        }
+        return current;
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height, boolean alpha) {
+        BufferedImage resized = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = resized.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return resized;
+    }
+
+    // Decoders hand back gray, indexed or custom layouts; the encoders and the scaler want plain RGB or ARGB.
+    private static BufferedImage normalize(BufferedImage image, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        return image.getType() == type ? image : resize(image, image.getWidth(), image.getHeight(), alpha);
+    }
+
+    private byte[] encode(BufferedImage image, boolean alpha) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private void skipped(String reason) {
+        meterRegistry.counter("media.variants.skipped", "reason", reason).increment();
+    }
+}
@@ -0,0 +1,171 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.services.MediaStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps media on the local filesystem under {@code media.root}, sharded as ab/cd/&lt;sha256&gt;.
+ * The content type is kept next to the blob in a small ".type" file, and variants
+ * next to their original as &lt;sha256&gt;.&lt;variant&gt;.
+ */
+@Service
+public class LocalMediaStore implements MediaStore {
+
+    private static final Pattern KEY_FORMAT = Pattern.compile("[0-9a-f]{64}");
+    private static final String DEFAULT_TYPE = "application/octet-stream";
+
+    private final Path root;
+
+    public LocalMediaStore(@Value("${media.root:media}") String root) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath();
+        Files.createDirectories(this.root);
+    }
+
+    @Override
+    public String store(MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getContentType());
+        }
+    }
+
+    @Override
+    public String store(InputStream upload, String contentType) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(root, "upload-", ".part");
+        try {
+            // Hash while copying so the upload is never held in memory as a whole.
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                new DigestInputStream(upload, digest).transferTo(out);
+            }
+            String key = HexFormat.of().formatHex(digest.digest());
+            Path target = blobPath(key);
+            if (Files.notExists(target)) {
+                Files.createDirectories(target.getParent());
+                String type = contentType != null ? contentType : DEFAULT_TYPE;
+                Files.writeString(typePath(key), type, StandardCharsets.UTF_8);
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Same bytes were stored concurrently; the existing blob is identical.
+                }
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void storeVariant(String key, Variant variant, byte[] bytes, String contentType) throws IOException {
+        if (!isValidKey(key)) {
+            throw new NoSuchFileException(key);
+        }
+        Path target = blobPath(key, variant);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(root, "variant-", ".part");
+        try {
+            Files.write(temp, bytes);
+            Files.writeString(typePath(key, variant), contentType, StandardCharsets.UTF_8);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<StoredMedia> find(String key) {
+        return find(key, null);
+    }
+
+    @Override
+    public Optional<StoredMedia> find(String key, Variant variant) {
+        if (!isValidKey(key)) {
+            return Optional.empty();
+        }
+        Path blob = blobPath(key, variant);
+        try {
+            if (Files.notExists(blob)) {
+                return Optional.empty();
+            }
+            Path type = typePath(key, variant);
+            String contentType = Files.exists(type) ? Files.readString(type, StandardCharsets.UTF_8) : DEFAULT_TYPE;
+            return Optional.of(new StoredMedia(key, contentType, Files.size(blob)));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public SeekableByteChannel open(String key) throws IOException {
+        return open(key, null);
+    }
+
+    @Override
+    public SeekableByteChannel open(String key, Variant variant) throws IOException {
+        if (!isValidKey(key)) {
+            throw new NoSuchFileException(key);
+        }
+        return FileChannel.open(blobPath(key, variant), StandardOpenOption.READ);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        if (!isValidKey(key)) {
+            return;
+        }
+        for (Variant variant : Variant.values()) {
+            Files.deleteIfExists(blobPath(key, variant));
+            Files.deleteIfExists(typePath(key, variant));
+        }
+        Files.deleteIfExists(blobPath(key));
+        Files.deleteIfExists(typePath(key));
+    }
+
+    private boolean isValidKey(String key) {
+        return key != null && KEY_FORMAT.matcher(key).matches();
+    }
+
+    private Path blobPath(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private Path typePath(String key) {
+        return blobPath(key).resolveSibling(key + ".type");
+    }
+
+    // variant null is the original.
+    private Path blobPath(String key, Variant variant) {
+        return variant == null ? blobPath(key) : blobPath(key).resolveSibling(key + "." + variant.id());
+    }
+
+    private Path typePath(String key, Variant variant) {
+        return variant == null ? typePath(key) : blobPath(key, variant).resolveSibling(key + "." + variant.id() + ".type");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
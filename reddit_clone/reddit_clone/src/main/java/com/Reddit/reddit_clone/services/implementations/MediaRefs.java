@@ -0,0 +1,125 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.services.MediaStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reference counts for stored images, in media_refs. Images are content
+ * addressed, so a repost of the same picture only adds a reference to the
+ * existing blob; the blob is deleted once nothing points at it any more.
+ * <p>
+ * Every post and user row with an image key (archived ones included) holds one
+ * reference. When the count drops to 0 the image is not deleted right away:
+ * {@link #sweep()} removes it after media.gc.grace-ms, so a raw upload that is
+ * about to be attached, or a repost racing the last delete, still finds it.
+ * The sweep deletes the count row and the files in one transaction, and
+ * {@link #hold} increments before the caller stores or checks the file, so
+ * the two cannot interleave into a reference to a deleted blob.
+ * <p>
+ * Publishes media.gc.freed with the images deleted.
+ */
+@Component
+public class MediaRefs {
+    private static final Logger log = LoggerFactory.getLogger(MediaRefs.class);
+
+    private static final String RELEASED = "select media_key from media_refs where ref_count = 0 and released_at < ? " +
+            "order by released_at offset 0 rows fetch next ? rows only";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MediaStore mediaStore;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${media.gc.grace-ms:3600000}")
+    private long graceMs;
+    @Value("${media.gc.batch-size:500}")
+    private int batchSize;
+
+    /** Adds a reference to key. */
+    public void hold(String key) {
+        if (jdbcTemplate.update("update media_refs set ref_count = ref_count + 1, released_at = null where media_key = ?", key) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("insert into media_refs (media_key, ref_count) values (?, 1)", key);
+        } catch (DuplicateKeyException e) {
+            // Someone else inserted it first.
+            jdbcTemplate.update("update media_refs set ref_count = ref_count + 1, released_at = null where media_key = ?", key);
+        }
+    }
+
+    /** Drops a reference to key; does nothing for null. */
+    public void release(String key) {
+        if (key == null) {
+            return;
+        }
+        jdbcTemplate.update("update media_refs set ref_count = ref_count - 1, " +
+                "released_at = case when ref_count = 1 then ? else released_at end " +
+                "where media_key = ? and ref_count > 0", LocalDateTime.now(), key);
+    }
+
+    /**
+     * Tracks a raw upload that nothing references yet, so it is swept like a released image if it is never
+     * attached. The grace period starts over when the key was already unreferenced.
+     */
+    public void track(String key) {
+        if (jdbcTemplate.update("update media_refs set released_at = ? where media_key = ? and ref_count = 0",
+                LocalDateTime.now(), key) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("insert into media_refs (media_key, ref_count, released_at) values (?, 0, ?)",
+                    key, LocalDateTime.now());
+        } catch (DuplicateKeyException e) {
+            // Already tracked, with references.
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${media.gc.interval-ms:600000}", initialDelayString = "${media.gc.interval-ms:600000}")
+    public void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(graceMs * 1_000_000);
+        List<String> keys = jdbcTemplate.queryForList(RELEASED, String.class, cutoff, batchSize);
+        int freed = 0;
+        for (String key : keys) {
+            try {
+                Boolean deleted = transactionTemplate.execute(status -> {
+                    // The row lock taken here makes a concurrent hold() wait until the files are gone.
+                    if (jdbcTemplate.update("delete from media_refs where media_key = ? and ref_count = 0 and released_at < ?",
+                            key, cutoff) == 0) {
+                        return false;
+                    }
+                    try {
+                        mediaStore.delete(key);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return true;
+                });
+                if (Boolean.TRUE.equals(deleted)) {
+                    freed++;
+                }
+            } catch (RuntimeException e) {
+                // The row is back (rolled back); the next sweep tries again.
+                log.warn("Could not delete media {}: {}", key, e.getMessage());
+            }
+        }
+        meterRegistry.counter("media.gc.freed").increment(freed);
+    }
+}
@@ -0,0 +1,145 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.services.MediaStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Takes post images and avatars into the {@link MediaStore}, either as the raw
+ * body of POST /media or as the image part of a multipart form (spooled to disk
+ * by the container, see spring.servlet.multipart.file-size-threshold). Both
+ * paths copy through one fixed-size buffer and hash on the way, so the heap
+ * cost of an upload does not grow with its size and identical uploads end up
+ * under the same key.
+ * <p>
+ * Raw uploads must be image/* and at most media.upload.max-size bytes; the
+ * limit is checked against Content-Length up front and counted while copying
+ * for chunked bodies.
+ * <p>
+ * An attached image holds a {@link MediaRefs} reference, which the caller
+ * releases when the post or user stops pointing at it.
+ */
+@Component
+public class MediaUploads {
+
+    @Autowired
+    private MediaStore mediaStore;
+    @Autowired
+    private ImageVariants imageVariants;
+    @Autowired
+    private MediaRefs mediaRefs;
+    @Value("${media.upload.max-size:10MB}")
+    private DataSize maxSize;
+
+    /** Stores a raw upload and queues its variants; contentLength is -1 when the client did not send one. */
+    public String store(InputStream body, String contentType, long contentLength) throws IOException {
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Only images can be uploaded");
+        }
+        if (contentLength == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Empty upload");
+        }
+        if (contentLength > maxSize.toBytes()) {
+            throw tooLarge();
+        }
+        String key;
+        try {
+            key = mediaStore.store(new LimitedInputStream(body, maxSize.toBytes()), contentType);
+        } catch (LimitExceededException e) {
+            throw tooLarge();
+        }
+        mediaRefs.track(key);
+        if (mediaStore.find(key).isEmpty()) {
+            // The same bytes had been unreferenced long enough to be swept while this copy was stored.
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Upload collided with a cleanup, try again");
+        }
+        imageVariants.generate(key);
+        return key;
+    }
+
+    /**
+     * The image a post or profile should point at, with a reference held on it: the uploaded part when there
+     * is one, otherwise imageKey from an earlier POST /media. Returns null when neither is given.
+     */
+    public Attached attach(MultipartFile image, String imageKey) throws IOException {
+        if (image != null && !image.isEmpty()) {
+            String key = mediaStore.store(image);
+            mediaRefs.hold(key);
+            if (mediaStore.find(key).isEmpty()) {
+                // Swept between the store and the hold; now that it is held it stays.
+                mediaStore.store(image);
+            }
+            imageVariants.generate(key);
+            return new Attached(key, image.getOriginalFilename(), image.getContentType());
+        }
+        if (imageKey == null || imageKey.isBlank()) {
+            return null;
+        }
+        MediaStore.StoredMedia media = mediaStore.find(imageKey)
+                .orElseThrow(() -> unknownImage(imageKey));
+        mediaRefs.hold(imageKey);
+        if (mediaStore.find(imageKey).isEmpty()) {
+            mediaRefs.release(imageKey);
+            throw unknownImage(imageKey);
+        }
+        return new Attached(media.key(), null, media.contentType());
+    }
+
+    public record Attached(String key, String name, String contentType) {
+    }
+
+    private static ResponseStatusException unknownImage(String key) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown image " + key);
+    }
+
+    private ResponseStatusException tooLarge() {
+        return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Uploads are limited to " + maxSize.toMegabytes() + "MB");
+    }
+
+    private static class LimitExceededException extends IOException {
+    }
+
+    // Fails the copy as soon as more than limit bytes have come through, so the store deletes its temp file.
+    private static class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) throws LimitExceededException {
+            remaining -= read;
+            if (remaining < 0) {
+                throw new LimitExceededException();
+            }
+        }
+    }
+}
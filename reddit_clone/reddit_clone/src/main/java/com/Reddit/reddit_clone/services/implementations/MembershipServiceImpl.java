@@ -0,0 +1,37 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.services.MembershipService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Membership rows are written straight to community_members, so joining never
+ * loads either side's collection and costs the same for any community size.
+ * Counts from before memberCount existed are filled in by migration V6.
+ */
+@Service
+public class MembershipServiceImpl implements MembershipService {
+    @Autowired
+    private CommunityRepo communityRepo;
+
+    /**
+     * Returns false when the user was already a member. Two racing joins for the same
+     * pair can still collide on the primary key; the loser gets a DataIntegrityViolationException.
+     */
+    @Override
+    @Transactional
+    public boolean join(Integer userId, Integer communityId) {
+        if (communityRepo.insertMember(userId, communityId) == 0) {
+            return false;
+        }
+        communityRepo.addMembers(communityId, 1);
+        return true;
+    }
+
+    @Override
+    public boolean isMember(Integer userId, Integer communityId) {
+        return communityRepo.countMembership(userId, communityId) > 0;
+    }
+}
@@ -0,0 +1,266 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentResDto;
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostLiveBatchDto;
+import com.Reddit.reddit_clone.repos.CommentRepo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Pushes new comments and vote changes of a post to the clients watching it,
+ * as server-sent events on /post-events.
+ * <p>
+ * The comment and vote services publish here as things happen; nothing is
+ * kept for posts nobody watches. Every live.flush-interval-ms, on a thread of
+ * its own so the @Scheduled jobs cannot delay it, the changes of each post are sent as one "batch" event (new comments in order, votes summed
+ * into deltas), serialized once and multicast to the post's watchers. More
+ * than live.max-comments-per-batch new comments are sent as "resync" instead,
+ * and the clients reload.
+ * <p>
+ * A watcher holds no thread: the connection is an async request and sends run
+ * on live.send-threads threads. A watcher that falls live.max-pending events
+ * behind gets one "resync" event and is disconnected rather than buffered for
+ * without bound; its client reloads the comments and reconnects. At most
+ * live.max-watchers connections are accepted, and a comment line goes out every
+ * live.heartbeat-ms so idle connections survive proxies and dead ones are
+ * noticed. The bus is in-process, so a node only pushes changes made on it.
+ * <p>
+ * Publishes live.watchers (gauge), live.batches and live.resyncs.
+ */
+@Component
+public class PostLiveFeed {
+    private static final Logger log = LoggerFactory.getLogger(PostLiveFeed.class);
+
+    /** One server-sent event; a null name is a comment line (the heartbeat). */
+    public record LiveEvent(String name, String data) {
+    }
+
+    // Browsers drop events without data, so "ready" and "resync" carry a token.
+    static final LiveEvent READY = new LiveEvent("ready", "ok");
+    static final LiveEvent RESYNC = new LiveEvent("resync", "reload");
+    static final LiveEvent HEARTBEAT = new LiveEvent(null, "ping");
+
+    @Autowired
+    private CommentRepo commentRepo;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${live.max-watchers:50000}")
+    private int maxWatchers;
+    @Value("${live.max-pending:16}")
+    private int maxPending;
+    @Value("${live.max-comments-per-batch:100}")
+    private int maxCommentsPerBatch;
+    @Value("${live.heartbeat-ms:25000}")
+    private long heartbeatMs;
+    @Value("${live.session-ms:1800000}")
+    private long sessionMs;
+    @Value("${live.flush-interval-ms:250}")
+    private long flushIntervalMs;
+
+    private final Scheduler senders;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "live-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Integer, Topic> topics = new ConcurrentHashMap<>();
+    private final Map<Integer, Changes> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger watchers = new AtomicInteger();
+    // A comment vote only names the comment; the post it belongs to never changes.
+    private final Cache<Integer, Integer> commentPosts = Caffeine.newBuilder().maximumSize(100_000).build();
+    private long lastHeartbeat = System.currentTimeMillis();
+
+    public PostLiveFeed(@Value("${live.send-threads:4}") int sendThreads) {
+        this.senders = Schedulers.newBoundedElastic(sendThreads, Integer.MAX_VALUE, "live-send");
+    }
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("live.watchers", watchers);
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // A task that throws is never run again; keep flushing.
+                log.warn("Live flush failed: {}", e.getMessage());
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdownNow();
+        senders.dispose();
+    }
+
+    /** Opens the event stream of postId for one client; 503 once live.max-watchers are connected. */
+    public SseEmitter watch(Integer postId) {
+        if (watchers.get() >= maxWatchers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many live connections, try again shortly");
+        }
+        SseEmitter emitter = new SseEmitter(sessionMs);
+        Disposable subscription = events(postId).subscribe(event -> send(emitter, event), emitter::completeWithError,
+                emitter::complete);
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(e -> subscription.dispose());
+        return emitter;
+    }
+
+    /** "ready", then the post's events as they are flushed; ends with "resync" when the subscriber falls behind. */
+    public Flux<LiveEvent> events(Integer postId) {
+        return Flux.using(() -> join(postId),
+                topic -> Flux.concat(Mono.just(READY), topic.sink.asFlux())
+                        .onBackpressureBuffer(maxPending, dropped -> { }, BufferOverflowStrategy.ERROR)
+                        // Sends block on the connection; they must never hold up the flush or the other watchers.
+                        .publishOn(senders, 1)
+                        .onErrorResume(Exceptions::isOverflow, e -> {
+                            meterRegistry.counter("live.resyncs").increment();
+                            return Mono.just(RESYNC);
+                        }),
+                topic -> leave(postId));
+    }
+
+    public void commentAdded(Integer postId, CommentResDto comment) {
+        record(postId, changes -> {
+            if (changes.comments.size() < maxCommentsPerBatch) {
+                changes.comments.add(comment);
+            } else {
+                changes.overflowed = true;
+            }
+        });
+    }
+
+    public void postVoted(Integer postId, int delta) {
+        if (delta != 0) {
+            record(postId, changes -> changes.voteDelta += delta);
+        }
+    }
+
+    public void commentVoted(Integer commentId, int delta) {
+        if (delta == 0 || topics.isEmpty()) {
+            return;
+        }
+        Integer postId = commentPosts.get(commentId, id -> commentRepo.findPostIdById(id).orElse(null));
+        if (postId != null) {
+            record(postId, changes -> changes.commentVotes.merge(commentId, delta, Integer::sum));
+        }
+    }
+
+    public void flush() {
+        for (Integer postId : pending.keySet()) {
+            Changes changes = pending.remove(postId);
+            Topic topic = topics.get(postId);
+            if (changes == null || topic == null) {
+                continue;
+            }
+            LiveEvent event = changes.overflowed ? RESYNC : batch(postId, changes);
+            if (event != null) {
+                topic.sink.tryEmitNext(event);
+                meterRegistry.counter("live.batches").increment();
+            }
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastHeartbeat >= heartbeatMs) {
+            lastHeartbeat = now;
+            topics.values().forEach(topic -> topic.sink.tryEmitNext(HEARTBEAT));
+        }
+    }
+
+    private LiveEvent batch(Integer postId, Changes changes) {
+        try {
+            return new LiveEvent("batch", objectMapper.writeValueAsString(
+                    new PostLiveBatchDto(postId, changes.voteDelta, changes.comments, changes.commentVotes)));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize live batch of post {}: {}", postId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void record(Integer postId, Consumer<Changes> change) {
+        if (!topics.containsKey(postId)) {
+            return;
+        }
+        pending.compute(postId, (id, changes) -> {
+            Changes merged = changes == null ? new Changes() : changes;
+            change.accept(merged);
+            return merged;
+        });
+    }
+
+    private Topic join(Integer postId) {
+        watchers.incrementAndGet();
+        return topics.compute(postId, (id, topic) -> {
+            Topic joined = topic == null ? new Topic() : topic;
+            joined.watchers++;
+            return joined;
+        });
+    }
+
+    private void leave(Integer postId) {
+        watchers.decrementAndGet();
+        topics.computeIfPresent(postId, (id, topic) -> --topic.watchers == 0 ? null : topic);
+    }
+
+    private static void send(SseEmitter emitter, LiveEvent event) {
+        try {
+            emitter.send(event.name() == null
+                    ? SseEmitter.event().comment(event.data())
+                    : SseEmitter.event().name(event.name()).data(event.data()));
+        } catch (IOException e) {
+            // The client is gone; ends the subscription, which leaves the topic.
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private static class Topic {
+        // Emitted to from the flush thread only. Each watcher's bounded buffer keeps requesting, so a slow
+        // watcher overflows its own buffer instead of holding back the others.
+        final Sinks.Many<LiveEvent> sink = Sinks.many().multicast().directBestEffort();
+        // Only touched inside topics.compute, which serializes access per post.
+        int watchers;
+    }
+
+    // Only touched inside pending.compute, or after being removed from pending.
+    private static class Changes {
+        final List<CommentResDto> comments = new ArrayList<>();
+        final Map<Integer, Integer> commentVotes = new LinkedHashMap<>();
+        int voteDelta;
+        boolean overflowed;
+    }
+}
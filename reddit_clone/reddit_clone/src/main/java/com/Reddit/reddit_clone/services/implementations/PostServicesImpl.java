@@ -1,24 +1,42 @@
 package com.Reddit.reddit_clone.services.implementations;
 
+import com.Reddit.reddit_clone.model.dtos.PageResDto;
 import com.Reddit.reddit_clone.model.dtos.postDtos.PostReqDto;
 import com.Reddit.reddit_clone.model.dtos.postDtos.PostResDto;
-import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostRow;
 import com.Reddit.reddit_clone.model.entities.Post;
 import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.model.entities.VoteTarget;
 import com.Reddit.reddit_clone.model.mappers.PostMapper;
+import com.Reddit.reddit_clone.pagination.FeedSort;
+import com.Reddit.reddit_clone.pagination.PostCursor;
+import com.Reddit.reddit_clone.pagination.RankCursor;
 import com.Reddit.reddit_clone.repos.CommunityRepo;
 import com.Reddit.reddit_clone.repos.PostRepo;
 import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.HomeFeedService;
 import com.Reddit.reddit_clone.services.PostServices;
+import com.Reddit.reddit_clone.services.SearchService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 @Service
 public class PostServicesImpl implements PostServices {
+    // Marks a hot-feed cursor that has moved past the ranked posts; not a base64url character.
+    private static final String OLDER_POSTS = ".";
     @Autowired
     private PostRepo postRepo;
     @Autowired
@@ -27,23 +45,60 @@ public class PostServicesImpl implements PostServices {
     private UserRepo userRepo;
     @Autowired
     private PostMapper postMapper;
+    @Autowired
+    private MediaUploads mediaUploads;
+    @Autowired
+    private MediaRefs mediaRefs;
+    @Autowired
+    private VoteBuffer voteBuffer;
+    @Autowired
+    private VoteLedger voteLedger;
+    @Autowired
+    private HotFeedIndex hotFeedIndex;
+    @Autowired
+    private HomeFeedService homeFeedService;
+    @Autowired
+    private CommunityCache communityCache;
+    @Autowired
+    private SearchService searchService;
+    @Autowired
+    private SummaryCache summaryCache;
+    @Autowired
+    private SummaryJobQueue summaryJobQueue;
+    @Autowired
+    private PostLiveFeed postLiveFeed;
     @Override
     public PostResDto createPost(PostReqDto dto, MultipartFile image) throws IOException {
         Post post=postMapper.toEntity(dto);
-        Optional<Community> community = communityRepo.findByCommunityName(dto.getCommunityName());
+        Optional<CommunityCache.CachedCommunity> community = communityCache.find(dto.getCommunityName());
         Optional<User>user=userRepo.findById(dto.getUserId());
         if(user.isPresent()&&community.isPresent()){
-            user.get().getPosts().add(post);
-            community.get().getPosts().add(post);
+            // Only the owning side is set. Appending to user.getPosts() would load every post of the user,
+            // and saving the user would merge it; the post's own INSERT is the whole write.
             post.setUser(user.get());
-            post.setCommunity(community.get());
-            post.setImageName(image.getOriginalFilename());
-            post.setImageType(image.getContentType());
-            post.setImage(image.getBytes());
-            userRepo.save(user.get());
-            communityRepo.save(community.get());
-
-            return postMapper.toResponse(postRepo.save(post));
+            // The cache already proved the community exists; a reference is enough for the foreign key.
+            post.setCommunity(communityRepo.getReferenceById(community.get().communityId()));
+            MediaUploads.Attached attached = mediaUploads.attach(image, dto.getImageKey());
+            post.setImageKey(attached == null ? null : attached.key());
+            post.setImageName(attached == null ? null : attached.name());
+            post.setImageType(attached == null ? null : attached.contentType());
+
+            Post saved;
+            try {
+                saved=postRepo.save(post);
+            } catch (RuntimeException e) {
+                // No post points at the image after all.
+                mediaRefs.release(post.getImageKey());
+                throw e;
+            }
+            String communityName=community.get().details().getCommunityName();
+            hotFeedIndex.onPostCreated(saved, communityName);
+            homeFeedService.onPostCreated(saved);
+            searchService.onPostCreated(saved, communityName);
+            if (saved.getContent() != null && !saved.getContent().isBlank()) {
+                summaryJobQueue.enqueue(saved.getPostId());
+            }
+            return postMapper.toResponse(saved, communityName);
         }
         System.out.println("there may be something wrong ");
         return null;
@@ -51,21 +106,40 @@ public class PostServicesImpl implements PostServices {
 
     @Override
     public PostResDto getPost(Integer postId) {
-        Optional<Post>post=postRepo.findById(postId);
-        return post.map(value -> postMapper.toResponse(value)).orElse(null);
+        Optional<PostRow>post=postRepo.findRowById(postId);
+        return post.map(value -> voteBuffer.withPendingVotes(postMapper.toResponse(value))).orElse(null);
 
     }
 
     @Override
-    public List<PostResDto> getPostForCommunity(String communityName) {
-        List<Post>posts=postRepo.findByCommunity_CommunityName(communityName);
-        return postMapper.toResponses(posts);
+    public PageResDto<PostResDto> getPostForCommunity(String communityName, String sort, String cursor, Integer size) {
+        int pageSize=PostCursor.pageSize(size);
+        switch (FeedSort.from(sort)) {
+            case HOT:
+                return hotPage(communityName, cursor, pageSize);
+            case TOP:
+                RankCursor top=RankCursor.decode(cursor);
+                return toTopPage(top==null
+                        ?postRepo.findCommunityTopPage(communityName, probe(pageSize))
+                        :postRepo.findCommunityTopPageAfter(communityName, (int) top.score(), top.postId(), probe(pageSize)), pageSize);
+            default:
+                break;
+        }
+        PostCursor after=PostCursor.decode(cursor);
+        List<PostRow>posts=after==null
+                ?postRepo.findCommunityPage(communityName, probe(pageSize))
+                :postRepo.findCommunityPageAfter(communityName, after.createAt(), after.postId(), probe(pageSize));
+        return toPage(posts, pageSize);
     }
 
     @Override
-    public List<PostResDto> getPostForUser(String email) {
-        List<Post>posts=postRepo.findByUser_Email(email);
-        return postMapper.toResponses(posts);
+    public PageResDto<PostResDto> getPostForUser(String email, String cursor, Integer size) {
+        PostCursor after=PostCursor.decode(cursor);
+        int pageSize=PostCursor.pageSize(size);
+        List<PostRow>posts=after==null
+                ?postRepo.findUserPage(email, probe(pageSize))
+                :postRepo.findUserPageAfter(email, after.createAt(), after.postId(), probe(pageSize));
+        return toPage(posts, pageSize);
     }
 
     @Override
@@ -73,6 +147,10 @@ public class PostServicesImpl implements PostServices {
         Optional<Post>post=postRepo.findById(postId);
         if(post.isPresent()){
             postRepo.delete(post.get());
+            mediaRefs.release(post.get().getImageKey());
+            hotFeedIndex.onPostDeleted(postId);
+            searchService.onPostDeleted(postId);
+            summaryCache.invalidate(postId);
             return "The post is deleted successfully !!!\n";
         }
         else {
@@ -81,8 +159,114 @@ public class PostServicesImpl implements PostServices {
     }
 
     @Override
-    public List<PostResDto> getPosts() {
-        List<Post>posts=postRepo.findAll();
-        return postMapper.toResponses(posts);
+    public PageResDto<PostResDto> getPosts(String sort, String cursor, Integer size) {
+        int pageSize=PostCursor.pageSize(size);
+        switch (FeedSort.from(sort)) {
+            case HOT:
+                return hotPage(null, cursor, pageSize);
+            case TOP:
+                RankCursor top=RankCursor.decode(cursor);
+                return toTopPage(top==null
+                        ?postRepo.findTopPage(probe(pageSize))
+                        :postRepo.findTopPageAfter((int) top.score(), top.postId(), probe(pageSize)), pageSize);
+            default:
+                break;
+        }
+        PostCursor after=PostCursor.decode(cursor);
+        List<PostRow>posts=after==null
+                ?postRepo.findFeedPage(probe(pageSize))
+                :postRepo.findFeedPageAfter(after.createAt(), after.postId(), probe(pageSize));
+        return toPage(posts, pageSize);
+    }
+
+    @Override
+    public void upVote(Integer postId, Integer userId) {
+        int delta=voteLedger.record(userId, VoteTarget.POST, postId, 1);
+        voteBuffer.add(VoteTarget.POST, postId, delta);
+        hotFeedIndex.onVote(postId, delta);
+        postLiveFeed.postVoted(postId, delta);
+    }
+
+    @Override
+    public void downVote(Integer postId, Integer userId) {
+        int delta=voteLedger.record(userId, VoteTarget.POST, postId, -1);
+        voteBuffer.add(VoteTarget.POST, postId, delta);
+        hotFeedIndex.onVote(postId, delta);
+        postLiveFeed.postVoted(postId, delta);
+    }
+
+    // Hot pages come pre-sorted from the in-memory index; only the page's rows are loaded.
+    // The index only ranks recent posts, so once it runs out the feed continues with older posts, newest first.
+    // Those pages carry a new-feed cursor behind OLDER_POSTS.
+    private PageResDto<PostResDto> hotPage(String communityName, String cursor, int pageSize) {
+        LocalDateTime since=hotFeedIndex.windowStart();
+        if (cursor != null && cursor.startsWith(OLDER_POSTS)) {
+            PostCursor after=PostCursor.decode(cursor.substring(OLDER_POSTS.length()));
+            if (after == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+            return olderPage(communityName, after, List.of(), pageSize);
+        }
+        List<RankCursor>ranked=hotFeedIndex.page(communityName, RankCursor.decode(cursor), pageSize + 1, since);
+        boolean hasMore=ranked.size() > pageSize;
+        if (hasMore) {
+            ranked=ranked.subList(0, pageSize);
+        }
+        Map<Integer, PostRow>rows=new HashMap<>();
+        if (!ranked.isEmpty()) {
+            postRepo.findRowsByIds(ranked.stream().map(RankCursor::postId).toList())
+                    .forEach(p -> rows.put(p.postId(), p));
+        }
+        List<PostRow>posts=ranked.stream().map(r -> rows.get(r.postId())).filter(Objects::nonNull).toList();
+        if (hasMore) {
+            return new PageResDto<>(toResponses(posts), ranked.get(pageSize - 1).encode());
+        }
+        // Everything ranked after the window start was listed; the keyset below starts at the window start itself.
+        return olderPage(communityName, new PostCursor(since, Integer.MAX_VALUE), posts, pageSize);
+    }
+
+    private PageResDto<PostResDto> olderPage(String communityName, PostCursor after, List<PostRow> head, int pageSize) {
+        int wanted=pageSize - head.size();
+        Pageable probe=PageRequest.of(0, wanted + 1);
+        List<PostRow>older=communityName==null
+                ?postRepo.findFeedPageAfter(after.createAt(), after.postId(), probe)
+                :postRepo.findCommunityPageAfter(communityName, after.createAt(), after.postId(), probe);
+        if (older.size() <= wanted) {
+            List<PostRow>posts=new ArrayList<>(head);
+            posts.addAll(older);
+            return new PageResDto<>(toResponses(posts), null);
+        }
+        List<PostRow>posts=new ArrayList<>(head);
+        posts.addAll(older.subList(0, wanted));
+        // With no older post on this page the next one starts where this one would have.
+        PostCursor next=wanted == 0 ? after : new PostCursor(older.get(wanted - 1).createAt(), older.get(wanted - 1).postId());
+        return new PageResDto<>(toResponses(posts), OLDER_POSTS + next.encode());
+    }
+
+    private PageResDto<PostResDto> toTopPage(List<PostRow> posts, int pageSize) {
+        if (posts.size() <= pageSize) {
+            return new PageResDto<>(toResponses(posts), null);
+        }
+        List<PostRow>page=posts.subList(0, pageSize);
+        PostRow last=page.get(pageSize - 1);
+        return new PageResDto<>(toResponses(page), new RankCursor(last.votes(), last.postId()).encode());
+    }
+
+    // Fetch one row past the page so we know whether a next cursor exists without a count query.
+    private Pageable probe(int pageSize) {
+        return PageRequest.of(0, pageSize + 1);
+    }
+
+    private PageResDto<PostResDto> toPage(List<PostRow> posts, int pageSize) {
+        if (posts.size() <= pageSize) {
+            return new PageResDto<>(toResponses(posts), null);
+        }
+        List<PostRow>page=posts.subList(0, pageSize);
+        PostRow last=page.get(pageSize - 1);
+        return new PageResDto<>(toResponses(page), new PostCursor(last.createAt(), last.postId()).encode());
+    }
+
+    private List<PostResDto> toResponses(List<PostRow> posts) {
+        return voteBuffer.withPendingVotes(postMapper.fromRows(posts));
     }
 }
@@ -0,0 +1,353 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentSearchRow;
+import com.Reddit.reddit_clone.model.dtos.PageResDto;
+import com.Reddit.reddit_clone.model.dtos.SearchDtos.SearchHitDto;
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostRow;
+import com.Reddit.reddit_clone.model.entities.Comment;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.pagination.PostCursor;
+import com.Reddit.reddit_clone.pagination.SearchCursor;
+import com.Reddit.reddit_clone.repos.CommentRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.services.SearchService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Full-text search over post titles, post bodies and comments, backed by an
+ * embedded Lucene index ranked with BM25 (title matches weigh double).
+ * <p>
+ * The index follows the create/delete paths of posts and comments. Writes are
+ * visible to searches after the next refresh (search.refresh-interval-ms) and
+ * durable after the next commit. With an empty search.index-dir the index lives
+ * in memory.
+ * <p>
+ * Every commit records the highest post and comment id indexed so far. On startup
+ * the index catches up from there, so the posts and comments written after the
+ * last commit before a crash are indexed again; an empty index is rebuilt whole.
+ */
+@Service
+public class SearchServiceImpl implements SearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchServiceImpl.class);
+    private static final int REBUILD_BATCH = 500;
+    private static final String LAST_POST_ID = "lastPostId";
+    private static final String LAST_COMMENT_ID = "lastCommentId";
+    // Ids are handed out before their rows commit, so a few just below the mark may have been indexed after it was recorded.
+    private static final int CATCH_UP_OVERLAP = 1000;
+    private static final int SNIPPET_LENGTH = 300;
+    private static final Sort BY_SCORE = new Sort(SortField.FIELD_SCORE, new SortField("key", SortField.Type.LONG, true));
+
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private CommentRepo commentRepo;
+    @Value("${search.index-dir:search-index}")
+    private String indexDir;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final QueryBuilder queryBuilder = new QueryBuilder(analyzer);
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searchers;
+    private final AtomicInteger lastPostId = new AtomicInteger();
+    private final AtomicInteger lastCommentId = new AtomicInteger();
+
+    @PostConstruct
+    void open() throws IOException {
+        directory = indexDir.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(indexDir));
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        searchers = new SearcherManager(writer, null);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUp() throws IOException {
+        Map<String, String> committed = new HashMap<>();
+        writer.getLiveCommitData().forEach(entry -> committed.put(entry.getKey(), entry.getValue()));
+        boolean empty = writer.getDocStats().numDocs == 0;
+        int fromPost = empty ? 0 : Math.max(0, Integer.parseInt(committed.getOrDefault(LAST_POST_ID, "0")) - CATCH_UP_OVERLAP);
+        int fromComment = empty ? 0 : Math.max(0, Integer.parseInt(committed.getOrDefault(LAST_COMMENT_ID, "0")) - CATCH_UP_OVERLAP);
+
+        int toPost = indexPosts(fromPost);
+        int toComment = indexComments(fromComment);
+        commit();
+        searchers.maybeRefresh();
+        log.info("Search index {} up to post {} and comment {}", empty ? "rebuilt" : "caught up", toPost, toComment);
+    }
+
+    @Override
+    public Integer indexPostsAfter(Integer afterId) {
+        try {
+            return indexPosts(afterId);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Search index update failed: {}", e.getMessage());
+            return afterId;
+        }
+    }
+
+    @Override
+    public Integer indexCommentsAfter(Integer afterId) {
+        try {
+            return indexComments(afterId);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Search index update failed: {}", e.getMessage());
+            return afterId;
+        }
+    }
+
+    private int indexPosts(int afterId) throws IOException {
+        int last = afterId;
+        List<PostRow> page = postRepo.findRowsAfter(afterId, PageRequest.of(0, REBUILD_BATCH));
+        while (!page.isEmpty()) {
+            for (PostRow row : page) {
+                writer.updateDocument(uid("post", row.postId()),
+                        postDocument(row.postId(), row.title(), row.content(), row.communityName(), row.createAt()));
+                lastPostId.accumulateAndGet(row.postId(), Math::max);
+            }
+            last = page.get(page.size() - 1).postId();
+            page = postRepo.findRowsAfter(last, PageRequest.of(0, REBUILD_BATCH));
+        }
+        return last;
+    }
+
+    private int indexComments(int afterId) throws IOException {
+        int last = afterId;
+        List<CommentSearchRow> rows = commentRepo.findSearchRowsAfter(afterId, PageRequest.of(0, REBUILD_BATCH));
+        while (!rows.isEmpty()) {
+            for (CommentSearchRow row : rows) {
+                writer.updateDocument(uid("comment", row.commentId()),
+                        commentDocument(row.commentId(), row.postId(), row.content(), row.communityName(), row.createAt()));
+                lastCommentId.accumulateAndGet(row.commentId(), Math::max);
+            }
+            last = rows.get(rows.size() - 1).commentId();
+            rows = commentRepo.findSearchRowsAfter(last, PageRequest.of(0, REBUILD_BATCH));
+        }
+        return last;
+    }
+
+    @Override
+    public PageResDto<SearchHitDto> search(String query, String communityName, String cursor, Integer size) {
+        int pageSize = PostCursor.pageSize(size);
+        SearchCursor after = SearchCursor.decode(cursor);
+        Query text = textQuery(query);
+        if (text == null) {
+            return new PageResDto<>(List.of(), null);
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder().add(text, BooleanClause.Occur.MUST);
+        if (communityName != null && !communityName.isBlank()) {
+            builder.add(new TermQuery(new Term("community", communityName)), BooleanClause.Occur.FILTER);
+        }
+        try {
+            IndexSearcher searcher = searchers.acquire();
+            try {
+                TopFieldDocs top = after == null
+                        ? searcher.search(builder.build(), pageSize + 1, BY_SCORE, true)
+                        : searcher.searchAfter(afterDoc(searcher, after), builder.build(), pageSize + 1, BY_SCORE, true);
+                StoredFields stored = searcher.storedFields();
+                List<SearchHitDto> hits = new ArrayList<>();
+                for (int i = 0; i < Math.min(pageSize, top.scoreDocs.length); i++) {
+                    hits.add(toHit(stored.document(top.scoreDocs[i].doc), top.scoreDocs[i].score));
+                }
+                String next = null;
+                if (top.scoreDocs.length > pageSize) {
+                    FieldDoc last = (FieldDoc) top.scoreDocs[pageSize - 1];
+                    next = new SearchCursor(last.score, (Long) last.fields[1]).encode();
+                }
+                return new PageResDto<>(hits, next);
+            } finally {
+                searchers.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onPostCreated(Post post, String communityName) {
+        write(() -> {
+            writer.updateDocument(uid("post", post.getPostId()),
+                    postDocument(post.getPostId(), post.getTitle(), post.getContent(), communityName, post.getCreateAt()));
+            lastPostId.accumulateAndGet(post.getPostId(), Math::max);
+        });
+    }
+
+    @Override
+    public void onPostDeleted(Integer postId) {
+        // The post and its comments all carry the postId term.
+        write(() -> writer.deleteDocuments(new Term("postId", String.valueOf(postId))));
+    }
+
+    @Override
+    public void onCommentCreated(Comment comment, String communityName) {
+        write(() -> {
+            writer.updateDocument(uid("comment", comment.getCommentId()),
+                    commentDocument(comment.getCommentId(), comment.getPost().getPostId(), comment.getContent(),
+                            communityName, comment.getCreateAt()));
+            lastCommentId.accumulateAndGet(comment.getCommentId(), Math::max);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${search.refresh-interval-ms:1000}")
+    public void refresh() throws IOException {
+        searchers.maybeRefresh();
+    }
+
+    @Scheduled(fixedDelayString = "${search.commit-interval-ms:30000}")
+    public void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            // Read before the commit, so the mark never runs ahead of the documents it covers.
+            writer.setLiveCommitData(Map.of(LAST_POST_ID, String.valueOf(lastPostId.get()),
+                    LAST_COMMENT_ID, String.valueOf(lastCommentId.get())).entrySet());
+            writer.commit();
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        searchers.close();
+        writer.close();
+        directory.close();
+    }
+
+    private Query textQuery(String query) {
+        if (query == null || query.isBlank()) {
+            return null;
+        }
+        Query title = queryBuilder.createBooleanQuery("title", query);
+        Query content = queryBuilder.createBooleanQuery("content", query);
+        if (title == null && content == null) {
+            // Nothing left after analysis, e.g. only punctuation.
+            return null;
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        if (title != null) {
+            builder.add(new BoostQuery(title, 2f), BooleanClause.Occur.SHOULD);
+        }
+        if (content != null) {
+            builder.add(content, BooleanClause.Occur.SHOULD);
+        }
+        return builder.build();
+    }
+
+    private Document postDocument(Integer postId, String title, String content, String communityName, LocalDateTime createAt) {
+        Document doc = baseDocument("post", postId, communityName, createAt);
+        doc.add(new StringField("uid", uid("post", postId).text(), Field.Store.NO));
+        doc.add(new NumericDocValuesField("key", (long) postId << 1));
+        if (title != null) {
+            doc.add(new TextField("title", title, Field.Store.YES));
+        }
+        if (content != null) {
+            doc.add(new TextField("content", content, Field.Store.YES));
+        }
+        return doc;
+    }
+
+    private Document commentDocument(Integer commentId, Integer postId, String content, String communityName, LocalDateTime createAt) {
+        Document doc = baseDocument("comment", postId, communityName, createAt);
+        doc.add(new StringField("uid", uid("comment", commentId).text(), Field.Store.NO));
+        doc.add(new StoredField("commentId", commentId));
+        doc.add(new NumericDocValuesField("key", (long) commentId << 1 | 1));
+        if (content != null) {
+            doc.add(new TextField("content", content, Field.Store.YES));
+        }
+        return doc;
+    }
+
+    private Document baseDocument(String type, Integer postId, String communityName, LocalDateTime createAt) {
+        Document doc = new Document();
+        doc.add(new StringField("type", type, Field.Store.YES));
+        doc.add(new StringField("postId", String.valueOf(postId), Field.Store.YES));
+        if (communityName != null) {
+            doc.add(new StringField("community", communityName, Field.Store.YES));
+        }
+        if (createAt != null) {
+            doc.add(new StoredField("createAt", createAt.toString()));
+        }
+        return doc;
+    }
+
+    private SearchHitDto toHit(Document doc, float score) {
+        String content = doc.get("content");
+        String snippet = content == null || content.length() <= SNIPPET_LENGTH ? content : content.substring(0, SNIPPET_LENGTH);
+        String createAt = doc.get("createAt");
+        return new SearchHitDto(doc.get("type"),
+                Integer.valueOf(doc.get("postId")),
+                doc.getField("commentId") == null ? null : doc.getField("commentId").numericValue().intValue(),
+                doc.get("community"),
+                doc.get("title"),
+                snippet,
+                createAt == null ? null : LocalDateTime.parse(createAt),
+                score);
+    }
+
+    private static FieldDoc afterDoc(IndexSearcher searcher, SearchCursor after) {
+        // The key is unique, so the doc id only has to be high enough to exclude the cursor's own document.
+        int lastDoc = Math.max(0, searcher.getIndexReader().maxDoc() - 1);
+        return new FieldDoc(lastDoc, after.score(), new Object[]{after.score(), after.key()});
+    }
+
+    private static Term uid(String type, Integer id) {
+        return new Term("uid", type + ":" + id);
+    }
+
+    private void write(IndexAction action) {
+        try {
+            action.run();
+        } catch (IOException | RuntimeException e) {
+            // Search lags behind rather than failing the write that fed it.
+            log.warn("Search index update failed: {}", e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexAction {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,204 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.model.entities.PostSummary;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.PostSummaryRepo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Post summaries in two tiers: a bounded Caffeine map in front of the
+ * post_summaries table. Both are keyed by postId and only answer when the
+ * stored hash matches SHA-256(model, prompt, content), so an edited post or a
+ * new prompt/model simply misses and is summarized again.
+ * <p>
+ * Fresh summaries are written on summaries.cache.store-threads threads of
+ * their own, never on the WebClient event loop that completes the model call.
+ * When summaries.cache.store-queue-size writes are already waiting, the
+ * summary is returned without being kept and counted in
+ * "summaries.store.skipped".
+ * <p>
+ * Lookups are counted in "summaries.lookups" tagged tier=memory|table|miss;
+ * the memory tier also publishes the usual "post-summaries" cache metrics.
+ */
+@Component
+public class SummaryCache {
+
+    @Autowired
+    private PostSummaryRepo postSummaryRepo;
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private GeminiService geminiService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${summaries.cache.max-size:10000}")
+    private long maxSize;
+
+    private final ThreadPoolExecutor writer;
+    private Cache<Integer, CachedSummary> memory;
+    private Counter memoryHits;
+    private Counter tableHits;
+    private Counter misses;
+    private Counter skippedStores;
+
+    record CachedSummary(String contentHash, String summary) {
+    }
+
+    public SummaryCache(@Value("${summaries.cache.store-threads:2}") int storeThreads,
+                        @Value("${summaries.cache.store-queue-size:256}") int storeQueueSize) {
+        this.writer = new ThreadPoolExecutor(storeThreads, storeThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(storeQueueSize));
+    }
+
+    @PostConstruct
+    void init() {
+        memory = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "post-summaries");
+        memoryHits = lookups("memory");
+        tableHits = lookups("table");
+        misses = lookups("miss");
+        skippedStores = Counter.builder("summaries.store.skipped")
+                .description("Fresh summaries returned without being stored because the writer was busy")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdown();
+    }
+
+    public CompletableFuture<String> summarize(Integer postId, String content) {
+        String hash = hash(content);
+        Optional<String> cached = lookup(postId, hash);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        return geminiService.summarize(content).thenCompose(summary -> storeAsync(postId, hash, summary));
+    }
+
+    /** Like {@link #summarize}, but a miss is streamed chunk by chunk and stored once the model is done. */
+    public Flux<String> stream(Integer postId, String content) {
+        String hash = hash(content);
+        Optional<String> cached = lookup(postId, hash);
+        if (cached.isPresent()) {
+            return Flux.just(cached.get());
+        }
+        StringBuilder summary = new StringBuilder();
+        return geminiService.streamSummary(content)
+                .doOnNext(summary::append)
+                // Off the event loop before the blocking store; a stream that sent no text is not kept.
+                .publishOn(Schedulers.boundedElastic())
+                .doOnComplete(() -> {
+                    if (!summary.isEmpty()) {
+                        store(postId, hash, summary.toString());
+                    }
+                });
+    }
+
+    /** Called when a post goes away; edits need no call since their hash no longer matches. */
+    public void invalidate(Integer postId) {
+        memory.invalidate(postId);
+        postSummaryRepo.deleteByPostId(postId);
+    }
+
+    /** For callers that already deleted the summary rows themselves, as ArchiveJob does in bulk. */
+    public void evict(Collection<Integer> postIds) {
+        memory.invalidateAll(postIds);
+    }
+
+    private Optional<String> lookup(Integer postId, String hash) {
+        CachedSummary cached = memory.getIfPresent(postId);
+        if (cached != null && cached.contentHash().equals(hash)) {
+            memoryHits.increment();
+            return Optional.of(cached.summary());
+        }
+        Optional<PostSummary> stored = postSummaryRepo.findById(postId)
+                .filter(s -> s.getContentHash().equals(hash));
+        if (stored.isPresent()) {
+            tableHits.increment();
+            memory.put(postId, new CachedSummary(hash, stored.get().getSummary()));
+            return Optional.of(stored.get().getSummary());
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    // Completes once the summary is stored, so the next lookup finds it; skips the store rather than block when busy.
+    private CompletableFuture<String> storeAsync(Integer postId, String hash, String summary) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                store(postId, hash, summary);
+                return summary;
+            }, writer);
+        } catch (RejectedExecutionException e) {
+            skippedStores.increment();
+            return CompletableFuture.completedFuture(summary);
+        }
+    }
+
+    private void store(Integer postId, String hash, String summary) {
+        // The post may have been deleted while the model was busy; don't bring its summary back.
+        if (!postRepo.existsById(postId)) {
+            return;
+        }
+        try {
+            postSummaryRepo.save(new PostSummary(postId, hash, summary, LocalDateTime.now()));
+        } catch (DataIntegrityViolationException e) {
+            // Callers that shared one model call store it side by side; the first insert wins.
+        }
+        memory.put(postId, new CachedSummary(hash, summary));
+    }
+
+    String hash(String content) {
+        MessageDigest digest = sha256();
+        digest.update(geminiService.getModel().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(GeminiService.SUMMARY_PROMPT.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(content.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Counter lookups(String tier) {
+        return Counter.builder("summaries.lookups")
+                .description("Post summary lookups by the tier that answered")
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostRow;
+import com.Reddit.reddit_clone.model.entities.SummaryJob;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.SummaryJobRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Precomputes post summaries off the request path. New posts are queued in
+ * the summary_jobs table; the poller claims due jobs with a conditional update
+ * (so several instances can share the table) and feeds them through
+ * {@link SummaryCache}, at most summaries.jobs.workers at a time. A failed
+ * attempt is retried with exponential backoff until summaries.jobs.max-attempts;
+ * a claim whose worker died is picked up again once its lease runs out. A job
+ * turned away because the Gemini client is full (503) is not an attempt: it
+ * is simply tried again after summaries.jobs.backoff-ms.
+ * Finished jobs are deleted or rescheduled on a pool of their own, one thread
+ * per worker, never on the WebClient event loop that completes the call.
+ * <p>
+ * Publishes summaries.jobs.depth (rows in the queue, recounted every
+ * summaries.jobs.depth-interval-ms), summaries.jobs.latency
+ * (enqueue to summary stored) and summaries.jobs.failures{outcome=retried|dropped|deferred}.
+ */
+@Component
+public class SummaryJobQueue {
+    private static final Logger log = LoggerFactory.getLogger(SummaryJobQueue.class);
+
+    @Autowired
+    private SummaryJobRepo summaryJobRepo;
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private SummaryCache summaryCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${summaries.jobs.workers:2}")
+    private int workers;
+    @Value("${summaries.jobs.max-attempts:5}")
+    private int maxAttempts;
+    @Value("${summaries.jobs.backoff-ms:2000}")
+    private long backoffMs;
+    @Value("${summaries.jobs.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+    @Value("${summaries.jobs.lease-seconds:300}")
+    private long leaseSeconds;
+
+    private Semaphore slots;
+    private ThreadPoolExecutor finisher;
+    private final AtomicLong depth = new AtomicLong();
+    private Timer latency;
+    private Counter retried;
+    private Counter dropped;
+    private Counter deferred;
+
+    @PostConstruct
+    void init() {
+        slots = new Semaphore(workers);
+        // Each claimed slot finishes once, so the queue can never overflow.
+        finisher = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers));
+        Gauge.builder("summaries.jobs.depth", depth, AtomicLong::get)
+                .description("Summary jobs waiting or running")
+                .register(meterRegistry);
+        latency = Timer.builder("summaries.jobs.latency")
+                .description("Time from enqueueing a post to its summary being stored")
+                .register(meterRegistry);
+        retried = failures("retried");
+        dropped = failures("dropped");
+        deferred = failures("deferred");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        finisher.shutdown();
+    }
+
+    public void enqueue(Integer postId) {
+        summaryJobRepo.enqueue(postId, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${summaries.jobs.poll-interval-ms:1000}")
+    public void poll() {
+        int free = slots.availablePermits();
+        if (free == 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (SummaryJob job : summaryJobRepo.findDue(now, PageRequest.of(0, free))) {
+            if (!slots.tryAcquire()) {
+                return;
+            }
+            if (summaryJobRepo.claim(job.getPostId(), now, now.plusSeconds(leaseSeconds)) == 0) {
+                // Another instance got there first.
+                slots.release();
+                continue;
+            }
+            try {
+                run(job, job.getAttempts() + 1);
+            } catch (RuntimeException e) {
+                slots.release();
+                log.warn("Could not start summary job for post {}: {}", job.getPostId(), e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${summaries.jobs.depth-interval-ms:30000}")
+    public void refreshDepth() {
+        depth.set(summaryJobRepo.count());
+    }
+
+    private void run(SummaryJob job, int attempt) {
+        Integer postId = job.getPostId();
+        Optional<PostRow> post = postRepo.findRowById(postId);
+        if (post.isEmpty() || post.get().content() == null || post.get().content().isBlank()) {
+            summaryJobRepo.deleteByPostId(postId);
+            slots.release();
+            return;
+        }
+        summaryCache.summarize(postId, post.get().content()).whenCompleteAsync((summary, e) -> {
+            try {
+                if (e == null) {
+                    summaryJobRepo.deleteByPostId(postId);
+                    latency.record(Duration.between(job.getCreateAt(), LocalDateTime.now()));
+                } else {
+                    fail(postId, attempt, e);
+                }
+            } catch (RuntimeException error) {
+                // The lease runs out and another poll retries the job.
+                log.warn("Could not finish summary job for post {}: {}", postId, error.getMessage());
+            } finally {
+                slots.release();
+            }
+        }, finisher);
+    }
+
+    private void fail(Integer postId, int attempt, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        String message = cause instanceof ResponseStatusException status ? status.getReason() : cause.getMessage();
+        if (cause instanceof ResponseStatusException status && status.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+            // Backpressure from the client's bulkhead; the model was never asked.
+            summaryJobRepo.defer(postId, LocalDateTime.now().plus(Duration.ofMillis(backoffMs)));
+            deferred.increment();
+            return;
+        }
+        if (attempt >= maxAttempts) {
+            summaryJobRepo.deleteByPostId(postId);
+            dropped.increment();
+            log.warn("Giving up on the summary of post {} after {} attempts: {}", postId, attempt, message);
+            return;
+        }
+        long delay = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+        String error = message == null ? null : message.substring(0, Math.min(message.length(), 500));
+        summaryJobRepo.reschedule(postId, LocalDateTime.now().plus(Duration.ofMillis(delay)), error);
+        retried.increment();
+    }
+
+    private Counter failures(String outcome) {
+        return Counter.builder("summaries.jobs.failures")
+                .description("Failed summary job attempts")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -26,13 +26,24 @@ public class UserServicesImpl implements UserServices
     private UserRepo userRepo;
     @Autowired
     private UserMapper userMapper;
+    @Autowired
+    private MediaUploads mediaUploads;
+    @Autowired
+    private MediaRefs mediaRefs;
     @Override
     public UserResDto createAccount(UserReqDto dto, MultipartFile image) throws IOException {
         User user=userMapper.toEntity(dto);
-        user.setImageName(image.getOriginalFilename());
-        user.setImageType(image.getContentType());
-        user.setImage(image.getBytes());
-        return userMapper.toResponse(Optional.of(userRepo.save(user)));
+        MediaUploads.Attached attached = mediaUploads.attach(image, dto.getImageKey());
+        user.setImageKey(attached == null ? null : attached.key());
+        user.setImageName(attached == null ? null : attached.name());
+        user.setImageType(attached == null ? null : attached.contentType());
+        try {
+            return userMapper.toResponse(Optional.of(userRepo.save(user)));
+        } catch (RuntimeException e) {
+            // No account points at the image after all.
+            mediaRefs.release(user.getImageKey());
+            throw e;
+        }
     }
 
     @Override
@@ -74,10 +85,28 @@ public class UserServicesImpl implements UserServices
             if(dto.getPhoneNumber() != null){
                 user.get().setPhoneNumber(dto.getPhoneNumber().trim().isEmpty() ? null : dto.getPhoneNumber().trim());
             }
-            user.get().setImageName(image.getOriginalFilename());
-            user.get().setImageType(image.getContentType());
-            user.get().setImage(image.getBytes());
-            return userMapper.toResponse(Optional.of(userRepo.save(user.get())));
+            String previousKey = user.get().getImageKey();
+            MediaUploads.Attached attached = mediaUploads.attach(image, dto.getImageKey());
+            if (attached != null) {
+                user.get().setImageName(attached.name());
+                user.get().setImageType(attached.contentType());
+                user.get().setImageKey(attached.key());
+            }
+            UserResDto saved;
+            try {
+                saved = userMapper.toResponse(Optional.of(userRepo.save(user.get())));
+            } catch (RuntimeException e) {
+                // The profile still points at the previous image; drop the hold on the new one.
+                if (attached != null) {
+                    mediaRefs.release(attached.key());
+                }
+                throw e;
+            }
+            if (attached != null) {
+                // Also balances the extra hold when the same picture was uploaded again.
+                mediaRefs.release(previousKey);
+            }
+            return saved;
 
         }
         else {
@@ -89,8 +118,14 @@ public class UserServicesImpl implements UserServices
     public String deleteAccount(String userEmail) {
         Optional<User>user=userRepo.findByEmail(userEmail);
         if(user.isPresent()){
+            String imageKey = user.get().getImageKey();
             user.get().setDeleteAt(LocalDateTime.now());
+            // The row stays (soft delete), but nothing shows the avatar any more, so its reference goes.
+            user.get().setImageKey(null);
+            user.get().setImageName(null);
+            user.get().setImageType(null);
             userRepo.save(user.get());
+            mediaRefs.release(imageKey);
             return "Account delete successfully from the website ....\n";
         }
         return "The user is not here already ....\n";
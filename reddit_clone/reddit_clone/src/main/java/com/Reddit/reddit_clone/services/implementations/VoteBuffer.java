@@ -0,0 +1,229 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostResDto;
+import com.Reddit.reddit_clone.model.entities.VoteTarget;
+import com.Reddit.reddit_clone.repos.CommentRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Absorbs post and comment vote deltas in memory and writes them behind in batches.
+ * Voting threads only touch a striped counter; the scheduler turns everything that
+ * piled up for one target into a single "votes = votes + delta" update.
+ * A drained delta keeps counting in {@link #pendingDelta} until its update has
+ * committed, so scores read during a flush do not dip.
+ */
+@Component
+public class VoteBuffer {
+    private static final Logger log = LoggerFactory.getLogger(VoteBuffer.class);
+
+    @Autowired
+    private CommentRepo commentRepo;
+    @Autowired
+    private PostRepo postRepo;
+
+    private final Map<VoteTarget, Map<Integer, StripedCounter>> pending = new EnumMap<>(VoteTarget.class);
+    // Counters unmapped while a writer was still inside add; drained for good once it has left.
+    private List<StripedCounter> retiring = new ArrayList<>();
+
+    public VoteBuffer() {
+        for (VoteTarget target : VoteTarget.values()) {
+            pending.put(target, new ConcurrentHashMap<>());
+        }
+    }
+
+    public void add(VoteTarget target, Integer targetId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        // A counter retired under us refuses the add; the next lookup maps a fresh one.
+        while (!pending.get(target).computeIfAbsent(targetId, id -> new StripedCounter(target, id)).tryAdd(delta)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /** Votes accepted for the target whose update has not committed yet. */
+    public long pendingDelta(VoteTarget target, Integer targetId) {
+        StripedCounter counter = pending.get(target).get(targetId);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /** Adds the pending deltas to posts read from the table, so every post read shows the same score. */
+    public List<PostResDto> withPendingVotes(List<PostResDto> posts) {
+        posts.forEach(this::withPendingVotes);
+        return posts;
+    }
+
+    public PostResDto withPendingVotes(PostResDto post) {
+        post.setVotes((int) (post.getVotes() + pendingDelta(VoteTarget.POST, post.getPostId())));
+        return post;
+    }
+
+    @Scheduled(fixedDelayString = "${votes.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<StripedCounter> stillRetiring = retiring;
+        retiring = new ArrayList<>();
+        stillRetiring.forEach(this::finishRetiring);
+        for (Map<Integer, StripedCounter> counters : pending.values()) {
+            for (Map.Entry<Integer, StripedCounter> entry : counters.entrySet()) {
+                StripedCounter counter = entry.getValue();
+                long delta = counter.drain();
+                if (delta != 0) {
+                    write(counter, delta);
+                } else if (counters.remove(entry.getKey(), counter)) {
+                    counter.retire();
+                    finishRetiring(counter);
+                }
+            }
+        }
+    }
+
+    // Once no writer is inside tryAdd, none can add anymore and the last drain is final.
+    private void finishRetiring(StripedCounter counter) {
+        if (counter.writing()) {
+            retiring.add(counter);
+        } else {
+            write(counter, counter.drain());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        flush();
+    }
+
+    private void write(StripedCounter counter, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        try {
+            if (counter.target == VoteTarget.POST) {
+                postRepo.addVotes(counter.targetId, (int) delta);
+            } else {
+                commentRepo.addVotes(counter.targetId, (int) delta);
+            }
+        } catch (RuntimeException e) {
+            // Keep the delta for the next round instead of dropping votes.
+            log.warn("Could not flush {} votes for {} {}: {}", delta, counter.target, counter.targetId, e.getMessage());
+            add(counter.target, counter.targetId, (int) delta);
+        } finally {
+            counter.settle(delta);
+        }
+    }
+
+    /**
+     * LongAdder-style counter whose stripes can be drained exactly with getAndSet,
+     * which LongAdder.sumThenReset does not guarantee under concurrent adds.
+     */
+    static final class StripedCounter {
+        // 8 longs per stripe keeps neighbouring stripes on separate cache lines. Slot 0 is the count,
+        // slot 1 the number of writers inside tryAdd on that stripe.
+        private static final int PAD = 8;
+        private static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2);
+
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+        // Orders drain against sum; add never takes it.
+        private final StampedLock lock = new StampedLock();
+        private final VoteTarget target;
+        private final Integer targetId;
+        // Drained but not settled yet; guarded by lock.
+        private long inFlight;
+        private volatile boolean retired;
+
+        StripedCounter(VoteTarget target, Integer targetId) {
+            this.target = target;
+            this.targetId = targetId;
+        }
+
+        /** Adds delta unless the counter has been retired, in which case the caller must use a fresh one. */
+        boolean tryAdd(long delta) {
+            int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+            cells.incrementAndGet(stripe * PAD + 1);
+            try {
+                if (retired) {
+                    return false;
+                }
+                cells.addAndGet(stripe * PAD, delta);
+                return true;
+            } finally {
+                cells.decrementAndGet(stripe * PAD + 1);
+            }
+        }
+
+        // Writers announce themselves before reading retired and the flush sets retired before counting writers,
+        // so a writer either sees the flag or is seen by writing().
+        void retire() {
+            retired = true;
+        }
+
+        boolean writing() {
+            for (int i = 0; i < STRIPES; i++) {
+                if (cells.get(i * PAD + 1) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Unflushed plus in-flight; a drain never makes a delta disappear from here before it is settled. */
+        long sum() {
+            long stamp = lock.tryOptimisticRead();
+            long sum = cellSum() + inFlight;
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    sum = cellSum() + inFlight;
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return sum;
+        }
+
+        /** Moves what the stripes hold to in-flight and returns it; the caller settles it once written. */
+        long drain() {
+            long stamp = lock.writeLock();
+            try {
+                long sum = 0;
+                for (int i = 0; i < STRIPES; i++) {
+                    sum += cells.getAndSet(i * PAD, 0);
+                }
+                inFlight += sum;
+                return sum;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void settle(long delta) {
+            long stamp = lock.writeLock();
+            try {
+                inFlight -= delta;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private long cellSum() {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += cells.get(i * PAD);
+            }
+            return sum;
+        }
+    }
+}
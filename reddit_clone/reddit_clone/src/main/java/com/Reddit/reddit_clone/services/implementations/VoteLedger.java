@@ -0,0 +1,131 @@
+package com.Reddit.reddit_clone.services.implementations;
+
+import com.Reddit.reddit_clone.model.entities.Vote;
+import com.Reddit.reddit_clone.model.entities.VoteId;
+import com.Reddit.reddit_clone.model.entities.VoteTarget;
+import com.Reddit.reddit_clone.repos.VoteRepo;
+import com.Reddit.reddit_clone.utils.BloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+
+/**
+ * Records who voted on what so a vote counts once per user.
+ * Recent votes are remembered exactly (votes.cache.max-size entries), so a repeat
+ * or a flip is settled without reading the database. For everything else a Bloom
+ * filter, filled from the votes table at startup, answers "has this user never
+ * voted here"; only possible repeats it cannot rule out fall through to a
+ * primary-key lookup. A first vote checks that the user and the target exist.
+ */
+@Component
+public class VoteLedger {
+    private static final Logger log = LoggerFactory.getLogger(VoteLedger.class);
+
+    @Autowired
+    private VoteRepo voteRepo;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final BloomFilter seen;
+    // Exact (user, target) -> direction for recent voters; a miss says nothing.
+    private final Cache<Long, Byte> known;
+
+    public VoteLedger(@Value("${votes.bloom.expected-insertions:10000000}") long expectedInsertions,
+                      @Value("${votes.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                      @Value("${votes.cache.max-size:1000000}") long cacheSize) {
+        this.seen = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.known = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /** Fills the filter from the votes table, so votes cast before a restart are not mistaken for first votes. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long[] rows = {0};
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("select user_id, target_type, target_id from votes");
+            statement.setFetchSize(10_000);
+            return statement;
+        }, row -> {
+            seen.put(key(row.getInt(1), VoteTarget.values()[row.getInt(2)], row.getInt(3)));
+            rows[0]++;
+        });
+        log.info("Vote filter loaded with {} votes", rows[0]);
+    }
+
+    /**
+     * Records the vote and returns how much the target's score has to move:
+     * the full value for a first vote, 0 for a repeat, and +/-2 when the user flips direction.
+     */
+    public int record(Integer userId, VoteTarget target, Integer targetId, int value) {
+        long key = key(userId, target, targetId);
+        byte vote = (byte) Integer.signum(value);
+        VoteId id = new VoteId(userId, target, targetId);
+        Byte cached = known.getIfPresent(key);
+        if (cached != null) {
+            if (cached == vote) {
+                return 0;
+            }
+            if (voteRepo.changeVote(id, cached, vote) == 1) {
+                known.put(key, vote);
+                return vote - cached;
+            }
+            // Changed behind this cache (another instance); settle it from the row below.
+            known.invalidate(key);
+        } else if (!seen.mightContain(key)) {
+            return insert(key, userId, target, targetId, vote) ? vote : settle(key, id, vote);
+        }
+        return settle(key, id, vote);
+    }
+
+    private int settle(long key, VoteId id, byte vote) {
+        Optional<Vote> existing = voteRepo.findById(id);
+        if (existing.isEmpty()) {
+            return insert(key, id.getUserId(), id.getTargetType(), id.getTargetId(), vote) ? vote : 0;
+        }
+        seen.put(key);
+        byte previous = existing.get().getValue();
+        if (previous == vote) {
+            known.put(key, vote);
+            return 0;
+        }
+        if (voteRepo.changeVote(id, previous, vote) == 1) {
+            known.put(key, vote);
+            return vote - previous;
+        }
+        return 0;
+    }
+
+    private boolean insert(long key, Integer userId, VoteTarget target, Integer targetId, byte vote) {
+        // The votes table cannot reference two tables from one column, so first votes check their target here.
+        boolean exists = (target == VoteTarget.POST
+                ? voteRepo.userAndPostExist(userId, targetId)
+                : voteRepo.userAndCommentExist(userId, targetId)) == 1;
+        if (!exists) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No such user or " + target.name().toLowerCase());
+        }
+        try {
+            voteRepo.insertVote(userId, target.ordinal(), targetId, vote);
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+        seen.put(key);
+        known.put(key, vote);
+        return true;
+    }
+
+    private static long key(Integer userId, VoteTarget target, Integer targetId) {
+        return (((long) userId) << 32 | (targetId & 0xffffffffL)) ^ ((long) target.ordinal() << 62);
+    }
+}
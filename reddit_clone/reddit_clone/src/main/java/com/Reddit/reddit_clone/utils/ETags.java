@@ -0,0 +1,37 @@
+package com.Reddit.reddit_clone.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Weak entity tags for JSON reads. A tag is built from a few cheap values that
+ * change whenever the response would (a row version, a vote count, a joined
+ * name) rather than from the serialized body, so an unchanged resource can be
+ * answered with 304 before anything is written.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /** W/"&lt;first 64 bits of SHA-256 over parts&gt;"; parts may be null. */
+    public static String weak(Object... parts) {
+        MessageDigest digest = sha256();
+        for (Object part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            // Separator, so ("ab", "c") and ("a", "bc") differ.
+            digest.update((byte) 0);
+        }
+        return "W/\"" + HexFormat.of().formatHex(digest.digest(), 0, 8) + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.Reddit.reddit_clone.utils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Materialized paths for comment threads. A path is the concatenation of one
+ * fixed-width segment per ancestor plus one for the node itself, so sorting by
+ * path yields a depth-first walk and a whole subtree is the range
+ * {@code [path, path + SUBTREE_END)}.
+ * <p>
+ * Segments are time-ordered keys made up before the insert, which keeps a new
+ * comment a single INSERT and lists siblings oldest first.
+ * <p>
+ * The ranges rely on paths comparing by character code, so on SQL Server the
+ * path columns use a binary collation (migration V5); H2 compares that way already.
+ */
+public final class MaterializedPath {
+
+    public static final int SEGMENT_LENGTH = 12;
+    /** Sorts after every character a segment can contain. */
+    public static final String SUBTREE_END = "~";
+    public static final int MAX_DEPTH = 49;
+
+    private static final int KEY_WIDTH = SEGMENT_LENGTH - 1;
+    private static final AtomicLong LAST_KEY = new AtomicLong();
+
+    private MaterializedPath() {
+    }
+
+    /** A fresh segment that sorts after every segment this JVM handed out before. */
+    public static String nextSegment() {
+        long floor = System.currentTimeMillis() * 1000;
+        long key = LAST_KEY.updateAndGet(last -> Math.max(floor, last + 1));
+        return segment(key);
+    }
+
+    /** Segment for a comment stored before paths existed, ordered by its creation time. */
+    public static String legacySegment(LocalDateTime createAt, Integer commentId) {
+        long millis = createAt == null ? 0 : createAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+        return segment(millis * 1000 + Math.floorMod(commentId, 1000));
+    }
+
+    public static String child(String parentPath, String segment) {
+        return parentPath + segment;
+    }
+
+    public static int depth(String path) {
+        return path.length() / SEGMENT_LENGTH - 1;
+    }
+
+    public static String parent(String path) {
+        return path.substring(0, path.length() - SEGMENT_LENGTH);
+    }
+
+    public static String subtreeEnd(String path) {
+        return path + SUBTREE_END;
+    }
+
+    private static String segment(long key) {
+        StringBuilder sb = new StringBuilder(Long.toString(key, 36));
+        while (sb.length() < KEY_WIDTH) {
+            sb.insert(0, '0');
+        }
+        return sb.append('/').toString();
+    }
+}
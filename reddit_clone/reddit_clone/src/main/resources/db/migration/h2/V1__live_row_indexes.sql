@@ -0,0 +1,10 @@
+-- H2 has neither filtered indexes nor included columns; these cover every row and only keep
+-- the index names in step with the SQL Server schema.
+
+create index ix_users_live_email on users (email);
+
+create index ix_users_live_id on users (user_id);
+
+create index ix_communities_live_name on communities (community_name);
+
+create index ix_communities_live_id on communities (community_id);
@@ -0,0 +1,60 @@
+-- Rows moved out of the hot tables by ArchiveJob. Same columns as the live tables plus
+-- archived_at; no foreign keys, so rows can be archived in any order.
+
+create table posts_archive (
+    post_id int not null primary key,
+    title varchar(255),
+    content varchar(255),
+    create_at timestamp(6),
+    image_name varchar(255),
+    image_type varchar(255),
+    image_key varchar(255),
+    votes int not null,
+    user_id int,
+    community_id int,
+    archived_at timestamp(6) default current_timestamp not null
+);
+create index ix_posts_archive_community on posts_archive (community_id, create_at);
+
+create table comments_archive (
+    comment_id int not null primary key,
+    content varchar(255),
+    create_at timestamp(6),
+    update_at timestamp(6),
+    is_edited boolean not null,
+    votes int not null,
+    post_id int,
+    user_id int,
+    parent_id int,
+    path varchar(600),
+    depth int not null,
+    archived_at timestamp(6) default current_timestamp not null
+);
+create index ix_comments_archive_thread on comments_archive (post_id, path);
+
+create table users_archive (
+    user_id int not null primary key,
+    user_name varchar(255),
+    email varchar(255),
+    password varchar(255),
+    phone_number varchar(255),
+    create_at timestamp(6),
+    update_at timestamp(6),
+    delete_at timestamp(6),
+    image_name varchar(255),
+    image_type varchar(255),
+    image_key varchar(255),
+    archived_at timestamp(6) default current_timestamp not null
+);
+
+create table communities_archive (
+    community_id int not null primary key,
+    community_name varchar(255),
+    community_desc varchar(255),
+    create_at timestamp(6),
+    update_at timestamp(6),
+    delete_at timestamp(6),
+    member_count int not null,
+    user_id int,
+    archived_at timestamp(6) default current_timestamp not null
+);
@@ -0,0 +1,4 @@
+-- posts gained update_at and version (the ETag validator); the archive keeps the same columns.
+
+alter table posts_archive add column update_at timestamp(6);
+alter table posts_archive add column version bigint default 0 not null;
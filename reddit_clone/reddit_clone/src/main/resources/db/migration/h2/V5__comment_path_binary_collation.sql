@@ -0,0 +1,3 @@
+-- Kept so both migration sets share their version numbers. The SQL Server V5 switches
+-- comments.path to a binary collation so path ranges compare by character code; H2
+-- already compares varchar columns that way, so there is nothing to change here.
@@ -0,0 +1,6 @@
+-- communities gained member_count, which MembershipService keeps in step with community_members.
+-- Communities that had members before the column existed start at 0; count them once here.
+
+update communities set member_count = (
+    select count(*) from community_members m where m.community_id = communities.community_id
+) where member_count = 0;
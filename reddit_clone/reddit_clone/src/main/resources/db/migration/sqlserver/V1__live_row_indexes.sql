@@ -0,0 +1,15 @@
+-- Users and communities are soft-deleted, and every query on them carries "delete_at is null"
+-- (the @Where on both entities). These indexes hold only the live rows, so they stay small
+-- however many accounts and communities have been deleted.
+
+-- Login and profile lookups by email.
+create index ix_users_live_email on users (email) where delete_at is null;
+
+-- The author join of every post and comment projection.
+create index ix_users_live_id on users (user_id) include (user_name, email) where delete_at is null;
+
+-- Community lookups by name.
+create index ix_communities_live_name on communities (community_name) include (member_count) where delete_at is null;
+
+-- The community join of every post projection.
+create index ix_communities_live_id on communities (community_id) include (community_name) where delete_at is null;
@@ -0,0 +1,18 @@
+-- How many posts and users (live or archived) point at each stored image. MediaRefs keeps
+-- the counts; an image whose count has been 0 for media.gc.grace-ms is deleted from the store.
+
+create table media_refs (
+    media_key varchar(64) not null primary key,
+    ref_count int not null,
+    released_at datetime2(6)
+);
+create index ix_media_refs_released on media_refs (released_at) where ref_count = 0;
+
+insert into media_refs (media_key, ref_count)
+select image_key, count(*) from (
+    select image_key from posts where image_key is not null
+    union all select image_key from users where image_key is not null
+    union all select image_key from posts_archive where image_key is not null
+    union all select image_key from users_archive where image_key is not null
+) refs
+group by image_key;
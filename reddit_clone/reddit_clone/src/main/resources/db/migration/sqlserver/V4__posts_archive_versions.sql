@@ -0,0 +1,4 @@
+-- posts gained update_at and version (the ETag validator); the archive keeps the same columns.
+
+alter table posts_archive add update_at datetime2(6) null;
+alter table posts_archive add version bigint not null default 0;
@@ -0,0 +1,19 @@
+-- Thread subtrees are read as the path range [path, path + '~'), which assumes paths compare
+-- by character code. The default SQL_Latin1_General / Windows collations sort punctuation
+-- such as '~' before digits and letters, so the path columns are switched to a binary
+-- collation. Paths only hold [0-9a-z/], so nothing else changes. The indexes on the column
+-- have to be dropped for the change and are rebuilt with the new ordering. They may be
+-- missing on a schema that Hibernate did not create, so every drop is guarded.
+
+if exists (select 1 from sys.indexes where name = 'ix_comments_thread' and object_id = object_id('comments'))
+    drop index ix_comments_thread on comments;
+if exists (select 1 from sys.indexes where name = 'ix_comments_level' and object_id = object_id('comments'))
+    drop index ix_comments_level on comments;
+alter table comments alter column path varchar(600) collate Latin1_General_BIN2 null;
+create index ix_comments_thread on comments (post_id, path);
+create index ix_comments_level on comments (post_id, depth, path);
+
+if exists (select 1 from sys.indexes where name = 'ix_comments_archive_thread' and object_id = object_id('comments_archive'))
+    drop index ix_comments_archive_thread on comments_archive;
+alter table comments_archive alter column path varchar(600) collate Latin1_General_BIN2 null;
+create index ix_comments_archive_thread on comments_archive (post_id, path);
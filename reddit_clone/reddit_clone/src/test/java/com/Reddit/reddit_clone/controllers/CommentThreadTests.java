@@ -0,0 +1,188 @@
+package com.Reddit.reddit_clone.controllers;
+
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentNodeDto;
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentReqDto;
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentResDto;
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentThreadPageDto;
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.implementations.CommentServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Threads come back as limited subtrees, and every cut leaves a token that loads the rest.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CommentThreadTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private CommentServiceImpl commentService;
+
+    private Integer postId;
+    private Integer userId;
+
+    @BeforeAll
+    void seed() throws Exception {
+        User user = new User();
+        user.setUserName("threads");
+        user.setEmail("threads@reddit.test");
+        user.setPassword("secret");
+        user.setPhoneNumber("0300");
+        userRepo.save(user);
+        userId = user.getUserId();
+        Community community = new Community();
+        community.setCommunityName("threads");
+        community.setCreatedBy(user);
+        communityRepo.save(community);
+        Post post = new Post();
+        post.setTitle("megathread");
+        post.setContent("talk");
+        post.setUser(user);
+        post.setCommunity(community);
+        postRepo.save(post);
+        postId = post.getPostId();
+
+        // First root: 7 direct replies, the first of which starts a chain 5 levels deep.
+        Integer first = reply(null, "root 0");
+        Integer chain = reply(first, "reply 0");
+        for (int i = 1; i < 7; i++) {
+            reply(first, "reply " + i);
+        }
+        for (int level = 2; level <= 5; level++) {
+            chain = reply(chain, "level " + level);
+        }
+        for (int i = 1; i < 12; i++) {
+            reply(null, "root " + i);
+        }
+    }
+
+    @Test
+    void firstScreenIsTwoStatements() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        threads("");
+        // The roots, then one range scan over their subtrees.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void aLargeFirstSubtreeCannotCrowdOutTheOtherRoots() throws Exception {
+        Object before = ReflectionTestUtils.getField(commentService, "threadMaxRows");
+        ReflectionTestUtils.setField(commentService, "threadMaxRows", 3);
+        try {
+            CommentThreadPageDto page = threads("");
+            assertThat(page.getThreads()).extracting(n -> n.getComment().getContent())
+                    .containsExactly("root 0", "root 1", "root 2", "root 3", "root 4", "root 5", "root 6", "root 7",
+                            "root 8", "root 9");
+            assertThat(page.getNextCursor()).isNotNull();
+            CommentNodeDto first = page.getThreads().get(0);
+            assertThat(first.getReplies()).extracting(n -> n.getComment().getContent()).containsExactly("reply 0");
+            assertThat(threads("&cursor=" + first.getMoreReplies()).getThreads()).extracting(n -> n.getComment().getContent())
+                    .containsExactly("reply 1", "reply 2", "reply 3", "reply 4", "reply 5", "reply 6");
+            // Roots the scan never reached keep a token for their replies.
+            assertThat(page.getThreads().get(9).getMoreReplies()).isNotNull();
+        } finally {
+            ReflectionTestUtils.setField(commentService, "threadMaxRows", before);
+        }
+    }
+
+    @Test
+    void rootsArePagedWithACursor() throws Exception {
+        CommentThreadPageDto first = threads("");
+        assertThat(first.getThreads()).hasSize(10);
+        assertThat(first.getThreads().get(0).getComment().getContent()).isEqualTo("root 0");
+        assertThat(first.getNextCursor()).isNotNull();
+
+        CommentThreadPageDto second = threads("&cursor=" + first.getNextCursor());
+        assertThat(second.getThreads()).extracting(n -> n.getComment().getContent())
+                .containsExactly("root 10", "root 11");
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void wideNodesAreCutAtTheBreadthLimit() throws Exception {
+        CommentNodeDto root = threads("").getThreads().get(0);
+        assertThat(root.getReplies()).extracting(n -> n.getComment().getContent())
+                .containsExactly("reply 0", "reply 1", "reply 2", "reply 3", "reply 4");
+        assertThat(root.getMoreReplies()).isNotNull();
+
+        CommentThreadPageDto rest = threads("&cursor=" + root.getMoreReplies());
+        assertThat(rest.getThreads()).extracting(n -> n.getComment().getContent())
+                .containsExactly("reply 5", "reply 6");
+    }
+
+    @Test
+    void deepChainsAreCutAtTheDepthLimit() throws Exception {
+        CommentNodeDto node = threads("").getThreads().get(0);
+        for (int level = 0; level < 3; level++) {
+            node = node.getReplies().get(0);
+        }
+        assertThat(node.getComment().getContent()).isEqualTo("level 3");
+        assertThat(node.getReplies()).isEmpty();
+        assertThat(node.getMoreReplies()).isNotNull();
+
+        List<CommentNodeDto> deeper = threads("&cursor=" + node.getMoreReplies()).getThreads();
+        assertThat(deeper).extracting(n -> n.getComment().getContent()).containsExactly("level 4");
+        assertThat(deeper.get(0).getReplies()).extracting(n -> n.getComment().getContent()).containsExactly("level 5");
+    }
+
+    private Integer reply(Integer parentId, String content) throws Exception {
+        CommentReqDto dto = new CommentReqDto(content, postId, parentId);
+        String body = mockMvc.perform(post("/add-comment?userId=" + userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, CommentResDto.class).getCommentId();
+    }
+
+    private CommentThreadPageDto threads(String query) throws Exception {
+        String body = mockMvc.perform(get("/get-comment-threads?postId=" + postId + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, CommentThreadPageDto.class);
+    }
+}
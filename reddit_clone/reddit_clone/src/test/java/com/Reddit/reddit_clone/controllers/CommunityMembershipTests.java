@@ -0,0 +1,119 @@
+package com.Reddit.reddit_clone.controllers;
+
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.MembershipService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Joining writes one membership row and bumps memberCount, whatever the community's size.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CommunityMembershipTests {
+
+    private static final int CROWD = 200;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private MembershipService membershipService;
+
+    @BeforeAll
+    void seed() {
+        User owner = user("owner");
+        community("empty", owner);
+        Community crowded = community("crowded", owner);
+        for (int i = 0; i < CROWD; i++) {
+            membershipService.join(user("member" + i).getUserId(), crowded.getCommunityId());
+        }
+        user("joiner");
+        user("twice");
+    }
+
+    @Test
+    void joiningCountsTheMember() throws Exception {
+        join("twice", "empty", "Completely joined");
+        join("twice", "empty", "already in the community");
+        mockMvc.perform(get("/community-details?communityName=empty"))
+                .andExpect(jsonPath("$.memberCount").value(1));
+        mockMvc.perform(get("/community-details?communityName=crowded"))
+                .andExpect(jsonPath("$.memberCount").value(CROWD));
+    }
+
+    @Test
+    void joiningACrowdedCommunityCostsTheSameAsAnEmptyOne() throws Exception {
+        // Warm the community cache so both joins start from the same state.
+        mockMvc.perform(get("/community-details?communityName=crowded"));
+        mockMvc.perform(get("/community-details?communityName=empty"));
+        User joiner = userRepo.findByEmail("joiner@reddit.test").orElseThrow();
+        long crowded = statementsToJoin("joiner", "crowded");
+        long empty = statementsToJoin("joiner", "empty");
+        assertThat(crowded).isEqualTo(empty);
+        assertThat(membershipService.isMember(joiner.getUserId(),
+                communityRepo.findByCommunityName("crowded").orElseThrow().getCommunityId())).isTrue();
+    }
+
+    private long statementsToJoin(String userName, String communityName) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        join(userName, communityName, "Completely joined");
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void join(String userName, String communityName, String expected) throws Exception {
+        mockMvc.perform(post("/join-community")
+                        .param("userEmail", userName + "@reddit.test")
+                        .param("communityName", communityName))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(expected)));
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setUserName(name);
+        user.setEmail(name + "@reddit.test");
+        user.setPassword("secret");
+        user.setPhoneNumber("04" + name);
+        return userRepo.save(user);
+    }
+
+    private Community community(String name, User owner) {
+        Community community = new Community();
+        community.setCommunityName(name);
+        community.setCreatedBy(owner);
+        return communityRepo.save(community);
+    }
+}
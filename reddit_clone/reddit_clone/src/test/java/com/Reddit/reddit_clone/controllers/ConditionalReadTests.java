@@ -0,0 +1,166 @@
+package com.Reddit.reddit_clone.controllers;
+
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Read endpoints carry weak ETags built from row versions and the few values
+ * that change without them, and answer a matching If-None-Match with an empty
+ * 304. Media is cacheable for good.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConditionalReadTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private PostRepo postRepo;
+
+    private User author;
+    private Post post;
+
+    @BeforeAll
+    void seed() {
+        author = user("poller");
+        Community community = new Community();
+        community.setCommunityName("polls");
+        community.setCreatedBy(author);
+        communityRepo.save(community);
+        post = new Post();
+        post.setTitle("first");
+        post.setContent("content");
+        post.setUser(author);
+        post.setCommunity(community);
+        postRepo.save(post);
+    }
+
+    @Test
+    void unchangedPostIsNotSentAgain() throws Exception {
+        Supplier<MockHttpServletRequestBuilder> read = () -> get("/get-post").param("postId", String.valueOf(post.getPostId()));
+        MockHttpServletResponse first = mockMvc.perform(read.get()).andExpect(status().isOk()).andReturn().getResponse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("W/\"");
+        assertThat(first.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-cache");
+        assertThat(first.getContentAsString()).doesNotContain("version");
+
+        MockHttpServletResponse again = revalidate(read, etag, 304);
+        assertThat(again.getContentAsByteArray()).isEmpty();
+        assertThat(again.getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+
+        // A vote still sitting in the buffer changes the answer.
+        mockMvc.perform(post("/up-vote-post").param("postId", String.valueOf(post.getPostId()))
+                .param("userId", String.valueOf(user("voter").getUserId()))).andExpect(status().isOk());
+        String voted = revalidate(read, etag, 200).getHeader(HttpHeaders.ETAG);
+        assertThat(voted).isNotEqualTo(etag);
+
+        // So does an edit, through the version.
+        Post stored = postRepo.findById(post.getPostId()).orElseThrow();
+        stored.setTitle("edited");
+        postRepo.save(stored);
+        assertThat(postRepo.findById(post.getPostId()).orElseThrow().getVersion()).isEqualTo(1);
+        revalidate(read, voted, 200);
+    }
+
+    @Test
+    void communityPagesAndDetailsRevalidate() throws Exception {
+        Supplier<MockHttpServletRequestBuilder> page = () -> get("/get-community-posts").param("communityName", "polls");
+        String pageTag = mockMvc.perform(page.get()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        revalidate(page, pageTag, 304);
+
+        Supplier<MockHttpServletRequestBuilder> details = () -> get("/community-details").param("communityName", "polls");
+        String detailsTag = mockMvc.perform(details.get()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        revalidate(details, detailsTag, 304);
+        Supplier<MockHttpServletRequestBuilder> all = () -> get("/get-communities");
+        String allTag = mockMvc.perform(all.get()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        revalidate(all, allTag, 304);
+
+        User member = user("member");
+        mockMvc.perform(post("/join-community").param("userEmail", member.getEmail()).param("communityName", "polls"))
+                .andExpect(status().isOk());
+        revalidate(details, detailsTag, 200);
+        revalidate(all, allTag, 200);
+
+        createPost("{\"title\":\"second\",\"content\":\"c\",\"userId\":" + author.getUserId()
+                + ",\"communityName\":\"polls\"}");
+        revalidate(page, pageTag, 200);
+    }
+
+    @Test
+    void mediaIsCachedForGoodExceptAStandIn() throws Exception {
+        String json = mockMvc.perform(multipart("/create-post")
+                        .file(new MockMultipartFile("dto", "", MediaType.APPLICATION_JSON_VALUE,
+                                ("{\"title\":\"notes\",\"content\":\"c\",\"userId\":" + author.getUserId()
+                                        + ",\"communityName\":\"polls\"}").getBytes(StandardCharsets.UTF_8)))
+                        .file(new MockMultipartFile("image", "notes.txt", "text/plain",
+                                "cache me".getBytes(StandardCharsets.UTF_8))))
+                .andReturn().getResponse().getContentAsString();
+        String url = JsonPath.read(json, "$.imageUrl");
+        String key = url.substring("/media/".length(), url.indexOf('?'));
+
+        assertThat(mockMvc.perform(get("/media/" + key)).andReturn().getResponse().getHeader(HttpHeaders.CACHE_CONTROL))
+                .isEqualTo("max-age=31536000, public, immutable");
+        // Nothing is rendered for text, so the original stands in for the thumbnail.
+        MockHttpServletResponse thumb = mockMvc.perform(get("/media/" + key).param("size", "thumb")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + key + "\"")).andReturn().getResponse();
+        assertThat(thumb.getStatus()).isEqualTo(304);
+        assertThat(thumb.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("max-age=60, public");
+    }
+
+    private MockHttpServletResponse revalidate(Supplier<MockHttpServletRequestBuilder> request, String etag, int expected)
+            throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(request.get().header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(expected);
+        return response;
+    }
+
+    private void createPost(String dto) throws Exception {
+        mockMvc.perform(multipart("/create-post")
+                        .file(new MockMultipartFile("dto", "", MediaType.APPLICATION_JSON_VALUE,
+                                dto.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk());
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setUserName(name);
+        user.setEmail(name + "@reddit.test");
+        user.setPassword("secret");
+        user.setPhoneNumber("07" + name);
+        return userRepo.save(user);
+    }
+}
@@ -0,0 +1,423 @@
+package com.Reddit.reddit_clone.controllers;
+
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.PostSummaryRepo;
+import com.Reddit.reddit_clone.repos.SummaryJobRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.implementations.AllPostsSummarizer;
+import com.Reddit.reddit_clone.services.implementations.GeminiService;
+import com.Reddit.reddit_clone.services.implementations.SummaryJobQueue;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /summarize against a local stand-in for the Gemini API: shared calls, the in-flight cap, the timeout
+ * the summary cache, the chunked /summarize-all-posts digest (sent from off the event loop), the
+ * background summary jobs and /summarize-stream.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "gemini.api.key=test-key",
+        "gemini.max-in-flight=2",
+        "gemini.read-timeout-ms=2000",
+        "summaries.digest.chunk-tokens=20",
+        "summaries.digest.parallelism=2",
+        "summaries.jobs.poll-interval-ms=100",
+        "summaries.jobs.backoff-ms=100",
+        "summaries.jobs.max-attempts=2"
+})
+class GeminiClientTests {
+
+    private static final HttpServer STUB = startStub();
+    private static final AtomicInteger CALLS = new AtomicInteger();
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+    private static final AtomicInteger MAX_ACTIVE = new AtomicInteger();
+    private static final AtomicBoolean FAIL_FLAKY_ONCE = new AtomicBoolean(true);
+    private static final String SINGLE_POST_PROMPT = "post content in a concise and clear way:\\n\\n";
+    private static volatile CountDownLatch gate = new CountDownLatch(0);
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private PostSummaryRepo postSummaryRepo;
+    @Autowired
+    private SummaryJobRepo summaryJobRepo;
+    @Autowired
+    private SummaryJobQueue summaryJobQueue;
+    @Autowired
+    private GeminiService geminiService;
+    @Autowired
+    private AllPostsSummarizer allPostsSummarizer;
+
+    private final List<Integer> posts = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void geminiUrl(DynamicPropertyRegistry registry) {
+        registry.add("gemini.base-url", () -> "http://localhost:" + STUB.getAddress().getPort());
+    }
+
+    @BeforeAll
+    void seed() {
+        User user = new User();
+        user.setUserName("gemini");
+        user.setEmail("gemini@reddit.test");
+        user.setPassword("secret");
+        user.setPhoneNumber("0600");
+        userRepo.save(user);
+        Community community = new Community();
+        community.setCommunityName("gemini");
+        community.setCreatedBy(user);
+        communityRepo.save(community);
+        for (String content : List.of("shared content", "first of two", "second of two", "third of two", "slow content",
+                "cached content", "queued content", "flaky content",
+                "streamed content", "blank content", "held content", "also held content", "deferred content")) {
+            Post post = new Post();
+            post.setTitle(content);
+            post.setContent(content);
+            post.setUser(user);
+            post.setCommunity(community);
+            posts.add(postRepo.save(post).getPostId());
+        }
+        Community digest = new Community();
+        digest.setCommunityName("digest");
+        digest.setCreatedBy(user);
+        communityRepo.save(digest);
+        for (int i = 1; i <= 12; i++) {
+            Post post = new Post();
+            post.setTitle("digest " + i);
+            post.setContent("the digest post with number " + i);
+            post.setUser(user);
+            post.setCommunity(digest);
+            postRepo.save(post);
+        }
+    }
+
+    @BeforeEach
+    void reset() {
+        CALLS.set(0);
+        MAX_ACTIVE.set(0);
+        gate = new CountDownLatch(0);
+    }
+
+    @AfterAll
+    void stopStub() {
+        STUB.stop(0);
+    }
+
+    @Test
+    void concurrentRequestsForOnePostShareOneCall() throws Exception {
+        gate = new CountDownLatch(1);
+        List<MvcResult> started = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            started.add(summarize(posts.get(0)));
+        }
+        gate.countDown();
+        for (MvcResult result : started) {
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.summary").value("summary of shared content"));
+        }
+        assertThat(CALLS.get()).isEqualTo(1);
+    }
+
+    @Test
+    void callsBeyondTheCapAreRejectedRightAway() throws Exception {
+        gate = new CountDownLatch(1);
+        MvcResult first = summarize(posts.get(1));
+        MvcResult second = summarize(posts.get(2));
+        MvcResult third = summarize(posts.get(3));
+        mockMvc.perform(asyncDispatch(third)).andExpect(status().isServiceUnavailable());
+        gate.countDown();
+        mockMvc.perform(asyncDispatch(first)).andExpect(status().isOk());
+        mockMvc.perform(asyncDispatch(second)).andExpect(status().isOk());
+    }
+
+    @Test
+    void slowModelTimesOut() throws Exception {
+        mockMvc.perform(asyncDispatch(summarize(posts.get(4)))).andExpect(status().isGatewayTimeout());
+    }
+
+    @Test
+    void repeatSummariesComeFromTheCacheUntilThePostChanges() throws Exception {
+        Integer postId = posts.get(5);
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(asyncDispatch(summarize(postId)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.summary").value("summary of cached content"));
+        }
+        assertThat(CALLS.get()).isEqualTo(1);
+        assertThat(postSummaryRepo.findById(postId)).isPresent();
+
+        Post post = postRepo.findById(postId).orElseThrow();
+        post.setContent("edited content");
+        postRepo.save(post);
+        mockMvc.perform(asyncDispatch(summarize(postId)))
+                .andExpect(jsonPath("$.summary").value("summary of edited content"));
+        assertThat(CALLS.get()).isEqualTo(2);
+
+        mockMvc.perform(post("/delete-post").param("postId", String.valueOf(postId)))
+                .andExpect(status().isOk());
+        assertThat(postSummaryRepo.findById(postId)).isEmpty();
+    }
+
+    @Test
+    void anAnswerWithoutTextFailsAndIsNotCached() throws Exception {
+        Integer postId = posts.get(9);
+        mockMvc.perform(asyncDispatch(summarize(postId))).andExpect(status().isBadGateway());
+        assertThat(postSummaryRepo.findById(postId)).isEmpty();
+    }
+
+    @Test
+    void communityDigestIsMappedInChunksAndReducedInLevels() throws Exception {
+        MvcResult result = mockMvc.perform(post("/summarize-all-posts").param("communityName", "digest"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(10_000);
+        String events = result.getResponse().getContentAsString();
+
+        // 12 posts of one chunk each, then 12 -> 4 -> 2 (three merged, one carried over) -> 1.
+        assertThat(CALLS.get()).isEqualTo(18);
+        assertThat(MAX_ACTIVE.get()).isLessThanOrEqualTo(2);
+        assertThat(events).contains("event:progress", "\"stage\":\"map\"", "\"stage\":\"reduce 3\"");
+        assertThat(events).contains("event:summary", "\"totalPosts\":12", "\"summary\":\"summary of batch 018\"");
+        assertThat(events).doesNotContain("event:error");
+    }
+
+    @Test
+    void digestProgressIsNeverSentFromTheEventLoop() {
+        List<String> senders = new CopyOnWriteArrayList<>();
+        SseEmitter emitter = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                senders.add(Thread.currentThread().getName());
+            }
+        };
+        ReflectionTestUtils.invokeMethod(allPostsSummarizer, "run", "digest", emitter);
+
+        assertThat(senders).hasSizeGreaterThan(1);
+        assertThat(senders).noneMatch(thread -> thread.startsWith("reactor-http"));
+    }
+
+    @Test
+    void queuedSummaryIsReadyBeforeAnyoneAsks() throws Exception {
+        Integer postId = posts.get(6);
+        summaryJobQueue.enqueue(postId);
+        awaitSummary(postId);
+        assertThat(summaryJobRepo.findById(postId)).isEmpty();
+
+        mockMvc.perform(asyncDispatch(summarize(postId)))
+                .andExpect(jsonPath("$.summary").value("summary of queued content"));
+        assertThat(CALLS.get()).isEqualTo(1);
+    }
+
+    @Test
+    void failedJobIsRetriedAfterBackoff() throws Exception {
+        Integer postId = posts.get(7);
+        summaryJobQueue.enqueue(postId);
+        awaitSummary(postId);
+
+        assertThat(CALLS.get()).isEqualTo(2);
+        assertThat(postSummaryRepo.findById(postId).orElseThrow().getSummary()).isEqualTo("summary of flaky content");
+        assertThat(summaryJobRepo.findById(postId)).isEmpty();
+    }
+
+    @Test
+    void jobsWaitOutAFullClientWithoutUsingUpTheirAttempts() throws Exception {
+        gate = new CountDownLatch(1);
+        MvcResult first = summarize(posts.get(10));
+        MvcResult second = summarize(posts.get(11));
+        Integer postId = posts.get(12);
+        summaryJobQueue.enqueue(postId);
+        // Far more polls than summaries.jobs.max-attempts find every slot taken meanwhile.
+        Thread.sleep(1000);
+        assertThat(summaryJobRepo.findById(postId)).isPresent();
+
+        gate.countDown();
+        mockMvc.perform(asyncDispatch(first)).andExpect(status().isOk());
+        mockMvc.perform(asyncDispatch(second)).andExpect(status().isOk());
+        awaitSummary(postId);
+        assertThat(postSummaryRepo.findById(postId).orElseThrow().getSummary()).isEqualTo("summary of deferred content");
+    }
+
+    @Test
+    void streamedSummaryIsForwardedChunkByChunkAndCached() throws Exception {
+        Integer postId = posts.get(8);
+        MvcResult result = mockMvc.perform(get("/summarize-stream").param("postId", String.valueOf(postId)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(10_000);
+        assertThat(result.getResponse().getContentAsString()).containsSubsequence(
+                "event:chunk", "data:summary ", "event:chunk", "data:of ",
+                "event:chunk", "data:streamed content", "event:done");
+
+        mockMvc.perform(asyncDispatch(summarize(postId)))
+                .andExpect(jsonPath("$.summary").value("summary of streamed content"));
+        assertThat(CALLS.get()).isEqualTo(1);
+    }
+
+    @Test
+    void aStreamWithoutTextIsNotCached() throws Exception {
+        Integer postId = posts.get(9);
+        MvcResult result = mockMvc.perform(get("/summarize-stream").param("postId", String.valueOf(postId)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(10_000);
+        assertThat(result.getResponse().getContentAsString()).doesNotContain("event:chunk");
+        assertThat(postSummaryRepo.findById(postId)).isEmpty();
+    }
+
+    @Test
+    void chunksReachTheCallerBeforeTheModelIsDone() {
+        long start = System.nanoTime();
+        List<Long> arrivals = geminiService.streamSummary("timed content")
+                .map(text -> System.nanoTime() - start)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(arrivals).hasSize(3);
+        // The stub pauses 300ms after each chunk; a buffered response would deliver all three together.
+        assertThat(arrivals.get(2) - arrivals.get(0)).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(450));
+    }
+
+    // The summary is stored first and the job row deleted right after.
+    private void awaitSummary(Integer postId) throws InterruptedException {
+        for (int i = 0; i < 100 && (postSummaryRepo.findById(postId).isEmpty() || summaryJobRepo.existsById(postId)); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(postSummaryRepo.findById(postId)).isPresent();
+    }
+
+    private MvcResult summarize(Integer postId) throws Exception {
+        return mockMvc.perform(post("/summarize").param("postId", String.valueOf(postId)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private static HttpServer startStub() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/models/", exchange -> {
+                int call = CALLS.incrementAndGet();
+                MAX_ACTIVE.accumulateAndGet(ACTIVE.incrementAndGet(), Math::max);
+                String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                    if (request.contains("slow content")) {
+                        Thread.sleep(4000);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                String topic = String.format("batch %03d", call);
+                if (request.contains(SINGLE_POST_PROMPT)) {
+                    topic = request.substring(request.indexOf(SINGLE_POST_PROMPT) + SINGLE_POST_PROMPT.length());
+                    topic = topic.substring(0, topic.indexOf('"'));
+                }
+                ACTIVE.decrementAndGet();
+                if (request.contains("flaky content") && FAIL_FLAKY_ONCE.getAndSet(false)) {
+                    exchange.sendResponseHeaders(500, -1);
+                    exchange.close();
+                    return;
+                }
+                boolean streaming = exchange.getRequestURI().getPath().endsWith(":streamGenerateContent");
+                if (request.contains("blank content")) {
+                    if (streaming) {
+                        streamChunks(exchange, List.of(""));
+                    } else {
+                        respond(exchange, "{\"candidates\":[]}".getBytes(StandardCharsets.UTF_8));
+                    }
+                    return;
+                }
+                if (streaming) {
+                    streamChunks(exchange, List.of("summary ", "of ", topic));
+                    return;
+                }
+                byte[] body = ("{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"summary of " + topic + "\"}]}}]}")
+                        .getBytes(StandardCharsets.UTF_8);
+                respond(exchange, body);
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(200, body.length);
+            out.write(body);
+        } catch (IOException e) {
+            // The client gave up (timeout test).
+        }
+    }
+
+    // Chunked text/event-stream, one part per event with a pause between, like streamGenerateContent?alt=sse.
+    private static void streamChunks(HttpExchange exchange, List<String> parts) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (String part : parts) {
+                out.write(("data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + part + "\"}]}}]}\r\n\r\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                Thread.sleep(300);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
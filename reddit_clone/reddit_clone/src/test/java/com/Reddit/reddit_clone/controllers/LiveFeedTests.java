@@ -0,0 +1,187 @@
+package com.Reddit.reddit_clone.controllers;
+
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.implementations.PostLiveFeed;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Watchers of a post get its new comments and votes pushed as one coalesced
+ * batch per flush, and a watcher that stops reading is told to resync and let
+ * go instead of being buffered for.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "live.flush-interval-ms=3600000",
+        "live.max-pending=4"
+})
+class LiveFeedTests {
+    private static final Pattern BATCH = Pattern.compile("event:batch\ndata:(.*)\n");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private PostLiveFeed liveFeed;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private PostRepo postRepo;
+
+    private User author;
+    private Community community;
+
+    @BeforeAll
+    void seed() {
+        author = user("streamer");
+        community = new Community();
+        community.setCommunityName("live");
+        community.setCreatedBy(author);
+        communityRepo.save(community);
+    }
+
+    @Test
+    void changesArriveAsOneBatchPerFlush() throws Exception {
+        Post post = savePost("watched");
+        Post other = savePost("unwatched");
+        MockHttpServletResponse stream = mockMvc.perform(get("/post-events").param("postId", String.valueOf(post.getPostId())))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        await(stream, "event:ready");
+
+        vote(post, user("fan1"));
+        vote(post, user("fan2"));
+        vote(other, user("fan3"));
+        String comment = mockMvc.perform(post("/add-comment").param("userId", String.valueOf(author.getUserId()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"first!\",\"postId\":" + post.getPostId() + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int commentId = JsonPath.read(comment, "$.commentId");
+        mockMvc.perform(post("/up-vote").param("commentId", String.valueOf(commentId))
+                .param("userId", String.valueOf(author.getUserId()))).andExpect(status().isOk());
+        liveFeed.flush();
+
+        await(stream, "event:batch");
+        Matcher batches = BATCH.matcher(stream.getContentAsString());
+        assertThat(batches.find()).isTrue();
+        String batch = batches.group(1);
+        assertThat(batches.find()).isFalse();
+        assertThat((Integer) JsonPath.read(batch, "$.postId")).isEqualTo(post.getPostId());
+        assertThat((Integer) JsonPath.read(batch, "$.voteDelta")).isEqualTo(2);
+        assertThat((List<String>) JsonPath.read(batch, "$.newComments[*].content")).containsExactly("first!");
+        assertThat((Integer) JsonPath.read(batch, "$.commentVoteDeltas['" + commentId + "']")).isEqualTo(1);
+
+        // Nothing changed since, so the next flush sends nothing.
+        liveFeed.flush();
+        Thread.sleep(100);
+        assertThat(BATCH.matcher(stream.getContentAsString()).results().count()).isEqualTo(1);
+    }
+
+    @Test
+    void stalledWatcherIsToldToResyncAndLetGo() throws Exception {
+        Post post = savePost("busy");
+        double watchersBefore = meterRegistry.get("live.watchers").gauge().value();
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        BaseSubscriber<PostLiveFeed.LiveEvent> stalled = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(PostLiveFeed.LiveEvent event) {
+                received.add(event.name());
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                done.countDown();
+            }
+        };
+        liveFeed.events(post.getPostId()).subscribe(stalled);
+        assertThat(meterRegistry.get("live.watchers").gauge().value()).isEqualTo(watchersBefore + 1);
+
+        for (int i = 0; i < 20; i++) {
+            liveFeed.postVoted(post.getPostId(), 1);
+            liveFeed.flush();
+        }
+        stalled.request(Long.MAX_VALUE);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(received.get(0)).isEqualTo("ready");
+        assertThat(received.get(received.size() - 1)).isEqualTo("resync");
+        // Only what fitted in the buffer was kept for it.
+        assertThat(received.size()).isLessThan(10);
+        assertThat(meterRegistry.get("live.watchers").gauge().value()).isEqualTo(watchersBefore);
+    }
+
+    private void vote(Post post, User voter) throws Exception {
+        mockMvc.perform(post("/up-vote-post").param("postId", String.valueOf(post.getPostId()))
+                .param("userId", String.valueOf(voter.getUserId()))).andExpect(status().isOk());
+    }
+
+    private static void await(MockHttpServletResponse stream, String text) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!stream.getContentAsString().contains(text) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(stream.getContentAsString()).contains(text);
+    }
+
+    private Post savePost(String title) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent("content");
+        post.setUser(author);
+        post.setCommunity(community);
+        return postRepo.save(post);
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setUserName(name);
+        user.setEmail(name + "@reddit.test");
+        user.setPassword("secret");
+        user.setPhoneNumber("08" + name);
+        return userRepo.save(user);
+    }
+}
@@ -0,0 +1,181 @@
+package com.Reddit.reddit_clone.controllers;
+
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.implementations.MediaUploads;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /media streams the request body into the store through a fixed buffer;
+ * the key it returns can then stand in for the image part of the forms.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+// The default print-on-failure handler renders the request body into a string, which would dwarf what is measured.
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "media.upload.max-size=9MB"
+})
+class MediaUploadTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private MediaUploads mediaUploads;
+
+    private User author;
+
+    @BeforeAll
+    void seed() {
+        author = new User();
+        author.setUserName("uploader");
+        author.setEmail("uploader@reddit.test");
+        author.setPassword("secret");
+        author.setPhoneNumber("0910");
+        userRepo.save(author);
+        Community community = new Community();
+        community.setCommunityName("uploads");
+        community.setCreatedBy(author);
+        communityRepo.save(community);
+    }
+
+    @Test
+    void rawUploadIsStoredUnderItsHash() throws Exception {
+        byte[] bytes = randomBytes(8 * 1024 * 1024, 1);
+        // One small upload first, so class loading and first-request setup are not counted below.
+        upload(randomBytes(1024, 2), "image/png");
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        String key = upload(bytes, "image/png");
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(key).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes)));
+        // The 8MB body never becomes a heap copy; what is left is the copy buffer and the request handling.
+        assertThat(allocated).isLessThan(2 * 1024 * 1024);
+        assertThat(upload(bytes, "image/png")).isEqualTo(key);
+        assertThat(mockMvc.perform(get("/media/" + key)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray()).isEqualTo(bytes);
+    }
+
+    @Test
+    void onlyAllowlistedImagesAreServedInline() throws Exception {
+        String png = upload(randomBytes(2048, 4), "image/png");
+        mockMvc.perform(get("/media/" + png))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_DISPOSITION));
+
+        // SVG passes the image/* upload check but can carry script, so it is only ever a download.
+        String svg = upload("<svg xmlns=\"http://www.w3.org/2000/svg\"><script>alert(1)</script></svg>"
+                .getBytes(StandardCharsets.UTF_8), "image/svg+xml");
+        mockMvc.perform(get("/media/" + svg))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment"));
+    }
+
+    @Test
+    void oversizedAndNonImageUploadsAreRefused() throws Exception {
+        byte[] tooBig = randomBytes(10 * 1024 * 1024, 3);
+        mockMvc.perform(post("/media").contentType("image/jpeg").content(tooBig))
+                .andExpect(status().isPayloadTooLarge());
+        // Without a Content-Length the limit is hit while copying, and the partial file is removed.
+        assertThatThrownBy(() -> mediaUploads.store(new ByteArrayInputStream(tooBig), "image/jpeg", -1))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+        mockMvc.perform(post("/media").contentType(MediaType.TEXT_PLAIN).content("hello"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        try (Stream<Path> files = Files.list(Paths.get("target/test-media"))) {
+            assertThat(files.map(path -> path.getFileName().toString())).noneMatch(name -> name.endsWith(".part"));
+        }
+    }
+
+    @Test
+    void formsTakeAnUploadedKeyInsteadOfAPart() throws Exception {
+        String key = upload(randomBytes(4096, 4), "image/gif");
+
+        mockMvc.perform(multipart("/create-post").file(dto("{\"title\":\"keyed\",\"content\":\"c\",\"userId\":"
+                        + author.getUserId() + ",\"communityName\":\"uploads\",\"imageKey\":\"" + key + "\"}")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageUrl").value("/media/" + key + "?size=full"))
+                .andExpect(jsonPath("$.imageType").value("image/gif"));
+        mockMvc.perform(multipart("/create-post").file(dto("{\"title\":\"plain\",\"content\":\"c\",\"userId\":"
+                        + author.getUserId() + ",\"communityName\":\"uploads\"}")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageUrl").doesNotExist());
+        mockMvc.perform(multipart("/create-post").file(dto("{\"title\":\"bad\",\"content\":\"c\",\"userId\":"
+                        + author.getUserId() + ",\"communityName\":\"uploads\",\"imageKey\":\"" + "0".repeat(64) + "\"}")))
+                .andExpect(status().isBadRequest());
+
+        // A profile update without an image keeps the avatar.
+        mockMvc.perform(multipart("/update-profile").file(dto("{\"userId\":" + author.getUserId()
+                        + ",\"userName\":\"uploader\",\"imageKey\":\"" + key + "\"}")))
+                .andExpect(status().isOk());
+        mockMvc.perform(multipart("/update-profile").file(dto("{\"userId\":" + author.getUserId()
+                        + ",\"userName\":\"renamed\"}")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userName").value("renamed"))
+                .andExpect(jsonPath("$.imageUrl").value("/media/" + key + "?size=full"));
+    }
+
+    private String upload(byte[] bytes, String contentType) throws Exception {
+        String json = mockMvc.perform(post("/media").contentType(contentType).content(bytes))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(json, "$.imageKey");
+    }
+
+    private static MockMultipartFile dto(String json) {
+        return new MockMultipartFile("dto", "", MediaType.APPLICATION_JSON_VALUE, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] randomBytes(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
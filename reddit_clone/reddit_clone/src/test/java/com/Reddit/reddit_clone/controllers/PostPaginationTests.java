@@ -0,0 +1,175 @@
+package com.Reddit.reddit_clone.controllers;
+
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.pagination.PostCursor;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.implementations.HotFeedIndex;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Walking a feed with the returned cursors visits every post exactly once in
+ * (createAt desc, postId desc) order, even when posts share a timestamp, and
+ * pages never exceed the size cap. The hot feed continues with older posts once
+ * the ranked ones run out.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PostPaginationTests {
+    private static final int POSTS = 60;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private HotFeedIndex hotFeedIndex;
+
+    private final List<Integer> expected = new ArrayList<>();
+    private final List<Integer> mixed = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        User author = new User();
+        author.setUserName("pager");
+        author.setEmail("pager@reddit.test");
+        author.setPassword("secret");
+        author.setPhoneNumber("0110");
+        userRepo.save(author);
+        Community community = new Community();
+        community.setCommunityName("pages");
+        community.setCreatedBy(author);
+        communityRepo.save(community);
+
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            Post post = new Post();
+            post.setTitle("page " + i);
+            post.setContent("content");
+            post.setUser(author);
+            post.setCommunity(community);
+            postRepo.save(post);
+            // Three posts per timestamp, so page boundaries fall inside runs of equal createAt.
+            LocalDateTime createAt = base.plusMinutes(i / 3);
+            jdbcTemplate.update("update posts set create_at = ? where post_id = ?", Timestamp.valueOf(createAt), post.getPostId());
+            post.setCreateAt(createAt);
+            posts.add(post);
+        }
+        posts.sort(Comparator.comparing(Post::getCreateAt).thenComparing(Post::getPostId).reversed());
+        posts.forEach(post -> expected.add(post.getPostId()));
+
+        // Two posts inside the hot window, ranked by the index, and three from long ago.
+        Community busy = new Community();
+        busy.setCommunityName("mixed");
+        busy.setCreatedBy(author);
+        communityRepo.save(busy);
+        List<Integer> old = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Post post = new Post();
+            post.setTitle("mixed " + i);
+            post.setContent("content");
+            post.setUser(author);
+            post.setCommunity(busy);
+            postRepo.save(post);
+            if (i < 2) {
+                hotFeedIndex.onPostCreated(post, "mixed");
+                mixed.add(0, post.getPostId());
+            } else {
+                jdbcTemplate.update("update posts set create_at = ? where post_id = ?",
+                        Timestamp.valueOf(base.minusDays(i)), post.getPostId());
+                old.add(post.getPostId());
+            }
+        }
+        mixed.addAll(old);
+    }
+
+    @Test
+    void cursorsVisitEveryPostOnceInOrder() throws Exception {
+        assertThat(walk("new", "pages", 7)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void hotContinuesWithOlderPostsOnceTheRankedOnesRunOut() throws Exception {
+        // Nothing recent: the hot feed is the new feed.
+        assertThat(walk("hot", "pages", 7)).containsExactlyElementsOf(expected);
+        // Ranked posts first, then the older ones newest first, across page boundaries of both kinds.
+        assertThat(walk("hot", "mixed", 2)).containsExactlyElementsOf(mixed);
+        assertThat(walk("hot", "mixed", 3)).containsExactlyElementsOf(mixed);
+    }
+
+    @Test
+    void pageSizeIsCapped() throws Exception {
+        mockMvc.perform(get("/get-community-posts").param("communityName", "pages").param("size", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(PostCursor.MAX_PAGE_SIZE));
+        mockMvc.perform(get("/get-community-posts").param("communityName", "pages"))
+                .andExpect(jsonPath("$.items.length()").value(PostCursor.DEFAULT_PAGE_SIZE));
+        assertThat(PostCursor.pageSize(0)).isEqualTo(PostCursor.DEFAULT_PAGE_SIZE);
+    }
+
+    private List<Integer> walk(String sort, String community, int size) throws Exception {
+        List<Integer> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var request = get("/get-community-posts").param("communityName", community).param("sort", sort)
+                    .param("size", String.valueOf(size));
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            String json = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+            List<Integer> ids = JsonPath.read(json, "$.items[*].postId");
+            assertThat(ids.size()).isLessThanOrEqualTo(size);
+            seen.addAll(ids);
+            cursor = JsonPath.read(json, "$.nextCursor");
+            pages++;
+        } while (cursor != null);
+        assertThat(pages).isEqualTo(Math.max(1, (seen.size() + size - 1) / size));
+        return seen;
+    }
+
+    @Test
+    void cursorsRoundTripAndRejectGarbage() throws Exception {
+        PostCursor cursor = new PostCursor(LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_000_000), 42);
+        assertThat(PostCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThat(PostCursor.decode(null)).isNull();
+        assertThatThrownBy(() -> PostCursor.decode("not-a-cursor")).isInstanceOf(ResponseStatusException.class);
+
+        mockMvc.perform(get("/get-community-posts").param("communityName", "pages").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+}
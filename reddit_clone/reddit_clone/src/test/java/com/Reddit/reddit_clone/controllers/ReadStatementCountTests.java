@@ -0,0 +1,152 @@
+package com.Reddit.reddit_clone.controllers;
+
+import com.Reddit.reddit_clone.model.entities.Comment;
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.repos.CommentRepo;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.implementations.CommunityCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Read endpoints must cost one SQL statement no matter how many rows the page holds.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ReadStatementCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private CommentRepo commentRepo;
+    @Autowired
+    private CommunityCache communityCache;
+
+    private Integer postId;
+
+    @BeforeAll
+    void seed() {
+        User author = new User();
+        author.setUserName("author");
+        author.setEmail("author@reddit.test");
+        author.setPassword("secret");
+        author.setPhoneNumber("0100");
+        userRepo.save(author);
+        Community community = new Community();
+        community.setCommunityName("statements");
+        community.setCreatedBy(author);
+        communityRepo.save(community);
+        Community cached = new Community();
+        cached.setCommunityName("cached");
+        cached.setCreatedBy(author);
+        communityRepo.save(cached);
+        for (int i = 0; i < 30; i++) {
+            User user = new User();
+            user.setUserName("user" + i);
+            user.setEmail("user" + i + "@reddit.test");
+            user.setPassword("secret");
+            user.setPhoneNumber("02" + i);
+            userRepo.save(user);
+            Post post = new Post();
+            post.setTitle("title " + i);
+            post.setContent("content " + i);
+            post.setUser(user);
+            post.setCommunity(community);
+            postRepo.save(post);
+            postId = post.getPostId();
+            Comment comment = new Comment();
+            comment.setContent("comment " + i);
+            comment.setPost(post);
+            comment.setUser(user);
+            commentRepo.save(comment);
+        }
+        Post commented = postRepo.findById(postId).orElseThrow();
+        for (int i = 0; i < 20; i++) {
+            Comment comment = new Comment();
+            comment.setContent("reply " + i);
+            comment.setPost(commented);
+            comment.setUser(userRepo.findByEmail("user" + i + "@reddit.test").orElseThrow());
+            commentRepo.save(comment);
+        }
+    }
+
+    @Test
+    void allPostsPageIsOneStatement() throws Exception {
+        assertStatements("/get-all-posts?size=20", 1);
+        assertStatements("/get-all-posts?size=20&sort=top", 1);
+    }
+
+    @Test
+    void communityPostsPageIsOneStatement() throws Exception {
+        assertStatements("/get-community-posts?communityName=statements&size=20", 1);
+    }
+
+    @Test
+    void userPostsPageIsOneStatement() throws Exception {
+        assertStatements("/get-user-posts?email=user3@reddit.test", 1);
+    }
+
+    @Test
+    void singlePostIsOneStatement() throws Exception {
+        assertStatements("/get-post?postId=" + postId, 1);
+    }
+
+    @Test
+    void postCommentsAreOneStatement() throws Exception {
+        assertStatements("/get-post-comments?postId=" + postId, 1);
+    }
+
+    @Test
+    void communityDetailsIsOneStatement() throws Exception {
+        assertStatements("/community-details?communityName=statements", 1);
+    }
+
+    @Test
+    void communityReadsAreCachedUntilInvalidated() throws Exception {
+        assertStatements("/community-details?communityName=cached", 1);
+        assertStatements("/community-details?communityName=cached", 0);
+        assertStatements("/get-communities", 1);
+        assertStatements("/get-communities", 0);
+        communityCache.invalidate("cached");
+        assertStatements("/community-details?communityName=cached", 1);
+        assertStatements("/get-communities", 1);
+    }
+
+    private void assertStatements(String url, long expected) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).as(url).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,208 @@
+package com.Reddit.reddit_clone.controllers;
+
+import com.Reddit.reddit_clone.model.dtos.CommentDtos.CommentReqDto;
+import com.Reddit.reddit_clone.model.dtos.PageResDto;
+import com.Reddit.reddit_clone.model.dtos.SearchDtos.SearchHitDto;
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.repos.CommentRepo;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.implementations.SearchServiceImpl;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /search ranks with BM25, filters by community, pages with a cursor and follows creates and deletes.
+ * A restarted index catches up with what its last commit missed.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SearchTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private CommentRepo commentRepo;
+    @Autowired
+    private SearchServiceImpl searchService;
+
+    private User user;
+    private Community java;
+    private Community rust;
+
+    @BeforeAll
+    void seed() throws Exception {
+        user = new User();
+        user.setUserName("searcher");
+        user.setEmail("searcher@reddit.test");
+        user.setPassword("secret");
+        user.setPhoneNumber("0500");
+        userRepo.save(user);
+        java = community("java");
+        rust = community("rust");
+        savePost(java, "Garbage collector tuning", "How do I pick heap sizes?");
+        savePost(java, "Weekly thread", "Anything about the garbage collector goes here, along with other talk");
+        savePost(rust, "Borrow checker", "Why no garbage collector in rust?");
+        for (int i = 0; i < 25; i++) {
+            savePost(java, "Paging " + i, "pagination sample " + i);
+        }
+        // The index was empty when the context started; this is the same rebuild a fresh deployment runs.
+        searchService.catchUp();
+    }
+
+    @Test
+    void titleMatchesRankFirst() throws Exception {
+        PageResDto<SearchHitDto> page = search("garbage collector", null, null);
+        assertThat(page.getItems()).hasSize(3);
+        assertThat(page.getItems().get(0).getTitle()).isEqualTo("Garbage collector tuning");
+    }
+
+    @Test
+    void communityFilterNarrowsHits() throws Exception {
+        PageResDto<SearchHitDto> page = search("garbage collector", "rust", null);
+        assertThat(page.getItems()).extracting(SearchHitDto::getTitle).containsExactly("Borrow checker");
+    }
+
+    @Test
+    void cursorWalksEveryHitOnce() throws Exception {
+        Set<Integer> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PageResDto<SearchHitDto> page = search("pagination", null, cursor);
+            page.getItems().forEach(hit -> assertThat(seen.add(hit.getPostId())).isTrue());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        assertThat(seen).hasSize(25);
+        assertThat(pages).isEqualTo(2);
+    }
+
+    @Test
+    void commentsAreIndexedAndRemovedWithTheirPost() throws Exception {
+        Post post = savePost(java, "Lifecycle", "short lived");
+        searchService.onPostCreated(post, java.getCommunityName());
+        mockMvc.perform(post("/add-comment?userId=" + user.getUserId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CommentReqDto("ephemeral remark", post.getPostId(), null))))
+                .andExpect(status().isOk());
+        searchService.refresh();
+        PageResDto<SearchHitDto> found = search("ephemeral", null, null);
+        assertThat(found.getItems()).extracting(SearchHitDto::getType).containsExactly("comment");
+        assertThat(found.getItems().get(0).getPostId()).isEqualTo(post.getPostId());
+
+        searchService.onPostDeleted(post.getPostId());
+        searchService.refresh();
+        assertThat(search("ephemeral", null, null).getItems()).isEmpty();
+        assertThat(search("lifecycle", null, null).getItems()).isEmpty();
+    }
+
+    @Test
+    void deletedPostsLeaveTheIndex() throws Exception {
+        Post post = savePost(java, "Doomed", "soon gone");
+        searchService.onPostCreated(post, java.getCommunityName());
+        searchService.refresh();
+        assertThat(search("doomed", null, null).getItems()).hasSize(1);
+
+        mockMvc.perform(post("/delete-post?postId=" + post.getPostId())).andExpect(status().isOk());
+        searchService.refresh();
+        assertThat(search("doomed", null, null).getItems()).isEmpty();
+    }
+
+    @Test
+    void aRestartIndexesWhatTheLastCommitMissed(@TempDir Path dir) throws Exception {
+        SearchServiceImpl before = onDisk(dir);
+        before.catchUp();
+        // Written while the first instance ran, but never indexed before it went away.
+        Post lost = savePost(rust, "Crash window", "written after the last commit");
+        ReflectionTestUtils.invokeMethod(before, "close");
+        try (DirectoryReader reader = DirectoryReader.open(FSDirectory.open(dir))) {
+            assertThat(Integer.parseInt(reader.getIndexCommit().getUserData().get("lastPostId"))).isLessThan(lost.getPostId());
+        }
+
+        SearchServiceImpl after = onDisk(dir);
+        try {
+            after.catchUp();
+            assertThat(after.search("crash window", null, null, null).getItems())
+                    .extracting(SearchHitDto::getPostId).containsExactly(lost.getPostId());
+            try (DirectoryReader reader = DirectoryReader.open(FSDirectory.open(dir))) {
+                assertThat(reader.getIndexCommit().getUserData()).containsEntry("lastPostId", String.valueOf(lost.getPostId()));
+            }
+        } finally {
+            ReflectionTestUtils.invokeMethod(after, "close");
+        }
+    }
+
+    private SearchServiceImpl onDisk(Path dir) {
+        SearchServiceImpl service = new SearchServiceImpl();
+        ReflectionTestUtils.setField(service, "postRepo", postRepo);
+        ReflectionTestUtils.setField(service, "commentRepo", commentRepo);
+        ReflectionTestUtils.setField(service, "indexDir", dir.toString());
+        ReflectionTestUtils.invokeMethod(service, "open");
+        return service;
+    }
+
+    private PageResDto<SearchHitDto> search(String q, String communityName, String cursor) throws Exception {
+        var request = get("/search").param("q", q);
+        if (communityName != null) {
+            request.param("communityName", communityName);
+        }
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        String body = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, new TypeReference<>() {
+        });
+    }
+
+    private Community community(String name) {
+        Community community = new Community();
+        community.setCommunityName(name);
+        community.setCreatedBy(user);
+        return communityRepo.save(community);
+    }
+
+    private Post savePost(Community community, String title, String content) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent(content);
+        post.setUser(user);
+        post.setCommunity(community);
+        return postRepo.save(post);
+    }
+}
@@ -0,0 +1,174 @@
+package com.Reddit.reddit_clone.controllers;
+
+import com.Reddit.reddit_clone.model.entities.Comment;
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.repos.CommentRepo;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.utils.MaterializedPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Creating a post, comment or community must insert one row and leave its user,
+ * post and community alone, however many children they already have.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class WriteStatementCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private CommentRepo commentRepo;
+
+    private User prolific;
+    private User newcomer;
+    private Post busyPost;
+    private Post quietPost;
+    private Integer busyCommentId;
+
+    @BeforeAll
+    void seed() {
+        prolific = user("prolific");
+        newcomer = user("newcomer");
+        Community busy = community("busy", prolific);
+        Community quiet = community("quiet", newcomer);
+        for (int i = 0; i < 50; i++) {
+            busyPost = seedPost("busy " + i, prolific, busy);
+        }
+        quietPost = seedPost("quiet", newcomer, quiet);
+        for (int i = 0; i < 50; i++) {
+            Comment comment = new Comment();
+            comment.setContent("comment " + i);
+            comment.setPost(busyPost);
+            comment.setUser(prolific);
+            comment.setPath(MaterializedPath.nextSegment());
+            comment.setDepth(0);
+            busyCommentId = commentRepo.save(comment).getCommentId();
+        }
+    }
+
+    @Test
+    void creatingAPostIsOneInsert() throws Exception {
+        // Community lookups are cached; warm them so only the write itself is measured.
+        mockMvc.perform(get("/community-details?communityName=busy")).andExpect(status().isOk());
+        mockMvc.perform(get("/community-details?communityName=quiet")).andExpect(status().isOk());
+        long busy = assertSingleInsert(createPost(prolific, "busy"));
+        long quiet = assertSingleInsert(createPost(newcomer, "quiet"));
+        assertThat(busy).isEqualTo(quiet);
+    }
+
+    @Test
+    void addingACommentIsOneInsert() throws Exception {
+        long busy = assertSingleInsert(addComment(prolific, busyPost.getPostId(), null));
+        long quiet = assertSingleInsert(addComment(newcomer, quietPost.getPostId(), null));
+        assertThat(busy).isEqualTo(quiet);
+        assertSingleInsert(addComment(newcomer, busyPost.getPostId(), busyCommentId));
+    }
+
+    @Test
+    void creatingACommunityIsOneInsert() throws Exception {
+        long busy = assertSingleInsert(createCommunity("founded by prolific", prolific));
+        long quiet = assertSingleInsert(createCommunity("founded by newcomer", newcomer));
+        assertThat(busy).isEqualTo(quiet);
+    }
+
+    // Returns the statements the request cost, once its asynchronous follow-ups have had time to run.
+    private long assertSingleInsert(RequestBuilder request) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status().isOk());
+        Thread.sleep(300);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isLessThanOrEqualTo(1);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private RequestBuilder createPost(User user, String communityName) {
+        String dto = "{\"title\":\"new\",\"content\":\"fresh\",\"userId\":" + user.getUserId()
+                + ",\"communityName\":\"" + communityName + "\"}";
+        return multipart("/create-post")
+                .file(new MockMultipartFile("dto", "", MediaType.APPLICATION_JSON_VALUE,
+                        dto.getBytes(StandardCharsets.UTF_8)))
+                .file(new MockMultipartFile("image", new byte[0]));
+    }
+
+    private RequestBuilder addComment(User user, Integer postId, Integer parentId) {
+        return post("/add-comment")
+                .param("userId", String.valueOf(user.getUserId()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"content\":\"hello\",\"postId\":" + postId + ",\"parentId\":" + parentId + "}");
+    }
+
+    private RequestBuilder createCommunity(String name, User user) {
+        return post("/create-community")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"communityName\":\"" + name + "\",\"communityDesc\":\"new\",\"userId\":"
+                        + user.getUserId() + "}");
+    }
+
+    private Post seedPost(String title, User user, Community community) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent(title + " content");
+        post.setUser(user);
+        post.setCommunity(community);
+        return postRepo.save(post);
+    }
+
+    private Community community(String name, User owner) {
+        Community community = new Community();
+        community.setCommunityName(name);
+        community.setCreatedBy(owner);
+        return communityRepo.save(community);
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setUserName(name);
+        user.setEmail(name + "@reddit.test");
+        user.setPassword("secret");
+        user.setPhoneNumber("07" + name);
+        return userRepo.save(user);
+    }
+}
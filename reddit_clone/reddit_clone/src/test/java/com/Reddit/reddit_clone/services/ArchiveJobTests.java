@@ -0,0 +1,208 @@
+package com.Reddit.reddit_clone.services;
+
+import com.Reddit.reddit_clone.model.entities.Comment;
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.repos.CommentRepo;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.MembershipService;
+import com.Reddit.reddit_clone.services.implementations.ArchiveJob;
+import com.Reddit.reddit_clone.utils.MaterializedPath;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Migrations run on top of the Hibernate schema, and the archive job moves old
+ * posts and soft-deleted rows out of the hot tables, a couple of rows per batch.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "archive.post-age-days=30",
+        "archive.batch-size=2"
+})
+class ArchiveJobTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ArchiveJob archiveJob;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private CommentRepo commentRepo;
+    @Autowired
+    private MembershipService membershipService;
+
+    private User leaver;
+    private Community kept;
+    private final List<Integer> oldPostIds = new ArrayList<>();
+    private Integer recentPostId;
+    private Integer replyId;
+    private Integer rootId;
+
+    @BeforeAll
+    void seed() {
+        User keeper = user("keeper");
+        leaver = user("leaver");
+        User writer = user("writer");
+        kept = community("kept", keeper);
+        community("gone", keeper);
+        membershipService.join(leaver.getUserId(), kept.getCommunityId());
+        for (int i = 0; i < 3; i++) {
+            Post post = seedPost("old " + i, keeper);
+            oldPostIds.add(post.getPostId());
+        }
+        jdbcTemplate.update("update posts set create_at = ? where title like 'old %'", LocalDateTime.now().minusDays(60));
+        Post threaded = postRepo.findById(oldPostIds.get(0)).orElseThrow();
+        Comment root = comment(threaded, keeper, null);
+        rootId = root.getCommentId();
+        replyId = comment(threaded, keeper, root).getCommentId();
+        recentPostId = seedPost("recent", writer).getPostId();
+        // Deleted, but still the author of a live post.
+        jdbcTemplate.update("update users set delete_at = ? where user_id = ?", LocalDateTime.now(), writer.getUserId());
+    }
+
+    @Test
+    void migrationsRunAfterHibernateCreatedTheTables() {
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from flyway_schema_history where version in ('1', '2') and success = true", Integer.class))
+                .isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.indexes where index_name = 'ix_users_live_email'", Integer.class))
+                .isPositive();
+    }
+
+    @Test
+    void oldPostsMoveWithTheirThreads() throws Exception {
+        archiveJob.run();
+
+        assertThat(jdbcTemplate.queryForList("select post_id from posts_archive", Integer.class))
+                .containsAll(oldPostIds)
+                .doesNotContain(recentPostId);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from posts where title like 'old %'", Integer.class))
+                .isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "select parent_id from comments_archive where comment_id = ?", Integer.class, replyId))
+                .isEqualTo(rootId);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from comments where post_id = ?", Integer.class, oldPostIds.get(0)))
+                .isZero();
+        mockMvc.perform(get("/get-post").param("postId", String.valueOf(oldPostIds.get(0))))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/get-post").param("postId", String.valueOf(recentPostId)))
+                .andExpect(jsonPath("$.title").value("recent"));
+    }
+
+    @Test
+    void aRunStopsAfterItsBatchLimit() {
+        // Clear whatever the seed left due, so only the posts below are waiting.
+        archiveJob.run();
+        User author = user("capped");
+        for (int i = 0; i < 5; i++) {
+            seedPost("capped " + i, author);
+        }
+        jdbcTemplate.update("update posts set create_at = ? where title like 'capped %'", LocalDateTime.now().minusDays(60));
+
+        ReflectionTestUtils.setField(archiveJob, "maxBatches", 1);
+        try {
+            archiveJob.run();
+        } finally {
+            ReflectionTestUtils.setField(archiveJob, "maxBatches", 20);
+        }
+        assertThat(jdbcTemplate.queryForObject("select count(*) from posts where title like 'capped %'", Integer.class))
+                .isEqualTo(3);
+
+        archiveJob.run();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from posts where title like 'capped %'", Integer.class))
+                .isZero();
+    }
+
+    @Test
+    void softDeletedUsersAndCommunitiesMoveOnceNothingPointsAtThem() throws Exception {
+        mockMvc.perform(post("/delete-account").param("userEmail", "leaver@reddit.test"))
+                .andExpect(status().isOk());
+        jdbcTemplate.update("update communities set delete_at = ? where community_name = 'gone'", LocalDateTime.now());
+
+        archiveJob.run();
+
+        assertThat(jdbcTemplate.queryForList("select email from users_archive", String.class))
+                .containsExactly("leaver@reddit.test");
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from users where email = 'writer@reddit.test'", Integer.class))
+                .isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("select community_name from communities_archive", String.class))
+                .containsExactly("gone");
+        mockMvc.perform(get("/community-details").param("communityName", "kept"))
+                .andExpect(jsonPath("$.memberCount").value(0));
+    }
+
+    private Comment comment(Post post, User user, Comment parent) {
+        Comment comment = new Comment();
+        comment.setContent(parent == null ? "root" : "reply");
+        comment.setPost(post);
+        comment.setUser(user);
+        comment.setParent(parent);
+        comment.setPath(parent == null
+                ? MaterializedPath.nextSegment()
+                : MaterializedPath.child(parent.getPath(), MaterializedPath.nextSegment()));
+        comment.setDepth(parent == null ? 0 : 1);
+        return commentRepo.save(comment);
+    }
+
+    private Post seedPost(String title, User user) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent(title + " content");
+        post.setUser(user);
+        post.setCommunity(kept);
+        return postRepo.save(post);
+    }
+
+    private Community community(String name, User owner) {
+        Community community = new Community();
+        community.setCommunityName(name);
+        community.setCreatedBy(owner);
+        return communityRepo.save(community);
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setUserName(name);
+        user.setEmail(name + "@reddit.test");
+        user.setPassword("secret");
+        user.setPhoneNumber("08" + name);
+        return userRepo.save(user);
+    }
+}
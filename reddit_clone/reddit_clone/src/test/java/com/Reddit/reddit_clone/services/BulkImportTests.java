@@ -0,0 +1,186 @@
+package com.Reddit.reddit_clone.services;
+
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.implementations.SearchServiceImpl;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Bulk import of posts, comments and memberships, with batches small enough that every import spans several.
+ * Imported posts and comments are searchable right after the import.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "imports.enabled=true",
+        "imports.batch-size=3"
+})
+class BulkImportTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private SearchServiceImpl searchService;
+
+    private User owner;
+    private User member;
+    private Post thread;
+    private Post otherThread;
+
+    @BeforeAll
+    void seed() {
+        owner = user("importer");
+        member = user("imported");
+        Community community = new Community();
+        community.setCommunityName("imports");
+        community.setCreatedBy(owner);
+        communityRepo.save(community);
+        Post post = new Post();
+        post.setTitle("thread");
+        post.setContent("imported replies go here");
+        post.setUser(owner);
+        post.setCommunity(community);
+        thread = postRepo.save(post);
+        Post other = new Post();
+        other.setTitle("other thread");
+        other.setContent("refs stay on their own post");
+        other.setUser(owner);
+        other.setCommunity(community);
+        otherThread = postRepo.save(other);
+    }
+
+    @Test
+    void postsAreImportedFromNewlineDelimitedRows() throws Exception {
+        String rows = IntStream.rangeClosed(1, 7)
+                .mapToObj(i -> "{\"title\":\"imported " + i + "\",\"content\":\"body " + i + "\",\"userId\":"
+                        + owner.getUserId() + ",\"communityName\":\"imports\",\"createAt\":\"2024-01-0" + i + "T10:00:00\"}")
+                .collect(Collectors.joining("\n"));
+        mockMvc.perform(post("/import-posts").content(rows))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(7));
+
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from posts where title like 'imported %' and create_at < '2024-02-01'", Integer.class))
+                .isEqualTo(7);
+
+        searchService.refresh();
+        mockMvc.perform(get("/search").param("q", "body"))
+                .andExpect(jsonPath("$.items.length()").value(7))
+                .andExpect(jsonPath("$.items[0].type").value("post"));
+    }
+
+    @Test
+    void importedRepliesFindParentsAcrossBatches() throws Exception {
+        Integer postId = thread.getPostId();
+        String rows = "[" + String.join(",",
+                comment("root", postId, "\"ref\":\"a\""),
+                comment("other root", postId, ""),
+                comment("noise", postId, ""),
+                comment("reply", postId, "\"ref\":\"b\",\"parentRef\":\"a\""),
+                comment("reply to reply", postId, "\"parentRef\":\"b\"")) + "]";
+        mockMvc.perform(post("/import-comments").content(rows))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(5));
+
+        Map<String, Map<String, Object>> byContent = jdbcTemplate.queryForList(
+                        "select c.content, c.depth, p.content as parent from comments c " +
+                                "left join comments p on p.comment_id = c.parent_id where c.post_id = ?", postId)
+                .stream().collect(Collectors.toMap(r -> (String) r.get("content"), r -> r));
+        assertThat(byContent.get("reply").get("parent")).isEqualTo("root");
+        assertThat(byContent.get("reply to reply").get("parent")).isEqualTo("reply");
+        assertThat(byContent.get("reply to reply").get("depth")).isEqualTo(2);
+
+        mockMvc.perform(get("/get-comment-threads").param("postId", String.valueOf(postId)))
+                .andExpect(jsonPath("$.threads[0].comment.content").value("root"))
+                .andExpect(jsonPath("$.threads[0].replies[0].comment.content").value("reply"))
+                .andExpect(jsonPath("$.threads[0].replies[0].replies[0].comment.content").value("reply to reply"));
+
+        searchService.refresh();
+        mockMvc.perform(get("/search").param("q", "noise"))
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].type").value("comment"));
+    }
+
+    @Test
+    void refsAreForgottenOnceTheRowsMoveToAnotherPost() throws Exception {
+        String rows = String.join("\n",
+                comment("first", thread.getPostId(), "\"ref\":\"x\""),
+                comment("elsewhere", otherThread.getPostId(), ""),
+                comment("late reply", thread.getPostId(), "\"parentRef\":\"x\""));
+        mockMvc.perform(post("/import-comments").content(rows))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(containsString("Row 3: parentRef x does not match an earlier row of the same post")));
+    }
+
+    @Test
+    void membershipsSkipDuplicatesAndUpdateTheCount() throws Exception {
+        List<String> rows = List.of(owner, member, member, owner).stream()
+                .map(u -> "{\"userId\":" + u.getUserId() + ",\"communityName\":\"imports\"}")
+                .toList();
+        mockMvc.perform(post("/import-memberships").content(String.join("\n", rows)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.skipped").value(2));
+
+        mockMvc.perform(get("/community-details?communityName=imports"))
+                .andExpect(jsonPath("$.memberCount").value(2));
+    }
+
+    @Test
+    void badRowIsReportedWithItsNumber() throws Exception {
+        String rows = "{\"title\":\"fine\",\"userId\":" + owner.getUserId() + ",\"communityName\":\"imports\"}\n"
+                + "{\"title\":\"lost\",\"userId\":" + owner.getUserId() + ",\"communityName\":\"nowhere\"}";
+        mockMvc.perform(post("/import-posts").content(rows))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(containsString("Row 2: community nowhere not found")));
+    }
+
+    private String comment(String content, Integer postId, String extra) {
+        return "{\"content\":\"" + content + "\",\"postId\":" + postId + ",\"userId\":" + member.getUserId()
+                + (extra.isEmpty() ? "" : "," + extra) + "}";
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setUserName(name);
+        user.setEmail(name + "@reddit.test");
+        user.setPassword("secret");
+        user.setPhoneNumber("05" + name);
+        return userRepo.save(user);
+    }
+}
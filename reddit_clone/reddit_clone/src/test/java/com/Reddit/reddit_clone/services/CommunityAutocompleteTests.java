@@ -0,0 +1,68 @@
+package com.Reddit.reddit_clone.services;
+
+import com.Reddit.reddit_clone.model.dtos.CommunityDtos.CommunitySuggestionDto;
+import com.Reddit.reddit_clone.services.implementations.CommunityAutocomplete;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommunityAutocompleteTests {
+
+    private CommunityAutocomplete autocomplete;
+
+    @BeforeEach
+    void setUp() {
+        autocomplete = new CommunityAutocomplete(3);
+        autocomplete.put("java", 500);
+        autocomplete.put("JavaScript", 900);
+        autocomplete.put("javafx", 20);
+        autocomplete.put("jazz", 70);
+        autocomplete.put("rust", 300);
+    }
+
+    @Test
+    void prefixesRankByMemberCount() {
+        assertThat(autocomplete.suggest("jav", 10)).extracting(CommunitySuggestionDto::getCommunityName)
+                .containsExactly("JavaScript", "java", "javafx");
+        assertThat(autocomplete.suggest("JA", 10)).extracting(CommunitySuggestionDto::getCommunityName)
+                .containsExactly("JavaScript", "java", "jazz");
+        assertThat(autocomplete.suggest("", 2)).extracting(CommunitySuggestionDto::getCommunityName)
+                .containsExactly("JavaScript", "java");
+        assertThat(autocomplete.suggest("python", 10)).isEmpty();
+    }
+
+    @Test
+    void joinsMoveANameUp() {
+        for (int i = 0; i < 31; i++) {
+            autocomplete.onMemberJoined("jazz");
+        }
+        assertThat(autocomplete.suggest("ja", 2)).extracting(CommunitySuggestionDto::getCommunityName)
+                .containsExactly("JavaScript", "java");
+        assertThat(autocomplete.suggest("ja", 3)).extracting(CommunitySuggestionDto::getMemberCount)
+                .containsExactly(900, 500, 101);
+    }
+
+    @Test
+    void removedNamesLeaveEveryPrefix() {
+        autocomplete.remove("JavaScript");
+        assertThat(autocomplete.suggest("j", 10)).extracting(CommunitySuggestionDto::getCommunityName)
+                .containsExactly("java", "jazz", "javafx");
+        assertThat(autocomplete.suggest("javas", 10)).isEmpty();
+    }
+
+    @Test
+    void namesThatDifferOnlyInCaseAreKeptApart() {
+        autocomplete.put("Java", 40);
+        assertThat(autocomplete.suggest("java", 10)).extracting(CommunitySuggestionDto::getCommunityName)
+                .containsExactly("JavaScript", "java", "Java");
+
+        autocomplete.onMemberJoined("Java");
+        assertThat(autocomplete.suggest("java", 3)).extracting(CommunitySuggestionDto::getMemberCount)
+                .containsExactly(900, 500, 41);
+
+        autocomplete.remove("java");
+        assertThat(autocomplete.suggest("java", 10)).extracting(CommunitySuggestionDto::getCommunityName)
+                .containsExactly("JavaScript", "Java", "javafx");
+    }
+}
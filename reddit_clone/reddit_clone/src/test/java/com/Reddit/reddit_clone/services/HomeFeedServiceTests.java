@@ -0,0 +1,149 @@
+package com.Reddit.reddit_clone.services;
+
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostResDto;
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostRow;
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.entities.VoteTarget;
+import com.Reddit.reddit_clone.model.mappers.PostMapper;
+import com.Reddit.reddit_clone.pagination.PostCursor;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.implementations.HomeFeedServiceImpl;
+import com.Reddit.reddit_clone.services.implementations.VoteBuffer;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+
+/**
+ * Timelines are bounded however many user ids ask for a home feed, and a
+ * community that grows past the fan-out limit is pulled once someone joins it,
+ * also for members whose timeline was built while it was small. Scores
+ * include votes that are not flushed yet, as on every other post read.
+ */
+class HomeFeedServiceTests {
+
+    private PostRepo postRepo;
+    private UserRepo userRepo;
+    private CommunityRepo communityRepo;
+    private PostMapper postMapper;
+    private VoteBuffer voteBuffer;
+    private HomeFeedServiceImpl homeFeed;
+
+    @BeforeEach
+    void setUp() {
+        postRepo = Mockito.mock(PostRepo.class);
+        userRepo = Mockito.mock(UserRepo.class);
+        communityRepo = Mockito.mock(CommunityRepo.class);
+        postMapper = Mockito.mock(PostMapper.class);
+        voteBuffer = new VoteBuffer();
+        Mockito.when(postMapper.fromRows(any())).thenReturn(List.of());
+        homeFeed = new HomeFeedServiceImpl(10, 60, 10, 1, 1);
+        ReflectionTestUtils.setField(homeFeed, "postRepo", postRepo);
+        ReflectionTestUtils.setField(homeFeed, "userRepo", userRepo);
+        ReflectionTestUtils.setField(homeFeed, "communityRepo", communityRepo);
+        ReflectionTestUtils.setField(homeFeed, "postMapper", postMapper);
+        ReflectionTestUtils.setField(homeFeed, "voteBuffer", voteBuffer);
+        ReflectionTestUtils.setField(homeFeed, "capacity", 8);
+        ReflectionTestUtils.setField(homeFeed, "fanoutLimit", 100L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        homeFeed.shutdown();
+    }
+
+    @Test
+    void timelinesAreBoundedForArbitraryUserIds() {
+        for (int userId = 0; userId < 1000; userId++) {
+            homeFeed.getHomeFeed(userId, null, 10);
+        }
+        Cache<?, ?> timelines = (Cache<?, ?>) ReflectionTestUtils.getField(homeFeed, "timelines");
+        timelines.cleanUp();
+        assertThat(timelines.estimatedSize()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void aCommunityThatGrewIsPulledAfterAJoin() {
+        Mockito.when(communityRepo.findJoinedCommunityIds(1)).thenReturn(List.of(7));
+        Mockito.when(communityRepo.findMemberCount(7)).thenReturn(Optional.of(5), Optional.of(5_000));
+
+        homeFeed.getHomeFeed(1, null, 10);
+        homeFeed.getHomeFeed(1, null, 10);
+        // Small, so its posts are pushed: only the timeline build reads them, never a page.
+        Mockito.verify(postRepo, Mockito.never()).findKeysInCommunities(anyCollection(), eq(PageRequest.of(0, 11)));
+
+        homeFeed.onMembershipChanged(2, 7);
+        homeFeed.getHomeFeed(1, null, 10);
+        // Now large, so its posts are pulled at read time.
+        Mockito.verify(postRepo).findKeysInCommunities(eq(List.of(7)), eq(PageRequest.of(0, 11)));
+        Mockito.verify(communityRepo, Mockito.times(2)).findMemberCount(anyInt());
+    }
+
+    @Test
+    void postsAreFannedOutToOpenTimelines() throws Exception {
+        Mockito.when(communityRepo.findJoinedCommunityIds(1)).thenReturn(List.of(7));
+        Mockito.when(communityRepo.findMemberCount(7)).thenReturn(Optional.of(5));
+        Mockito.when(userRepo.findMemberIds(7)).thenReturn(List.of(1, 2));
+        homeFeed.getHomeFeed(1, null, 10);
+
+        homeFeed.onPostCreated(post(42, 7));
+        homeFeed.shutdown();
+        ThreadPoolExecutor fanout = (ThreadPoolExecutor) ReflectionTestUtils.getField(homeFeed, "fanout");
+        assertThat(fanout.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        homeFeed.getHomeFeed(1, null, 10);
+        Mockito.verify(postRepo).findRowsByIds(List.of(42));
+    }
+
+    @Test
+    void votesShowBeforeTheyAreFlushed() {
+        LocalDateTime createAt = LocalDateTime.now();
+        Mockito.when(communityRepo.findJoinedCommunityIds(1)).thenReturn(List.of(7));
+        Mockito.when(communityRepo.findMemberCount(7)).thenReturn(Optional.of(5));
+        Mockito.when(postRepo.findKeysInCommunities(List.of(7), PageRequest.of(0, 8)))
+                .thenReturn(List.of(new PostCursor(createAt, 42)));
+        Mockito.when(postRepo.findRowsByIds(List.of(42))).thenReturn(List.of(
+                new PostRow(42, "title", "content", "user", "user@reddit.test", "java", createAt, null, null, null, 10, 0)));
+        Mockito.when(postMapper.fromRows(any())).thenAnswer(call -> new ArrayList<>(call.<List<PostRow>>getArgument(0).stream()
+                .map(row -> {
+                    PostResDto dto = new PostResDto();
+                    dto.setPostId(row.postId());
+                    dto.setVotes(row.votes());
+                    return dto;
+                }).toList()));
+
+        voteBuffer.add(VoteTarget.POST, 42, 3);
+
+        assertThat(homeFeed.getHomeFeed(1, null, 10).getItems())
+                .extracting(PostResDto::getVotes).containsExactly(13);
+    }
+
+    private static Post post(Integer postId, Integer communityId) {
+        Community community = new Community();
+        community.setCommunityId(communityId);
+        Post post = new Post();
+        post.setPostId(postId);
+        post.setCommunity(community);
+        post.setCreateAt(LocalDateTime.now());
+        return post;
+    }
+}
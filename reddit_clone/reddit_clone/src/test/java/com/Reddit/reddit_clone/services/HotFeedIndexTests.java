@@ -0,0 +1,80 @@
+package com.Reddit.reddit_clone.services;
+
+import com.Reddit.reddit_clone.model.dtos.postDtos.PostRankingRow;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.pagination.RankCursor;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.services.implementations.HotFeedIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Events that arrive while the index is warming up win over the snapshot it loads,
+ * and pages only list posts inside the window the caller continues from.
+ */
+class HotFeedIndexTests {
+
+    private PostRepo postRepo;
+    private HotFeedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        postRepo = Mockito.mock(PostRepo.class);
+        index = new HotFeedIndex();
+        ReflectionTestUtils.setField(index, "postRepo", postRepo);
+        ReflectionTestUtils.setField(index, "topK", 10);
+        ReflectionTestUtils.setField(index, "windowHours", 72);
+    }
+
+    @Test
+    void theWarmUpSnapshotNeverOverridesLiveEvents() {
+        LocalDateTime now = LocalDateTime.now();
+        Mockito.when(postRepo.findRankingRowsSince(any())).thenAnswer(call -> {
+            // Events handled while the snapshot query runs; the rows it returns predate them.
+            index.onPostCreated(post(1, now.minusHours(2), 0), "java");
+            index.onVote(1, 50);
+            index.onPostDeleted(2);
+            return List.of(
+                    new PostRankingRow(1, "java", now.minusHours(2), 0, 0),
+                    new PostRankingRow(2, "java", now.minusHours(1), 0, 0),
+                    new PostRankingRow(3, "java", now.minusHours(3), 0, 0));
+        });
+
+        index.warmUp();
+
+        List<RankCursor> page = index.page("java", null, 10, index.windowStart());
+        assertThat(page).extracting(RankCursor::postId).containsExactly(1, 3);
+        assertThat(page.get(0).score()).isEqualTo(HotFeedIndex.hotScore(50, 0, now.minusHours(2)));
+
+        // Once warm, deletes remove the post outright and nothing is left behind.
+        index.onPostDeleted(3);
+        index.onVote(3, 1);
+        assertThat(index.page("java", null, 10, index.windowStart())).extracting(RankCursor::postId).containsExactly(1);
+    }
+
+    @Test
+    void pagesSkipPostsOlderThanTheGivenWindowStart() {
+        LocalDateTime now = LocalDateTime.now();
+        index.onPostCreated(post(1, now.minusHours(1), 0), "java");
+        index.onPostCreated(post(2, now.minusHours(10), 100), "java");
+
+        assertThat(index.page(null, null, 10, now.minusHours(72))).extracting(RankCursor::postId).containsExactly(2, 1);
+        assertThat(index.page(null, null, 10, now.minusHours(5))).extracting(RankCursor::postId).containsExactly(1);
+    }
+
+    private static Post post(Integer postId, LocalDateTime createAt, int votes) {
+        Post post = new Post();
+        post.setPostId(postId);
+        post.setCreateAt(createAt);
+        post.setVotes(votes);
+        return post;
+    }
+}
@@ -0,0 +1,93 @@
+package com.Reddit.reddit_clone.services;
+
+import com.Reddit.reddit_clone.services.implementations.LocalMediaStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalMediaStoreTests {
+
+    @TempDir
+    Path root;
+
+    private LocalMediaStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new LocalMediaStore(root.toString());
+    }
+
+    @Test
+    void identicalBytesShareOneShardedBlob() throws Exception {
+        byte[] bytes = "same picture".getBytes(StandardCharsets.UTF_8);
+        String key = store.store(new ByteArrayInputStream(bytes), "image/png");
+        String again = store.store(new MockMultipartFile("image", "copy.png", "image/png", bytes));
+
+        assertThat(key).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes)));
+        assertThat(again).isEqualTo(key);
+        assertThat(root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key)).exists();
+        assertThat(store.find(key)).get().isEqualTo(new MediaStore.StoredMedia(key, "image/png", bytes.length));
+        assertThat(read(key)).isEqualTo(bytes);
+        // No temp files are left behind.
+        try (Stream<Path> files = Files.list(root)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    void variantsLiveAndDieWithTheirOriginal() throws Exception {
+        String key = store.store(new ByteArrayInputStream(new byte[]{1, 2, 3}), null);
+        assertThat(store.find(key).orElseThrow().contentType()).isEqualTo("application/octet-stream");
+        assertThat(store.find(key, MediaStore.Variant.THUMB)).isEmpty();
+
+        store.storeVariant(key, MediaStore.Variant.THUMB, new byte[]{9}, "image/jpeg");
+        assertThat(store.find(key, MediaStore.Variant.THUMB).orElseThrow().contentType()).isEqualTo("image/jpeg");
+
+        store.delete(key);
+        assertThat(store.find(key)).isEmpty();
+        assertThat(store.find(key, MediaStore.Variant.THUMB)).isEmpty();
+    }
+
+    @Test
+    void keysThatAreNotHashesNeverReachTheFilesystem() {
+        assertThat(store.find("../../etc/passwd")).isEmpty();
+        assertThat(store.find("ABC")).isEmpty();
+        assertThatThrownBy(() -> store.open("../secret")).isInstanceOf(NoSuchFileException.class);
+        assertThatThrownBy(() -> store.storeVariant("..", MediaStore.Variant.FEED, new byte[1], "image/png"))
+                .isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void emptyUploadsAreNotStored() throws Exception {
+        assertThat(store.store((MultipartFile) null)).isNull();
+        assertThat(store.store(new MockMultipartFile("image", new byte[0]))).isNull();
+    }
+
+    private byte[] read(String key) throws IOException {
+        try (SeekableByteChannel channel = store.open(key)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            int read = 0;
+            while (buffer.hasRemaining() && read >= 0) {
+                read = channel.read(buffer);
+            }
+            return buffer.array();
+        }
+    }
+}
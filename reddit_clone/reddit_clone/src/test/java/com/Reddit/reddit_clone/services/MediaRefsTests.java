@@ -0,0 +1,189 @@
+package com.Reddit.reddit_clone.services;
+
+import com.Reddit.reddit_clone.model.dtos.UserDtos.UserReqDto;
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.services.implementations.MediaRefs;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The same picture posted twice is stored once, and is deleted from the store
+ * only after the last post or user pointing at it is gone. A save that fails
+ * leaves no reference behind.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "media.gc.grace-ms=0",
+        "media.gc.interval-ms=3600000"
+})
+class MediaRefsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MediaRefs mediaRefs;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private UserServices userServices;
+
+    private User author;
+
+    @BeforeAll
+    void seed() {
+        author = new User();
+        author.setUserName("reposter");
+        author.setEmail("reposter@reddit.test");
+        author.setPassword("secret");
+        author.setPhoneNumber("0920");
+        userRepo.save(author);
+        for (String name : new String[]{"memes", "funny"}) {
+            Community community = new Community();
+            community.setCommunityName(name);
+            community.setCreatedBy(author);
+            communityRepo.save(community);
+        }
+    }
+
+    @Test
+    void repostsShareOneBlobUntilTheLastIsDeleted() throws Exception {
+        byte[] meme = randomBytes(20_000, 11);
+        String first = createPost("memes", meme);
+        String second = createPost("funny", meme);
+        String key = JsonPath.read(first, "$.imageUrl");
+        assertThat((String) JsonPath.read(second, "$.imageUrl")).isEqualTo(key);
+        key = key.substring("/media/".length(), key.indexOf('?'));
+        assertThat(refCount(key)).isEqualTo(2);
+
+        deletePost(JsonPath.read(first, "$.postId"));
+        mediaRefs.sweep();
+        assertThat(refCount(key)).isEqualTo(1);
+        mockMvc.perform(get("/media/" + key)).andExpect(status().isOk());
+
+        deletePost(JsonPath.read(second, "$.postId"));
+        mediaRefs.sweep();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from media_refs where media_key = ?", Integer.class, key))
+                .isZero();
+        mockMvc.perform(get("/media/" + key)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void replacedAndDeletedAvatarsAreReleased() throws Exception {
+        User user = new User();
+        user.setUserName("avatar");
+        user.setEmail("avatar@reddit.test");
+        user.setPassword("secret");
+        user.setPhoneNumber("0921");
+        userRepo.save(user);
+        String oldKey = upload(randomBytes(5_000, 12));
+        String newKey = upload(randomBytes(5_000, 13));
+
+        updateAvatar(user, oldKey);
+        updateAvatar(user, oldKey);
+        assertThat(refCount(oldKey)).isEqualTo(1);
+        updateAvatar(user, newKey);
+        assertThat(refCount(oldKey)).isZero();
+        assertThat(refCount(newKey)).isEqualTo(1);
+
+        mockMvc.perform(post("/delete-account").param("userEmail", "avatar@reddit.test"))
+                .andExpect(status().isOk());
+        assertThat(refCount(newKey)).isZero();
+        mediaRefs.sweep();
+        mockMvc.perform(get("/media/" + oldKey)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/media/" + newKey)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void anAccountThatFailsToSaveReleasesItsImage() throws Exception {
+        String key = upload(randomBytes(5_000, 15));
+        UserReqDto taken = new UserReqDto("copycat", "reposter@reddit.test", "secret", "0920", key);
+
+        assertThatThrownBy(() -> userServices.createAccount(taken, null))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(refCount(key)).isZero();
+    }
+
+    @Test
+    void unattachedUploadsAreSweptToo() throws Exception {
+        String key = upload(randomBytes(5_000, 14));
+        assertThat(refCount(key)).isZero();
+
+        mediaRefs.sweep();
+
+        mockMvc.perform(get("/media/" + key)).andExpect(status().isNotFound());
+    }
+
+    private int refCount(String key) {
+        return jdbcTemplate.queryForObject("select ref_count from media_refs where media_key = ?", Integer.class, key);
+    }
+
+    private String createPost(String community, byte[] image) throws Exception {
+        String dto = "{\"title\":\"meme\",\"content\":\"lol\",\"userId\":" + author.getUserId()
+                + ",\"communityName\":\"" + community + "\"}";
+        return mockMvc.perform(multipart("/create-post")
+                        .file(new MockMultipartFile("dto", "", MediaType.APPLICATION_JSON_VALUE,
+                                dto.getBytes(StandardCharsets.UTF_8)))
+                        .file(new MockMultipartFile("image", "meme.png", "image/png", image)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private void deletePost(int postId) throws Exception {
+        mockMvc.perform(post("/delete-post").param("postId", String.valueOf(postId)))
+                .andExpect(status().isOk());
+    }
+
+    private void updateAvatar(User user, String imageKey) throws Exception {
+        String dto = "{\"userId\":" + user.getUserId() + ",\"userName\":\"avatar\",\"imageKey\":\"" + imageKey + "\"}";
+        mockMvc.perform(multipart("/update-profile")
+                        .file(new MockMultipartFile("dto", "", MediaType.APPLICATION_JSON_VALUE,
+                                dto.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk());
+    }
+
+    private String upload(byte[] bytes) throws Exception {
+        String json = mockMvc.perform(post("/media").contentType("image/png").content(bytes))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(json, "$.imageKey");
+    }
+
+    private static byte[] randomBytes(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,187 @@
+package com.Reddit.reddit_clone.services;
+
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Uploaded images are served as downscaled, re-encoded variants; anything else
+ * (and anything not rendered yet) falls back to the original.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MediaVariantsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+
+    private User author;
+
+    @BeforeAll
+    void seed() {
+        author = new User();
+        author.setUserName("photographer");
+        author.setEmail("photographer@reddit.test");
+        author.setPassword("secret");
+        author.setPhoneNumber("0900");
+        userRepo.save(author);
+        Community community = new Community();
+        community.setCommunityName("photos");
+        community.setCreatedBy(author);
+        communityRepo.save(community);
+    }
+
+    @Test
+    void photosAreServedInThreeSmallerSizes() throws Exception {
+        byte[] original = photo(2400, 1600);
+        String postJson = createPost(new MockMultipartFile("image", "photo.jpg", "image/jpeg", original));
+        String key = keyOf(JsonPath.read(postJson, "$.imageUrl"));
+        assertThat((String) JsonPath.read(postJson, "$.feedImageUrl")).isEqualTo("/media/" + key + "?size=feed");
+        assertThat((String) JsonPath.read(postJson, "$.thumbnailUrl")).isEqualTo("/media/" + key + "?size=thumb");
+
+        MockHttpServletResponse thumb = awaitVariant(key, "thumb");
+        MockHttpServletResponse feed = fetch(key, "feed");
+        MockHttpServletResponse full = fetch(key, "full");
+
+        assertThat(thumb.getContentType()).isEqualTo("image/jpeg");
+        assertThat(longestEdge(thumb)).isEqualTo(160);
+        assertThat(longestEdge(feed)).isEqualTo(640);
+        assertThat(longestEdge(full)).isEqualTo(1600);
+        assertThat(feed.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + key + "-feed\"");
+        assertThat(feed.getContentAsByteArray().length).isLessThan(original.length / 10);
+        assertThat(thumb.getContentAsByteArray().length).isLessThan(original.length / 100);
+        // The upload itself is still there for whoever asks without a size.
+        assertThat(fetch(key, null).getContentAsByteArray()).isEqualTo(original);
+    }
+
+    @Test
+    void transparentImagesStayPng() throws Exception {
+        BufferedImage image = new BufferedImage(2000, 500, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(255, 0, 0, 128));
+        g.fillOval(0, 0, 2000, 500);
+        g.dispose();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        String key = keyOf(JsonPath.read(createPost(
+                new MockMultipartFile("image", "logo.png", "image/png", png.toByteArray())), "$.imageUrl"));
+
+        MockHttpServletResponse full = awaitVariant(key, "full");
+
+        assertThat(full.getContentType()).isEqualTo("image/png");
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(full.getContentAsByteArray()));
+        assertThat(decoded.getWidth()).isEqualTo(1600);
+        assertThat(decoded.getColorModel().hasAlpha()).isTrue();
+    }
+
+    @Test
+    void otherFilesFallBackToTheOriginal() throws Exception {
+        byte[] text = "not a picture".getBytes(StandardCharsets.UTF_8);
+        String key = keyOf(JsonPath.read(createPost(
+                new MockMultipartFile("image", "notes.txt", "text/plain", text)), "$.imageUrl"));
+
+        MockHttpServletResponse thumb = fetch(key, "thumb");
+
+        // Only allowlisted image types are served inline; the rest is a download.
+        assertThat(thumb.getContentType()).isEqualTo("application/octet-stream");
+        assertThat(thumb.getHeader(HttpHeaders.CONTENT_DISPOSITION)).isEqualTo("attachment");
+        assertThat(thumb.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + key + "\"");
+        assertThat(thumb.getContentAsByteArray()).isEqualTo(text);
+    }
+
+    @Test
+    void unknownSizeIsRejected() throws Exception {
+        mockMvc.perform(get("/media/" + "0".repeat(64)).param("size", "huge"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletResponse awaitVariant(String key, String size) throws Exception {
+        String etag = "\"" + key + "-" + size + "\"";
+        for (int i = 0; i < 100; i++) {
+            MockHttpServletResponse response = fetch(key, size);
+            if (etag.equals(response.getHeader(HttpHeaders.ETAG))) {
+                return response;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("variant " + size + " of " + key + " was never rendered");
+    }
+
+    private MockHttpServletResponse fetch(String key, String size) throws Exception {
+        return mockMvc.perform(size == null ? get("/media/" + key) : get("/media/" + key).param("size", size))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    private String createPost(MockMultipartFile image) throws Exception {
+        String dto = "{\"title\":\"picture\",\"content\":\"look\",\"userId\":" + author.getUserId()
+                + ",\"communityName\":\"photos\"}";
+        return mockMvc.perform(multipart("/create-post")
+                        .file(new MockMultipartFile("dto", "", MediaType.APPLICATION_JSON_VALUE,
+                                dto.getBytes(StandardCharsets.UTF_8)))
+                        .file(image))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static String keyOf(String url) {
+        return url.substring("/media/".length(), url.indexOf('?'));
+    }
+
+    private static int longestEdge(MockHttpServletResponse response) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(response.getContentAsByteArray()));
+        return Math.max(image.getWidth(), image.getHeight());
+    }
+
+    // A camera-like photo: smooth gradients with sensor noise, saved at high quality.
+    private static byte[] photo(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = Math.min(255, x * 255 / width + random.nextInt(40));
+                int g = Math.min(255, y * 255 / height + random.nextInt(40));
+                int b = Math.min(255, 128 + random.nextInt(40));
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+}
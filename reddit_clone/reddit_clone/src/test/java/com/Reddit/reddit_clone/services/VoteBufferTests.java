@@ -0,0 +1,123 @@
+package com.Reddit.reddit_clone.services;
+
+import com.Reddit.reddit_clone.model.entities.VoteTarget;
+import com.Reddit.reddit_clone.repos.CommentRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.services.implementations.VoteBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+
+/**
+ * Many threads voting while the buffer flushes: every delta reaches the
+ * database exactly once, including those whose write failed and was retried,
+ * and a delta being written still shows in pendingDelta.
+ */
+class VoteBufferTests {
+    private static final int TARGETS = 4;
+
+    private final Map<Integer, AtomicInteger> postVotes = new ConcurrentHashMap<>();
+    private PostRepo postRepo;
+    private VoteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        postRepo = Mockito.mock(PostRepo.class);
+        buffer = new VoteBuffer();
+        ReflectionTestUtils.setField(buffer, "postRepo", postRepo);
+        ReflectionTestUtils.setField(buffer, "commentRepo", Mockito.mock(CommentRepo.class));
+    }
+
+    @Test
+    void concurrentVotesAreNeitherLostNorDoubled() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        Mockito.when(postRepo.addVotes(anyInt(), anyInt())).thenAnswer(call -> {
+            // Every fifth write fails, and its delta has to come back on a later flush.
+            if (writes.incrementAndGet() % 5 == 0) {
+                throw new QueryTimeoutException("timeout");
+            }
+            postVotes.computeIfAbsent(call.getArgument(0), id -> new AtomicInteger()).addAndGet(call.getArgument(1));
+            return 1;
+        });
+
+        int threads = 8;
+        int votesPerThread = 20_000;
+        ExecutorService voters = Executors.newFixedThreadPool(threads);
+        AtomicBoolean voting = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (voting.get()) {
+                buffer.flush();
+            }
+        });
+        flusher.start();
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            done.add(voters.submit(() -> {
+                for (int i = 0; i < votesPerThread; i++) {
+                    int target = i % TARGETS;
+                    // Up on even targets, down on odd ones, so removed-then-recreated counters are exercised too.
+                    buffer.add(VoteTarget.POST, target, target % 2 == 0 ? 1 : -1);
+                }
+            }));
+        }
+        for (Future<?> future : done) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        voting.set(false);
+        flusher.join();
+        voters.shutdown();
+        // A few more rounds for retried deltas and for counters retired on the last round.
+        for (int round = 0; round < 10; round++) {
+            buffer.flush();
+        }
+
+        int perTarget = threads * votesPerThread / TARGETS;
+        for (int target = 0; target < TARGETS; target++) {
+            assertThat(postVotes.get(target).get()).isEqualTo(target % 2 == 0 ? perTarget : -perTarget);
+            assertThat(buffer.pendingDelta(VoteTarget.POST, target)).isZero();
+        }
+    }
+
+    @Test
+    void deltaStaysVisibleUntilItsWriteCommits() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Mockito.when(postRepo.addVotes(anyInt(), anyInt())).thenAnswer(call -> {
+            writing.countDown();
+            commit.await(5, TimeUnit.SECONDS);
+            return 1;
+        });
+        for (int i = 0; i < 5; i++) {
+            buffer.add(VoteTarget.POST, 7, 1);
+        }
+
+        Thread flusher = new Thread(buffer::flush);
+        flusher.start();
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(buffer.pendingDelta(VoteTarget.POST, 7)).isEqualTo(5);
+        buffer.add(VoteTarget.POST, 7, 1);
+        assertThat(buffer.pendingDelta(VoteTarget.POST, 7)).isEqualTo(6);
+
+        commit.countDown();
+        flusher.join();
+        assertThat(buffer.pendingDelta(VoteTarget.POST, 7)).isEqualTo(1);
+        Mockito.verify(postRepo).addVotes(7, 5);
+    }
+}
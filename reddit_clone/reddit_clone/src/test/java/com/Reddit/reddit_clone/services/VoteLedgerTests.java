@@ -0,0 +1,141 @@
+package com.Reddit.reddit_clone.services;
+
+import com.Reddit.reddit_clone.model.entities.Comment;
+import com.Reddit.reddit_clone.model.entities.Community;
+import com.Reddit.reddit_clone.model.entities.Post;
+import com.Reddit.reddit_clone.model.entities.User;
+import com.Reddit.reddit_clone.model.entities.VoteTarget;
+import com.Reddit.reddit_clone.repos.CommentRepo;
+import com.Reddit.reddit_clone.repos.CommunityRepo;
+import com.Reddit.reddit_clone.repos.PostRepo;
+import com.Reddit.reddit_clone.repos.UserRepo;
+import com.Reddit.reddit_clone.repos.VoteRepo;
+import com.Reddit.reddit_clone.services.implementations.VoteLedger;
+import com.Reddit.reddit_clone.utils.MaterializedPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Repeat votes and flips by recent voters are settled without a lookup,
+ * votes from before a restart are recognised through the warmed filter,
+ * and votes on missing users or targets are refused.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class VoteLedgerTests {
+
+    @Autowired
+    private VoteLedger voteLedger;
+    @Autowired
+    private VoteRepo voteRepo;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private CommunityRepo communityRepo;
+    @Autowired
+    private PostRepo postRepo;
+    @Autowired
+    private CommentRepo commentRepo;
+
+    private User voter;
+    private Post post;
+    private Comment comment;
+
+    @BeforeAll
+    void seed() {
+        voter = new User();
+        voter.setUserName("ledger");
+        voter.setEmail("ledger@reddit.test");
+        voter.setPassword("secret");
+        voter.setPhoneNumber("0130");
+        userRepo.save(voter);
+        Community community = new Community();
+        community.setCommunityName("ledgers");
+        community.setCreatedBy(voter);
+        communityRepo.save(community);
+        post = new Post();
+        post.setTitle("vote on me");
+        post.setContent("content");
+        post.setUser(voter);
+        post.setCommunity(community);
+        postRepo.save(post);
+        comment = new Comment();
+        comment.setContent("and me");
+        comment.setPost(post);
+        comment.setUser(voter);
+        comment.setPath(MaterializedPath.nextSegment());
+        comment.setDepth(0);
+        commentRepo.save(comment);
+    }
+
+    @Test
+    void repeatsAndFlipsOfRecentVotesSkipTheLookup() {
+        assertThat(voteLedger.record(voter.getUserId(), VoteTarget.POST, post.getPostId(), 1)).isEqualTo(1);
+
+        Statistics statistics = statistics();
+        assertThat(voteLedger.record(voter.getUserId(), VoteTarget.POST, post.getPostId(), 1)).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        // A flip is the conditional update alone.
+        assertThat(voteLedger.record(voter.getUserId(), VoteTarget.POST, post.getPostId(), -1)).isEqualTo(-2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(voteRepo.findAll()).anySatisfy(vote -> assertThat(vote.getValue()).isEqualTo((byte) -1));
+    }
+
+    @Test
+    void votesFromBeforeARestartAreFoundThroughTheWarmedFilter() {
+        jdbcTemplate.update("insert into votes (user_id, target_type, target_id, vote_value, create_at) "
+                + "values (?, ?, ?, 1, CURRENT_TIMESTAMP)", voter.getUserId(), VoteTarget.COMMENT.ordinal(), comment.getCommentId());
+        VoteLedger restarted = new VoteLedger(1000, 0.01, 1000);
+        ReflectionTestUtils.setField(restarted, "voteRepo", voteRepo);
+        ReflectionTestUtils.setField(restarted, "jdbcTemplate", jdbcTemplate);
+        restarted.warmUp();
+
+        Statistics statistics = statistics();
+        assertThat(restarted.record(voter.getUserId(), VoteTarget.COMMENT, comment.getCommentId(), 1)).isZero();
+        // One primary-key lookup, not a failed insert followed by one.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(restarted.record(voter.getUserId(), VoteTarget.COMMENT, comment.getCommentId(), 1)).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void votesOnMissingTargetsAreRefused() {
+        long before = voteRepo.count();
+        assertThatThrownBy(() -> voteLedger.record(voter.getUserId(), VoteTarget.POST, 999_999, 1))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+        assertThatThrownBy(() -> voteLedger.record(999_999, VoteTarget.COMMENT, comment.getCommentId(), 1))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThat(voteRepo.count()).isEqualTo(before);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}